@@ -17,22 +17,37 @@
 package com.android.car.dialer;
 
 import android.app.Application;
+import android.os.Build;
+import android.util.Log;
 
-import com.android.car.dialer.notification.InCallNotificationController;
-import com.android.car.dialer.notification.MissedCallNotificationController;
-import com.android.car.dialer.telecom.UiBluetoothMonitor;
-import com.android.car.dialer.telecom.UiCallManager;
-import com.android.car.telephony.common.InMemoryPhoneBook;
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.log.LogRingBuffer;
+import com.android.car.dialer.storage.WarmStartSnapshot;
 
 public class DialerApplication extends Application {
+    private static final int LOG_RING_BUFFER_CAPACITY = 512;
+    /** {@code setprop log.tag.CD.LogRingBuffer DEBUG} records debug logs in the ring buffer. */
+    private static final String LOG_RING_BUFFER_TAG = "CD.LogRingBuffer";
 
     @Override
     public void onCreate() {
         super.onCreate();
-        InMemoryPhoneBook.init(this);
-        UiCallManager.init(this);
-        UiBluetoothMonitor.init(this);
-        InCallNotificationController.init(this);
-        MissedCallNotificationController.init(this);
+        if (Build.IS_DEBUGGABLE) {
+            // Keeps the recent logs for dumpsys instead of sending everything to logcat.
+            L.setRingBuffer(
+                    new LogRingBuffer(LOG_RING_BUFFER_CAPACITY, getLogRingBufferMinLevel()));
+        }
+        // Components are initialized by the entry points needing them or once the main thread is
+        // idle, so that process starts for a broadcast or a ringing call don't wait for them all.
+        DialerStartup.init(this);
+        // Reads the lists shown last time before the activity asks for them.
+        WarmStartSnapshot.preload(this);
+    }
+
+    private static int getLogRingBufferMinLevel() {
+        if (Log.isLoggable(LOG_RING_BUFFER_TAG, Log.VERBOSE)) {
+            return Log.VERBOSE;
+        }
+        return Log.isLoggable(LOG_RING_BUFFER_TAG, Log.DEBUG) ? Log.DEBUG : Log.INFO;
     }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.notification.InCallNotificationController;
+import com.android.car.dialer.notification.MissedCallNotificationController;
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
+import com.android.car.dialer.telecom.UiBluetoothMonitor;
+import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.telephony.common.InMemoryPhoneBook;
+import com.android.internal.annotations.GuardedBy;
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Initializes the application wide components of the Dialer off the process start path.
+ *
+ * <p>Each {@link Component} declares the components it depends on. A component is initialized
+ * by the first entry point which needs it, see {@link #ensureInitialized(Component...)}, or on
+ * an idle pass of the main thread after the process starts, whichever comes first. Ring critical
+ * components are initialized first on idle. The time spent initializing each component is
+ * recorded as {@code Startup.<component>} in the {@link DialerMetrics}.
+ */
+public class DialerStartup {
+    private static final String TAG = "CD.DialerStartup";
+
+    /** Initializes a component. */
+    public interface Initializer {
+        void init(@NonNull Context applicationContext);
+    }
+
+    /** A component initialized at most once per process. */
+    public static final class Component {
+        private final String mName;
+        private final boolean mRingCritical;
+        private final Initializer mInitializer;
+        private final Component[] mDependencies;
+        private final LatencyHistogram mLatency;
+
+        @VisibleForTesting
+        Component(String name, boolean ringCritical, Initializer initializer,
+                Component... dependencies) {
+            mName = name;
+            mRingCritical = ringCritical;
+            mInitializer = initializer;
+            mDependencies = dependencies;
+            mLatency = DialerMetrics.histogram("Startup." + name);
+        }
+
+        @Override
+        public String toString() {
+            return mName;
+        }
+    }
+
+    /** Shows the incoming call heads up notification. */
+    public static final Component IN_CALL_NOTIFICATION = new Component(
+            "InCallNotificationController", /* ringCritical= */true,
+            InCallNotificationController::init);
+    /** Binds the in call service and the HFP profile proxy. */
+    public static final Component CALL_MANAGER = new Component(
+            "UiCallManager", /* ringCritical= */true, UiCallManager::init);
+    /** Loads the contacts. */
+    public static final Component PHONE_BOOK = new Component(
+            "InMemoryPhoneBook", /* ringCritical= */false, InMemoryPhoneBook::init);
+    /** Monitors the Bluetooth state. */
+    public static final Component BLUETOOTH_MONITOR = new Component(
+            "UiBluetoothMonitor", /* ringCritical= */false, UiBluetoothMonitor::init);
+    /** Observes the call log for missed calls. */
+    public static final Component MISSED_CALL_NOTIFICATION = new Component(
+            "MissedCallNotificationController", /* ringCritical= */false,
+            MissedCallNotificationController::init, PHONE_BOOK);
+
+    /** The components used by the Dialer activities. */
+    public static final Component[] UI_COMPONENTS =
+            {CALL_MANAGER, PHONE_BOOK, BLUETOOTH_MONITOR};
+
+    private static final Component[] COMPONENTS = {IN_CALL_NOTIFICATION, CALL_MANAGER,
+            PHONE_BOOK, BLUETOOTH_MONITOR, MISSED_CALL_NOTIFICATION};
+
+    private static DialerStartup sDialerStartup;
+
+    private final Context mContext;
+    /** The components in the order they are initialized on idle. */
+    private final List<Component> mComponents;
+    @GuardedBy("this")
+    private final Set<Component> mInitialized = new HashSet<>();
+    /** Detects dependency cycles. */
+    @GuardedBy("this")
+    private final Set<Component> mInitializing = new HashSet<>();
+
+    /**
+     * Sets up the startup of the application and schedules the initialization of all components
+     * on idle. Must be called on the main thread.
+     */
+    public static DialerStartup init(Context applicationContext) {
+        if (sDialerStartup != null) {
+            throw new IllegalStateException("DialerStartup has been initialized.");
+        }
+        sDialerStartup = new DialerStartup(applicationContext, Arrays.asList(COMPONENTS));
+        sDialerStartup.scheduleOnIdle();
+        return sDialerStartup;
+    }
+
+    /**
+     * Returns the startup of the application, or {@code null} if the application initializes its
+     * components itself, e.g. in tests.
+     */
+    @Nullable
+    public static DialerStartup get() {
+        return sDialerStartup;
+    }
+
+    /** Initializes the given components and their dependencies if they aren't yet. */
+    public static void ensureInitialized(Component... components) {
+        DialerStartup dialerStartup = sDialerStartup;
+        if (dialerStartup == null) {
+            return;
+        }
+        for (Component component : components) {
+            dialerStartup.initialize(component);
+        }
+    }
+
+    @VisibleForTesting
+    DialerStartup(Context applicationContext, List<Component> components) {
+        mContext = applicationContext;
+        mComponents = new ArrayList<>(components);
+        // Stable, so the declaration order is kept within the same priority.
+        mComponents.sort((first, second) ->
+                Boolean.compare(second.mRingCritical, first.mRingCritical));
+    }
+
+    /** Returns whether the component has been initialized. */
+    public synchronized boolean isInitialized(Component component) {
+        return mInitialized.contains(component);
+    }
+
+    /** Initializes the component and its dependencies if they aren't yet. */
+    @VisibleForTesting
+    synchronized void initialize(Component component) {
+        if (mInitialized.contains(component)) {
+            return;
+        }
+        if (!mInitializing.add(component)) {
+            throw new IllegalStateException("Dependency cycle at " + component);
+        }
+        for (Component dependency : component.mDependencies) {
+            initialize(dependency);
+        }
+
+        Trace.beginSection("Startup." + component.mName);
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        try {
+            component.mInitializer.init(mContext);
+        } finally {
+            long durationNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+            component.mLatency.record(durationNanos);
+            Trace.endSection();
+            mInitializing.remove(component);
+            L.d(TAG, "Initialized %s in %dus", component, durationNanos / 1000);
+        }
+        mInitialized.add(component);
+    }
+
+    /**
+     * Initializes the next component which isn't initialized yet. Returns whether there are more
+     * components left.
+     */
+    @VisibleForTesting
+    synchronized boolean initializeNext() {
+        for (Component component : mComponents) {
+            if (!mInitialized.contains(component)) {
+                initialize(component);
+                break;
+            }
+        }
+        return mInitialized.size() < mComponents.size();
+    }
+
+    /** Initializes one component per idle pass, so that no pass delays a frame for long. */
+    private void scheduleOnIdle() {
+        Looper.myQueue().addIdleHandler(this::initializeNext);
+    }
+}
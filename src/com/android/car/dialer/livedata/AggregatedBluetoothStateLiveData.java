@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothProfile;
+import android.view.Choreographer;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import com.android.car.dialer.log.L;
+
+import java.util.Set;
+
+/**
+ * Folds {@link BluetoothStateLiveData}, {@link BluetoothPairListLiveData} and
+ * {@link BluetoothHfpStateLiveData} into a single immutable {@link State}.
+ *
+ * <p>Changes of the sources are coalesced until the next frame, so a burst of broadcasts while the
+ * adapter powers on results in at most one update per frame. Observers are only notified when the
+ * folded state actually changes. The state is computed synchronously when the LiveData becomes
+ * active so observers never see a stale value.
+ */
+public class AggregatedBluetoothStateLiveData extends
+        MediatorLiveData<AggregatedBluetoothStateLiveData.State> {
+    private static final String TAG = "CD.AggregatedBtState";
+
+    /** Immutable Bluetooth state relevant to the dialer. */
+    public static final class State {
+        private final boolean mIsBluetoothEnabled;
+        private final boolean mHasPairedDevices;
+        private final boolean mIsHfpConnected;
+
+        private State(boolean isBluetoothEnabled, boolean hasPairedDevices,
+                boolean isHfpConnected) {
+            mIsBluetoothEnabled = isBluetoothEnabled;
+            mHasPairedDevices = hasPairedDevices;
+            mIsHfpConnected = isHfpConnected;
+        }
+
+        /** Returns false only if the Bluetooth adapter is known to be disabled. */
+        public boolean isBluetoothEnabled() {
+            return mIsBluetoothEnabled;
+        }
+
+        /** Returns false only if the paired device list is known to be empty. */
+        public boolean hasPairedDevices() {
+            return mHasPairedDevices;
+        }
+
+        /** Returns false only if the HFP profile is known to be not connected. */
+        public boolean isHfpConnected() {
+            return mIsHfpConnected;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof State)) {
+                return false;
+            }
+            State other = (State) o;
+            return mIsBluetoothEnabled == other.mIsBluetoothEnabled
+                    && mHasPairedDevices == other.mHasPairedDevices
+                    && mIsHfpConnected == other.mIsHfpConnected;
+        }
+
+        @Override
+        public int hashCode() {
+            return (mIsBluetoothEnabled ? 4 : 0) | (mHasPairedDevices ? 2 : 0)
+                    | (mIsHfpConnected ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return "State{isBluetoothEnabled=" + mIsBluetoothEnabled
+                    + ", hasPairedDevices=" + mHasPairedDevices
+                    + ", isHfpConnected=" + mIsHfpConnected + "}";
+        }
+    }
+
+    private final LiveData<Integer> mBluetoothStateLiveData;
+    private final LiveData<Set<BluetoothDevice>> mPairListLiveData;
+    private final LiveData<Integer> mHfpStateLiveData;
+
+    private boolean mUpdateScheduled;
+    private final Choreographer.FrameCallback mFrameCallback = frameTimeNanos -> {
+        mUpdateScheduled = false;
+        update();
+    };
+
+    public AggregatedBluetoothStateLiveData(LiveData<Integer> bluetoothStateLiveData,
+            LiveData<Set<BluetoothDevice>> pairListLiveData,
+            LiveData<Integer> hfpStateLiveData) {
+        mBluetoothStateLiveData = bluetoothStateLiveData;
+        mPairListLiveData = pairListLiveData;
+        mHfpStateLiveData = hfpStateLiveData;
+
+        addSource(bluetoothStateLiveData, state -> scheduleUpdate());
+        addSource(pairListLiveData, pairedDevices -> scheduleUpdate());
+        addSource(hfpStateLiveData, state -> scheduleUpdate());
+    }
+
+    @Override
+    protected void onActive() {
+        super.onActive();
+        // The sources have emitted their current values synchronously while being plugged in.
+        cancelScheduledUpdate();
+        update();
+    }
+
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+        cancelScheduledUpdate();
+    }
+
+    private void scheduleUpdate() {
+        if (!mUpdateScheduled) {
+            mUpdateScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    private void cancelScheduledUpdate() {
+        if (mUpdateScheduled) {
+            mUpdateScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+    }
+
+    private void update() {
+        Integer bluetoothState = mBluetoothStateLiveData.getValue();
+        Set<BluetoothDevice> pairedDevices = mPairListLiveData.getValue();
+        Integer hfpState = mHfpStateLiveData.getValue();
+        State state = new State(
+                bluetoothState == null
+                        || bluetoothState != BluetoothStateLiveData.BluetoothState.DISABLED,
+                pairedDevices == null || !pairedDevices.isEmpty(),
+                hfpState == null || hfpState == BluetoothProfile.STATE_CONNECTED);
+        if (!state.equals(getValue())) {
+            L.d(TAG, "update to %s", state);
+            setValue(state);
+        }
+    }
+}
@@ -16,48 +16,31 @@
 
 package com.android.car.dialer.livedata;
 
-import android.bluetooth.BluetoothHeadsetClient;
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-
 import androidx.lifecycle.LiveData;
 
 import com.android.car.dialer.log.L;
 import com.android.car.dialer.telecom.UiCallManager;
 
 /**
- * Provides the current connecting audio route.
+ * Provides the current connecting audio route. Updates are driven by
+ * {@link UiCallManager.OnAudioRouteChangedListener} so the route is only re-read when telecom or
+ * the HFP profile reports a change.
  */
 public class AudioRouteLiveData extends LiveData<Integer> {
     private static final String TAG = "CD.AudioRouteLiveData";
 
-    private final Context mContext;
-    private final IntentFilter mAudioRouteChangeFilter;
-
-    private final BroadcastReceiver mAudioRouteChangeReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            updateAudioRoute();
-        }
-    };
-
-    public AudioRouteLiveData(Context context) {
-        mContext = context;
-        mAudioRouteChangeFilter =
-                new IntentFilter(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED);
-    }
+    private final UiCallManager.OnAudioRouteChangedListener mOnAudioRouteChangedListener =
+            this::updateAudioRoute;
 
     @Override
     protected void onActive() {
         updateAudioRoute();
-        mContext.registerReceiver(mAudioRouteChangeReceiver, mAudioRouteChangeFilter);
+        UiCallManager.get().addOnAudioRouteChangedListener(mOnAudioRouteChangedListener);
     }
 
     @Override
     protected void onInactive() {
-        mContext.unregisterReceiver(mAudioRouteChangeReceiver);
+        UiCallManager.get().removeOnAudioRouteChangedListener(mOnAudioRouteChangedListener);
     }
 
     private void updateAudioRoute() {
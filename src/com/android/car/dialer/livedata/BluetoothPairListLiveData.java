@@ -29,10 +29,16 @@ import androidx.lifecycle.LiveData;
 import com.android.car.dialer.log.L;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Provides a list of paired Bluetooth devices.
+ *
+ * <p>The bonded devices are loaded from the {@link BluetoothAdapter} when the LiveData becomes
+ * active. After that, {@link BluetoothDevice#ACTION_BOND_STATE_CHANGED} broadcasts are applied as
+ * deltas and a new value is only emitted when a device is added or removed. A broadcast that can't
+ * be applied, e.g. one without the expected extras, triggers a full reload instead.
  */
 public class BluetoothPairListLiveData extends LiveData<Set<BluetoothDevice>> {
     private static final String TAG = "CD.BluetoothPairListLiveData";
@@ -40,11 +46,12 @@ public class BluetoothPairListLiveData extends LiveData<Set<BluetoothDevice>> {
     private final BluetoothAdapter mBluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
     private final Context mContext;
     private final IntentFilter mIntentFilter = new IntentFilter();
+    private final Set<BluetoothDevice> mBondedDevices = new HashSet<>();
 
     private BroadcastReceiver mBluetoothPairListReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
-            updateList();
+            onBondStateChanged(intent);
         }
     };
 
@@ -70,8 +77,54 @@ public class BluetoothPairListLiveData extends LiveData<Set<BluetoothDevice>> {
         }
     }
 
+    private void onBondStateChanged(Intent intent) {
+        BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+        int bondState = intent.getIntExtra(BluetoothDevice.EXTRA_BOND_STATE, BluetoothDevice.ERROR);
+        int previousBondState = intent.getIntExtra(BluetoothDevice.EXTRA_PREVIOUS_BOND_STATE,
+                BluetoothDevice.ERROR);
+        if (device == null || bondState == BluetoothDevice.ERROR) {
+            L.d(TAG, "Bond state change without extras, reloading");
+            updateList();
+            return;
+        }
+
+        boolean isKnown = mBondedDevices.contains(device);
+        if (isKnown != (previousBondState == BluetoothDevice.BOND_BONDED)
+                && previousBondState != BluetoothDevice.ERROR) {
+            L.d(TAG, "Bond state of %s out of sync, reloading", device);
+            updateList();
+            return;
+        }
+
+        boolean changed;
+        if (bondState == BluetoothDevice.BOND_BONDED) {
+            changed = mBondedDevices.add(device);
+        } else if (bondState == BluetoothDevice.BOND_NONE) {
+            changed = mBondedDevices.remove(device);
+        } else {
+            // Intermediate states such as BOND_BONDING don't change the paired device list.
+            changed = false;
+        }
+        if (changed) {
+            publishList();
+        }
+    }
+
+    /** Reloads the bonded devices from the adapter and publishes them if they changed. */
     private void updateList() {
         Set<BluetoothDevice> devices = mBluetoothAdapter.getBondedDevices();
+        if (devices == null) {
+            devices = Collections.emptySet();
+        }
+        if (getValue() == null || !mBondedDevices.equals(devices)) {
+            mBondedDevices.clear();
+            mBondedDevices.addAll(devices);
+            publishList();
+        }
+    }
+
+    private void publishList() {
+        Set<BluetoothDevice> devices = Collections.unmodifiableSet(new HashSet<>(mBondedDevices));
         L.d(TAG, "updateList to %s", devices);
         setValue(devices);
     }
@@ -21,10 +21,13 @@ import static com.android.car.dialer.livedata.CallHistoryLiveData.CallType.CALL_
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.provider.CallLog;
 
 import androidx.annotation.IntDef;
 
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
 import com.android.car.telephony.common.AsyncQueryLiveData;
 import com.android.car.telephony.common.PhoneCallLog;
 import com.android.car.telephony.common.QueryParam;
@@ -40,6 +43,12 @@ public class CallHistoryLiveData extends AsyncQueryLiveData<List<PhoneCallLog>>
     /** The default limit of loading call logs */
     private final static int DEFAULT_CALL_LOG_LIMIT = 100;
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
+    private static final DialerMetrics.Counter QUERY_COUNT =
+            DialerMetrics.counter("CallHistoryLiveData.queryCount");
+    private static final LatencyHistogram CONVERT_LATENCY =
+            DialerMetrics.histogram("CallHistoryLiveData.convertToEntity");
+    private static final DialerMetrics.Gauge LOADED_SIZE =
+            DialerMetrics.gauge("CallHistoryLiveData.loadedCallLogs");
 
     @IntDef({
             CALL_TYPE_ALL,
@@ -88,7 +97,7 @@ public class CallHistoryLiveData extends AsyncQueryLiveData<List<PhoneCallLog>>
                 .build();
         QueryParam queryParam = new QueryParam(
                 uri,
-                null,
+                QueryProjections.CALL_LOG,
                 selection,
                 selectionArgs.toArray(EMPTY_STRING_ARRAY),
                 CallLog.Calls.DEFAULT_SORT_ORDER);
@@ -103,6 +112,8 @@ public class CallHistoryLiveData extends AsyncQueryLiveData<List<PhoneCallLog>>
 
     @Override
     protected List<PhoneCallLog> convertToEntity(Cursor cursor) {
+        QUERY_COUNT.increment();
+        long startNanos = SystemClock.elapsedRealtimeNanos();
         List<PhoneCallLog> resultList = new ArrayList<>();
 
         while (cursor.moveToNext()) {
@@ -114,6 +125,8 @@ public class CallHistoryLiveData extends AsyncQueryLiveData<List<PhoneCallLog>>
                 resultList.add(phoneCallLog);
             }
         }
+        CONVERT_LATENCY.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+        LOADED_SIZE.set(resultList.size());
         return resultList;
     }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import android.database.Cursor;
+import android.provider.ContactsContract;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.telephony.common.Contact;
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the recently loaded contacts with all their phone numbers, keyed by lookup key, together
+ * with the {@link ContactsContract.Contacts#CONTACT_LAST_UPDATED_TIMESTAMP} they were loaded at.
+ * Filled by the favorites and the contact details loaders, so that opening the details of a
+ * contact shows it right away and only queries its phone rows again once it has been updated.
+ */
+public class ContactDetailsCache {
+    private static final int CACHE_SIZE = 64;
+
+    private static ContactDetailsCache sContactDetailsCache;
+
+    /** A cached contact. */
+    public static final class Entry {
+        private final Contact mContact;
+        private final long mLastUpdatedTimestamp;
+
+        Entry(@NonNull Contact contact, long lastUpdatedTimestamp) {
+            mContact = contact;
+            mLastUpdatedTimestamp = lastUpdatedTimestamp;
+        }
+
+        @NonNull
+        public Contact getContact() {
+            return mContact;
+        }
+
+        public long getLastUpdatedTimestamp() {
+            return mLastUpdatedTimestamp;
+        }
+    }
+
+    private final LruCache<String, Entry> mEntries = new LruCache<>(CACHE_SIZE);
+
+    /** Returns the cache of the application, creating it on first call. */
+    public static synchronized ContactDetailsCache get() {
+        if (sContactDetailsCache == null) {
+            sContactDetailsCache = new ContactDetailsCache();
+        }
+        return sContactDetailsCache;
+    }
+
+    @VisibleForTesting
+    ContactDetailsCache() {
+    }
+
+    /** Returns the cached contact of the lookup key, if any. */
+    @Nullable
+    public Entry get(@Nullable String lookupKey) {
+        return TextUtils.isEmpty(lookupKey) ? null : mEntries.get(lookupKey);
+    }
+
+    /** Caches a contact loaded with all its phone numbers. */
+    public void put(@NonNull Contact contact, long lastUpdatedTimestamp) {
+        if (!TextUtils.isEmpty(contact.getLookupKey())) {
+            mEntries.put(contact.getLookupKey(), new Entry(contact, lastUpdatedTimestamp));
+        }
+    }
+
+    /**
+     * Caches the contacts converted from the phone rows of the cursor, which must include all the
+     * phone rows of these contacts.
+     */
+    public void putAll(@NonNull List<Contact> contacts, @NonNull Cursor cursor) {
+        Map<String, Long> timestamps = readLastUpdatedTimestamps(cursor);
+        for (Contact contact : contacts) {
+            Long timestamp = timestamps.get(contact.getLookupKey());
+            if (timestamp != null) {
+                put(contact, timestamp);
+            }
+        }
+    }
+
+    /** Removes the contact of the lookup key, e.g. when it has been deleted. */
+    public void remove(@Nullable String lookupKey) {
+        if (!TextUtils.isEmpty(lookupKey)) {
+            mEntries.remove(lookupKey);
+        }
+    }
+
+    /** Drops all the cached contacts. */
+    public void clear() {
+        mEntries.evictAll();
+    }
+
+    /**
+     * Returns the last updated timestamp of the phone rows of the cursor, keyed by lookup key.
+     * Leaves the cursor after the last row.
+     */
+    private static Map<String, Long> readLastUpdatedTimestamps(Cursor cursor) {
+        Map<String, Long> timestamps = new HashMap<>();
+        int lookupKeyColumn = cursor.getColumnIndex(ContactsContract.Data.LOOKUP_KEY);
+        int timestampColumn = cursor.getColumnIndex(
+                ContactsContract.Data.CONTACT_LAST_UPDATED_TIMESTAMP);
+        if (lookupKeyColumn < 0 || timestampColumn < 0) {
+            return timestamps;
+        }
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            timestamps.put(cursor.getString(lookupKeyColumn), cursor.getLong(timestampColumn));
+        }
+        return timestamps;
+    }
+}
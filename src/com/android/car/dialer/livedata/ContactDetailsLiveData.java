@@ -16,83 +16,213 @@
 
 package com.android.car.dialer.livedata;
 
-import android.content.ContentUris;
 import android.content.Context;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.ContactsContract;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
 
-import com.android.car.telephony.common.AsyncQueryLiveData;
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
+import com.android.car.dialer.storage.ContactMutationQueue;
+import com.android.car.dialer.widget.CancellationToken;
+import com.android.car.dialer.widget.WorkerExecutor;
 import com.android.car.telephony.common.Contact;
-import com.android.car.telephony.common.QueryParam;
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.util.List;
+
+/**
+ * {@link androidx.lifecycle.LiveData} for contact details that observes the contact change.
+ *
+ * <p>The contact is served from the {@link ContactDetailsCache} right away if it is there, else
+ * from the contact the caller already has in memory, if any, until it is revalidated. On
+ * each change of the contacts, only the last updated timestamp of the contact is queried, and its
+ * phone rows are loaded again only if it differs from the cached one. The notifications of the
+ * changes made by the {@link ContactMutationQueue} are coalesced into one revalidation per batch.
+ */
+public class ContactDetailsLiveData extends LiveData<Contact> {
+    private static final String TAG = "CD.ContactDetailsLiveData";
+    private static final DialerMetrics.Counter QUERY_COUNT =
+            DialerMetrics.counter("ContactDetailsLiveData.queryCount");
+    private static final DialerMetrics.Counter CACHE_HIT_COUNT =
+            DialerMetrics.counter("ContactDetailsLiveData.cacheHitCount");
+    private static final LatencyHistogram CONVERT_LATENCY =
+            DialerMetrics.histogram("ContactDetailsLiveData.convertToEntity");
+    private static final DialerMetrics.Gauge LOADED_SIZE =
+            DialerMetrics.gauge("ContactDetailsLiveData.loadedRows");
+    /** Delay before a revalidation rejected by a full lane is submitted again. */
+    private static final long REVALIDATE_RETRY_DELAY_MS = 1000;
+    private static final String[] CONTACT_VERSION_PROJECTION = {
+            ContactsContract.Contacts._ID,
+            ContactsContract.Contacts.CONTACT_LAST_UPDATED_TIMESTAMP};
 
-/** {@link androidx.lifecycle.LiveData} for contact details that observes the contact change. */
-public class ContactDetailsLiveData extends AsyncQueryLiveData<Contact> {
     private final Context mContext;
+    private final Uri mContactLookupUri;
+    @Nullable
+    private final String mLookupKey;
+    private final ContentObserver mContentObserver =
+            new ContentObserver(new Handler(Looper.getMainLooper())) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    // Changes applied by the Dialer notify once per batch operation, so they are
+                    // revalidated once the whole batch has been applied.
+                    if (mContactMutationQueue.isApplying()) {
+                        mRevalidateOnBatchApplied = true;
+                    } else {
+                        revalidate();
+                    }
+                }
+            };
+    private final ContactMutationQueue mContactMutationQueue;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mRetryRevalidateRunnable = this::revalidate;
+    private final ContactMutationQueue.OnBatchAppliedListener mOnBatchAppliedListener = () -> {
+        if (mRevalidateOnBatchApplied) {
+            mRevalidateOnBatchApplied = false;
+            revalidate();
+        }
+    };
+    private boolean mRevalidateOnBatchApplied;
+    private CancellationToken mCancellationToken;
 
-    public ContactDetailsLiveData(Context context, @NonNull Uri contactLookupUri) {
-        super(context, new ContactDetailsQueryParamProvider(contactLookupUri, context));
+    /**
+     * @param contact The contact the caller already has, e.g. from the contact list, shown until
+     *                it is revalidated when it isn't cached. {@code null} if there is none.
+     */
+    public ContactDetailsLiveData(Context context, @NonNull Uri contactLookupUri,
+            @Nullable Contact contact) {
         mContext = context;
+        mContactLookupUri = contactLookupUri;
+        mLookupKey = getLookupKey(contactLookupUri);
+        mContactMutationQueue = ContactMutationQueue.get(context);
+
+        ContactDetailsCache.Entry entry = ContactDetailsCache.get().get(mLookupKey);
+        if (entry != null) {
+            CACHE_HIT_COUNT.increment();
+            setValue(entry.getContact());
+        } else if (contact != null) {
+            setValue(contact);
+        }
     }
 
     @Override
-    protected Contact convertToEntity(Cursor cursor) {
-        // Contact is not deleted.
-        if (cursor.moveToFirst()) {
-            Contact contact = Contact.fromCursor(mContext, cursor);
-            while (cursor.moveToNext()) {
-                contact.merge(Contact.fromCursor(mContext, cursor));
-            }
-            return contact;
-        }
-        return null;
+    protected void onActive() {
+        super.onActive();
+        mContext.getContentResolver().registerContentObserver(
+                ContactsContract.Contacts.CONTENT_URI, /* notifyForDescendants= */true,
+                mContentObserver);
+        mContactMutationQueue.addOnBatchAppliedListener(mOnBatchAppliedListener);
+        revalidate();
     }
 
-    /**
-     * Contact id varies on contact change. When we start a new query, this {@link
-     * QueryParam.Provider} refreshes the contact lookup uri to get the most up to date contact id
-     * and creates a new {@link QueryParam}.
-     */
-    private static class ContactDetailsQueryParamProvider implements QueryParam.Provider {
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+        mContext.getContentResolver().unregisterContentObserver(mContentObserver);
+        mContactMutationQueue.removeOnBatchAppliedListener(mOnBatchAppliedListener);
+        mRevalidateOnBatchApplied = false;
+        mMainHandler.removeCallbacks(mRetryRevalidateRunnable);
+        if (mCancellationToken != null) {
+            mCancellationToken.cancel();
+            mCancellationToken = null;
+        }
+    }
 
-        private final Context mContext;
-        private final Uri mContactLookupUri;
+    private void revalidate() {
+        mMainHandler.removeCallbacks(mRetryRevalidateRunnable);
+        if (mCancellationToken != null) {
+            mCancellationToken.cancel();
+        }
+        mCancellationToken = WorkerExecutor.getInstance().submit(WorkerExecutor.Lane.INTERACTIVE,
+                cancellationToken -> {
+                    Contact contact = load(cancellationToken);
+                    if (!cancellationToken.isCancelled()) {
+                        postValue(contact);
+                    }
+                });
+        if (mCancellationToken.isCancelled()) {
+            // The lane is full, the details on screen stay out of date until revalidated.
+            mMainHandler.postDelayed(mRetryRevalidateRunnable, REVALIDATE_RETRY_DELAY_MS);
+        }
+    }
 
-        public ContactDetailsQueryParamProvider(Uri contactLookupUri, Context context) {
-            mContactLookupUri = contactLookupUri;
-            mContext = context;
+    /** Returns the up to date contact, or {@code null} if it has been deleted. */
+    @Nullable
+    private Contact load(CancellationToken cancellationToken) {
+        // Lookup uris are resolved by lookup key when the contact id in them is out of date.
+        long contactId;
+        long lastUpdatedTimestamp;
+        try (Cursor cursor = mContext.getContentResolver().query(mContactLookupUri,
+                CONTACT_VERSION_PROJECTION, null, null, null)) {
+            if (cursor == null || !cursor.moveToFirst()) {
+                L.d(TAG, "Contact %s has been deleted", mLookupKey);
+                ContactDetailsCache.get().remove(mLookupKey);
+                return null;
+            }
+            contactId = cursor.getLong(0);
+            lastUpdatedTimestamp = cursor.getLong(1);
         }
 
-        @Nullable
-        @Override
-        public QueryParam getQueryParam() {
-            Uri refreshedContactLookupUri = ContactsContract.Contacts.getLookupUri(
-                    mContext.getContentResolver(), mContactLookupUri);
-            return convertToQueryParam(refreshedContactLookupUri);
+        ContactDetailsCache.Entry entry = ContactDetailsCache.get().get(mLookupKey);
+        if (entry != null && entry.getLastUpdatedTimestamp() == lastUpdatedTimestamp) {
+            return entry.getContact();
+        }
+        if (cancellationToken.isCancelled()) {
+            return null;
         }
 
-        /**
-         * Build the query param from the given contact lookup uri. Caller is responsible for
-         * passing in the most up to date uri.
-         *
-         * @param contactLookupUri Up to date uri describing the requested {@link Contact} entry.
-         *                         When contact is deleted, the uri will be null.
-         */
-        @Nullable
-        private static QueryParam convertToQueryParam(@Nullable Uri contactLookupUri) {
-            if (contactLookupUri == null) {
+        QUERY_COUNT.increment();
+        try (Cursor cursor = mContext.getContentResolver().query(
+                ContactsContract.CommonDataKinds.Phone.CONTENT_URI,
+                QueryProjections.PHONE_CONTACT,
+                ContactsContract.CommonDataKinds.Phone.CONTACT_ID + " = ?",
+                new String[]{String.valueOf(contactId)},
+                /* sortOrder= */null)) {
+            if (cursor == null) {
                 return null;
             }
-            long contactId = ContentUris.parseId(contactLookupUri);
-            return new QueryParam(
-                    ContactsContract.CommonDataKinds.Phone.CONTENT_URI,
-                    /* projection= */null,
-                    /* selection= */ContactsContract.CommonDataKinds.Phone.CONTACT_ID + " = ?",
-                    new String[]{String.valueOf(contactId)},
-                    /* orderBy= */null);
+            Contact contact = convert(mContext, cursor);
+            if (contact != null) {
+                ContactDetailsCache.get().put(contact, lastUpdatedTimestamp);
+            }
+            return contact;
+        }
+    }
+
+    /** Merges the phone rows of a contact into one contact. */
+    @Nullable
+    private static Contact convert(Context context, Cursor cursor) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        Contact contact = null;
+        // Contact is not deleted.
+        if (cursor.moveToFirst()) {
+            contact = Contact.fromCursor(context, cursor);
+            while (cursor.moveToNext()) {
+                contact.merge(Contact.fromCursor(context, cursor));
+            }
+        }
+        CONVERT_LATENCY.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+        LOADED_SIZE.set(cursor.getCount());
+        return contact;
+    }
+
+    /** Returns the lookup key of a {@link ContactsContract.Contacts#CONTENT_LOOKUP_URI}. */
+    @VisibleForTesting
+    @Nullable
+    static String getLookupKey(@NonNull Uri contactLookupUri) {
+        List<String> pathSegments = contactLookupUri.getPathSegments();
+        if (pathSegments.size() < 3 || !"lookup".equals(pathSegments.get(1))) {
+            return null;
         }
+        return pathSegments.get(2);
     }
 }
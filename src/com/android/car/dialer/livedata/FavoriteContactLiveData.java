@@ -17,12 +17,24 @@
 package com.android.car.dialer.livedata;
 
 import android.content.Context;
+import android.database.ContentObserver;
 import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
 
-import com.android.car.telephony.common.AsyncQueryLiveData;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
+import com.android.car.dialer.storage.WarmStartSnapshot;
+import com.android.car.dialer.widget.CancellationToken;
+import com.android.car.dialer.widget.WorkerExecutor;
 import com.android.car.telephony.common.Contact;
-import com.android.car.telephony.common.QueryParam;
+import com.android.internal.annotations.VisibleForTesting;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -31,50 +43,168 @@ import java.util.Map;
 
 /**
  * Live data which loads starred contact list.
+ *
+ * <p>The starred contacts with a phone number are looked up on the contacts table first, which is
+ * much smaller than the data table, then the phone rows of these contacts only are queried. Both
+ * queries run in the {@link WorkerExecutor.Lane#INTERACTIVE} lane, when the live data becomes
+ * active and on each change of the contacts.
  */
-public class FavoriteContactLiveData extends AsyncQueryLiveData<List<Contact>> {
+public class FavoriteContactLiveData extends LiveData<List<Contact>> {
     private static final int IS_STARRED = 1;
+    private static final int HAS_PHONE_NUMBER = 1;
+    private static final String[] CONTACT_ID_PROJECTION = {ContactsContract.Contacts._ID};
+    /** Delay before a load rejected by a full lane is submitted again. */
+    private static final long LOAD_RETRY_DELAY_MS = 1000;
+    private static final DialerMetrics.Counter QUERY_COUNT =
+            DialerMetrics.counter("FavoriteContactLiveData.queryCount");
+    private static final LatencyHistogram CONVERT_LATENCY =
+            DialerMetrics.histogram("FavoriteContactLiveData.convertToEntity");
+    private static final DialerMetrics.Gauge LOADED_SIZE =
+            DialerMetrics.gauge("FavoriteContactLiveData.loadedContacts");
+    private static final DialerMetrics.Gauge LOADED_ROWS =
+            DialerMetrics.gauge("FavoriteContactLiveData.loadedRows");
+
     private final Context mContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mRetryLoadRunnable = this::load;
+    private final ContentObserver mContentObserver = new ContentObserver(mMainHandler) {
+        @Override
+        public void onChange(boolean selfChange) {
+            load();
+        }
+    };
+    private CancellationToken mCancellationToken;
 
     /**
      * Creates a new instance of {@link FavoriteContactLiveData}.
      */
     public static FavoriteContactLiveData newInstance(Context context) {
-        String selection = ContactsContract.Data.MIMETYPE + " = ?"
-                + " and "
-                + ContactsContract.Data.STARRED + " = ?";
-        String[] selectionArgs = new String[2];
-        selectionArgs[0] = ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE;
-        selectionArgs[1] = String.valueOf(IS_STARRED);
-
-        QueryParam starredContactsQueryParam =
-                new QueryParam(
-                        ContactsContract.Data.CONTENT_URI,
-                        null,
-                        selection,
-                        selectionArgs,
-                        ContactsContract.Contacts.DISPLAY_NAME + " ASC ");
-        return new FavoriteContactLiveData(context, starredContactsQueryParam);
+        return new FavoriteContactLiveData(context);
     }
 
-    private FavoriteContactLiveData(Context context, QueryParam queryParam) {
-        super(context, QueryParam.of(queryParam));
+    private FavoriteContactLiveData(Context context) {
         mContext = context;
     }
 
     @Override
-    protected List<Contact> convertToEntity(Cursor cursor) {
+    protected void onActive() {
+        super.onActive();
+        mContext.getContentResolver().registerContentObserver(
+                ContactsContract.Contacts.CONTENT_URI, /* notifyForDescendants= */true,
+                mContentObserver);
+        load();
+    }
+
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+        mContext.getContentResolver().unregisterContentObserver(mContentObserver);
+        mMainHandler.removeCallbacks(mRetryLoadRunnable);
+        if (mCancellationToken != null) {
+            mCancellationToken.cancel();
+            mCancellationToken = null;
+        }
+    }
+
+    private void load() {
+        mMainHandler.removeCallbacks(mRetryLoadRunnable);
+        if (mCancellationToken != null) {
+            mCancellationToken.cancel();
+        }
+        mCancellationToken = WorkerExecutor.getInstance().submit(WorkerExecutor.Lane.INTERACTIVE,
+                cancellationToken -> {
+                    List<Contact> contacts;
+                    try (Cursor cursor = queryPhoneRows(mContext)) {
+                        if (cursor == null || cancellationToken.isCancelled()) {
+                            return;
+                        }
+                        contacts = convertToEntity(cursor);
+                    }
+                    if (!cancellationToken.isCancelled()) {
+                        postValue(contacts);
+                    }
+                });
+        if (mCancellationToken.isCancelled()) {
+            // The lane is full, the favorites on screen stay out of date until loaded.
+            mMainHandler.postDelayed(mRetryLoadRunnable, LOAD_RETRY_DELAY_MS);
+        }
+    }
+
+    private List<Contact> convertToEntity(Cursor cursor) {
+        QUERY_COUNT.increment();
+        WarmStartSnapshot.getInstance(mContext).saveFavoriteRows(cursor);
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        List<Contact> contacts = convert(mContext, cursor);
+        CONVERT_LATENCY.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+        LOADED_SIZE.set(contacts.size());
+        LOADED_ROWS.set(cursor.getCount());
+        // All the phone rows of the starred contacts are loaded, so they are complete.
+        ContactDetailsCache.get().putAll(contacts, cursor);
+        return contacts;
+    }
+
+    /**
+     * Converts starred phone rows to contacts, merging the rows of the same contact. Also used
+     * for the rows saved in the {@link WarmStartSnapshot}.
+     */
+    public static List<Contact> convert(Context context, Cursor cursor) {
         Map<String, Contact> result = new LinkedHashMap<>();
         while (cursor.moveToNext()) {
-            Contact contact = Contact.fromCursor(mContext, cursor);
-            String lookupKey = contact.getLookupKey();
-            if (result.containsKey(lookupKey)) {
-                Contact existingContact = result.get(lookupKey);
+            Contact contact = Contact.fromCursor(context, cursor);
+            Contact existingContact = result.putIfAbsent(contact.getLookupKey(), contact);
+            if (existingContact != null) {
                 existingContact.merge(contact);
-            } else {
-                result.put(lookupKey, contact);
             }
         }
         return new ArrayList<>(result.values());
     }
+
+    /**
+     * Queries the phone rows of the starred contacts on the calling thread, sorted by display
+     * name. Returns {@code null} if the contacts can't be queried.
+     */
+    @VisibleForTesting
+    @Nullable
+    static Cursor queryPhoneRows(Context context) {
+        String selection = querySelection(context);
+        if (selection == null) {
+            return null;
+        }
+        return context.getContentResolver().query(
+                Phone.CONTENT_URI,
+                QueryProjections.PHONE_CONTACT,
+                selection,
+                /* selectionArgs= */null,
+                ContactsContract.Contacts.DISPLAY_NAME + " ASC ");
+    }
+
+    /**
+     * Returns the selection of the phone rows of the starred contacts, or {@code null} if the
+     * starred contacts can't be queried.
+     */
+    @VisibleForTesting
+    @Nullable
+    static String querySelection(Context context) {
+        StringBuilder selection = new StringBuilder(Phone.CONTACT_ID).append(" IN (");
+        try (Cursor cursor = context.getContentResolver().query(
+                ContactsContract.Contacts.CONTENT_URI,
+                CONTACT_ID_PROJECTION,
+                ContactsContract.Contacts.STARRED + " = ? AND "
+                        + ContactsContract.Contacts.HAS_PHONE_NUMBER + " = ?",
+                new String[]{String.valueOf(IS_STARRED), String.valueOf(HAS_PHONE_NUMBER)},
+                /* sortOrder= */null)) {
+            if (cursor == null) {
+                return null;
+            }
+            // The ids are numbers, so they are inlined instead of passed as arguments which are
+            // limited in number. An empty list matches nothing.
+            while (cursor.moveToNext()) {
+                if (cursor.getPosition() > 0) {
+                    selection.append(',');
+                }
+                selection.append(cursor.getLong(0));
+            }
+        }
+        return selection.append(')').toString();
+    }
 }
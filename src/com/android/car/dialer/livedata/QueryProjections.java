@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import android.provider.CallLog;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneCallLog;
+
+/**
+ * Projections of the provider queries, limited to the columns the entities read. Querying all
+ * columns copies every column of every row across processes, which adds up on large call logs.
+ *
+ * <p>Keep these in sync with the entities, {@code QueryProjectionsTest} fails if an entity reads
+ * a column missing here.
+ */
+public final class QueryProjections {
+
+    /** The columns read by {@link PhoneCallLog#fromCursor}. */
+    public static final String[] CALL_LOG = {
+            CallLog.Calls._ID,
+            CallLog.Calls.NUMBER,
+            CallLog.Calls.DATE,
+            CallLog.Calls.TYPE,
+    };
+
+    /**
+     * The columns of a phone data row read by {@link Contact#fromCursor}, and the last updated
+     * timestamp of the contact the {@link ContactDetailsCache} revalidates with.
+     */
+    public static final String[] PHONE_CONTACT = {
+            ContactsContract.Data._ID,
+            ContactsContract.Data.CONTACT_ID,
+            ContactsContract.Data.LOOKUP_KEY,
+            ContactsContract.Data.DISPLAY_NAME,
+            ContactsContract.Data.DISPLAY_NAME_ALTERNATIVE,
+            ContactsContract.Data.PHONEBOOK_LABEL,
+            ContactsContract.Data.PHONEBOOK_LABEL_ALTERNATIVE,
+            ContactsContract.Data.STARRED,
+            ContactsContract.Data.PHOTO_URI,
+            ContactsContract.Data.PHOTO_THUMBNAIL_URI,
+            ContactsContract.Data.DATA_VERSION,
+            ContactsContract.Data.IS_PRIMARY,
+            ContactsContract.Data.IS_SUPER_PRIMARY,
+            ContactsContract.Data.CONTACT_LAST_UPDATED_TIMESTAMP,
+            Phone.NUMBER,
+            Phone.TYPE,
+            Phone.LABEL,
+    };
+
+    private QueryProjections() {
+    }
+}
@@ -18,22 +18,33 @@ package com.android.car.dialer.livedata;
 
 import android.content.Context;
 import android.database.Cursor;
+import android.os.SystemClock;
 import android.provider.CallLog;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
 
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
 import com.android.car.telephony.common.AsyncQueryLiveData;
 import com.android.car.telephony.common.PhoneCallLog;
 import com.android.car.telephony.common.QueryParam;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /** {@link LiveData} for missed calls that haven't been read by user. */
 public class UnreadMissedCallLiveData extends AsyncQueryLiveData<List<PhoneCallLog>> {
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
+    private static final DialerMetrics.Counter QUERY_COUNT =
+            DialerMetrics.counter("UnreadMissedCallLiveData.queryCount");
+    private static final LatencyHistogram CONVERT_LATENCY =
+            DialerMetrics.histogram("UnreadMissedCallLiveData.convertToEntity");
+    private static final DialerMetrics.Gauge LOADED_SIZE =
+            DialerMetrics.gauge("UnreadMissedCallLiveData.loadedCallLogs");
 
     /** Get the {@link UnreadMissedCallLiveData} instance. */
     public static UnreadMissedCallLiveData newInstance(Context context) {
@@ -48,7 +59,7 @@ public class UnreadMissedCallLiveData extends AsyncQueryLiveData<List<PhoneCallL
 
         QueryParam queryParam = new QueryParam(
                 CallLog.Calls.CONTENT_URI,
-                null,
+                QueryProjections.CALL_LOG,
                 selection,
                 selectionArgs.toArray(EMPTY_STRING_ARRAY),
                 CallLog.Calls.DEFAULT_SORT_ORDER);
@@ -66,20 +77,26 @@ public class UnreadMissedCallLiveData extends AsyncQueryLiveData<List<PhoneCallL
     @NonNull
     @Override
     protected List<PhoneCallLog> convertToEntity(@NonNull Cursor cursor) {
+        QUERY_COUNT.increment();
+        long startNanos = SystemClock.elapsedRealtimeNanos();
         List<PhoneCallLog> missedCalls = new ArrayList<>();
+        // Looking up the call log to merge into by number keeps the conversion linear.
+        Map<String, PhoneCallLog> missedCallsByNumber = new HashMap<>();
 
         while (cursor.moveToNext()) {
             PhoneCallLog phoneCallLog = PhoneCallLog.fromCursor(mContext, cursor);
-            int index = missedCalls.indexOf(phoneCallLog);
-            PhoneCallLog existingCallLog = null;
-            if (index != -1) {
-                existingCallLog = missedCalls.get(index);
-            }
+            String number = phoneCallLog.getPhoneNumberString();
+            PhoneCallLog existingCallLog = missedCallsByNumber.get(number);
 
             if (existingCallLog == null || !existingCallLog.merge(phoneCallLog)) {
                 missedCalls.add(phoneCallLog);
+                if (existingCallLog == null) {
+                    missedCallsByNumber.put(number, phoneCallLog);
+                }
             }
         }
+        CONVERT_LATENCY.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+        LOADED_SIZE.set(missedCalls.size());
         return missedCalls;
     }
 }
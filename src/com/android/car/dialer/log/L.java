@@ -20,11 +20,88 @@ import android.os.Build;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.PrintWriter;
 
 /**
  * Util class for logging.
+ *
+ * <p>The level is checked before anything is formatted. The fixed-arity overloads avoid
+ * allocating a varargs array, and {@link MessageSupplier} defers building expensive messages.
+ * When a {@link LogRingBuffer} is installed through {@link #setRingBuffer(LogRingBuffer)}, the
+ * messages at or above its minimum level are recorded into it unformatted, and debuggable builds
+ * no longer send everything to logcat; use {@code setprop log.tag.<TAG> <LEVEL>} to log a tag to
+ * logcat in that case.
  */
 public class L {
+    @Nullable
+    private static volatile LogRingBuffer sRingBuffer;
+
+    /** Builds a log message only when the message is going to be logged. */
+    public interface MessageSupplier {
+        String get();
+    }
+
+    /**
+     * Installs a {@link LogRingBuffer} that records the messages at or above its minimum level,
+     * or removes it if {@code null}.
+     */
+    public static void setRingBuffer(@Nullable LogRingBuffer ringBuffer) {
+        sRingBuffer = ringBuffer;
+    }
+
+    /** Returns the installed {@link LogRingBuffer} or {@code null} if there is none. */
+    @Nullable
+    public static LogRingBuffer getRingBuffer() {
+        return sRingBuffer;
+    }
+
+    /** Dumps the installed {@link LogRingBuffer}, if any. */
+    public static void dump(@NonNull PrintWriter pw) {
+        LogRingBuffer ringBuffer = sRingBuffer;
+        if (ringBuffer != null) {
+            ringBuffer.dump(pw);
+        }
+    }
+
+    /** Returns whether logs of the given tag and level are sent to logcat. */
+    public static boolean isLoggable(String tag, int level) {
+        return Log.isLoggable(tag, level) || (Build.IS_DEBUGGABLE && sRingBuffer == null);
+    }
+
+    /** Logs verbose level logs if loggable. */
+    public static void v(String tag, @NonNull String msg) {
+        log(Log.VERBOSE, tag, msg, 0, null, null, null);
+    }
+
+    /**
+     * Logs verbose level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void v(String tag, @NonNull String msg, Object arg1) {
+        log(Log.VERBOSE, tag, msg, 1, arg1, null, null);
+    }
+
+    /**
+     * Logs verbose level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void v(String tag, @NonNull String msg, Object arg1, Object arg2) {
+        log(Log.VERBOSE, tag, msg, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Logs verbose level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void v(String tag, @NonNull String msg, Object arg1, Object arg2,
+            Object arg3) {
+        log(Log.VERBOSE, tag, msg, 3, arg1, arg2, arg3);
+    }
 
     /**
      * Logs verbose level logs if loggable.
@@ -32,9 +109,45 @@ public class L {
      * <p>@see String#format(String, Object...) for formatting log string.
      */
     public static void v(String tag, @NonNull String msg, Object... args) {
-        if (Log.isLoggable(tag, Log.VERBOSE) || Build.IS_DEBUGGABLE) {
-            Log.v(tag, String.format(msg, args));
-        }
+        logVarArgs(Log.VERBOSE, tag, msg, args);
+    }
+
+    /** Logs verbose level logs if loggable. The message is only built if it is logged. */
+    public static void v(String tag, @NonNull MessageSupplier messageSupplier) {
+        logLazy(Log.VERBOSE, tag, messageSupplier);
+    }
+
+    /** Logs debug level logs if loggable. */
+    public static void d(String tag, @NonNull String msg) {
+        log(Log.DEBUG, tag, msg, 0, null, null, null);
+    }
+
+    /**
+     * Logs debug level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void d(String tag, @NonNull String msg, Object arg1) {
+        log(Log.DEBUG, tag, msg, 1, arg1, null, null);
+    }
+
+    /**
+     * Logs debug level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void d(String tag, @NonNull String msg, Object arg1, Object arg2) {
+        log(Log.DEBUG, tag, msg, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Logs debug level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void d(String tag, @NonNull String msg, Object arg1, Object arg2,
+            Object arg3) {
+        log(Log.DEBUG, tag, msg, 3, arg1, arg2, arg3);
     }
 
     /**
@@ -43,9 +156,45 @@ public class L {
      * <p>@see String#format(String, Object...) for formatting log string.
      */
     public static void d(String tag, @NonNull String msg, Object... args) {
-        if (Log.isLoggable(tag, Log.DEBUG) || Build.IS_DEBUGGABLE) {
-            Log.d(tag, String.format(msg, args));
-        }
+        logVarArgs(Log.DEBUG, tag, msg, args);
+    }
+
+    /** Logs debug level logs if loggable. The message is only built if it is logged. */
+    public static void d(String tag, @NonNull MessageSupplier messageSupplier) {
+        logLazy(Log.DEBUG, tag, messageSupplier);
+    }
+
+    /** Logs info level logs if loggable. */
+    public static void i(String tag, @NonNull String msg) {
+        log(Log.INFO, tag, msg, 0, null, null, null);
+    }
+
+    /**
+     * Logs info level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void i(String tag, @NonNull String msg, Object arg1) {
+        log(Log.INFO, tag, msg, 1, arg1, null, null);
+    }
+
+    /**
+     * Logs info level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void i(String tag, @NonNull String msg, Object arg1, Object arg2) {
+        log(Log.INFO, tag, msg, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Logs info level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void i(String tag, @NonNull String msg, Object arg1, Object arg2,
+            Object arg3) {
+        log(Log.INFO, tag, msg, 3, arg1, arg2, arg3);
     }
 
     /**
@@ -54,9 +203,45 @@ public class L {
      * <p>@see String#format(String, Object...) for formatting log string.
      */
     public static void i(String tag, @NonNull String msg, Object... args) {
-        if (Log.isLoggable(tag, Log.INFO) || Build.IS_DEBUGGABLE) {
-            Log.i(tag, String.format(msg, args));
-        }
+        logVarArgs(Log.INFO, tag, msg, args);
+    }
+
+    /** Logs info level logs if loggable. The message is only built if it is logged. */
+    public static void i(String tag, @NonNull MessageSupplier messageSupplier) {
+        logLazy(Log.INFO, tag, messageSupplier);
+    }
+
+    /** Logs warning level logs if loggable. */
+    public static void w(String tag, @NonNull String msg) {
+        log(Log.WARN, tag, msg, 0, null, null, null);
+    }
+
+    /**
+     * Logs warning level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void w(String tag, @NonNull String msg, Object arg1) {
+        log(Log.WARN, tag, msg, 1, arg1, null, null);
+    }
+
+    /**
+     * Logs warning level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void w(String tag, @NonNull String msg, Object arg1, Object arg2) {
+        log(Log.WARN, tag, msg, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Logs warning level logs if loggable.
+     *
+     * <p>@see String#format(String, Object...) for formatting log string.
+     */
+    public static void w(String tag, @NonNull String msg, Object arg1, Object arg2,
+            Object arg3) {
+        log(Log.WARN, tag, msg, 3, arg1, arg2, arg3);
     }
 
     /**
@@ -65,9 +250,12 @@ public class L {
      * <p>@see String#format(String, Object...) for formatting log string.
      */
     public static void w(String tag, @NonNull String msg, Object... args) {
-        if (Log.isLoggable(tag, Log.WARN) || Build.IS_DEBUGGABLE) {
-            Log.w(tag, String.format(msg, args));
-        }
+        logVarArgs(Log.WARN, tag, msg, args);
+    }
+
+    /** Logs warning level logs if loggable. The message is only built if it is logged. */
+    public static void w(String tag, @NonNull MessageSupplier messageSupplier) {
+        logLazy(Log.WARN, tag, messageSupplier);
     }
 
     /**
@@ -77,6 +265,10 @@ public class L {
      */
     public static void e(String tag, @NonNull String msg, Object... args) {
         Log.e(tag, String.format(msg, args));
+        LogRingBuffer ringBuffer = sRingBuffer;
+        if (ringBuffer != null && ringBuffer.isRecorded(Log.ERROR)) {
+            ringBuffer.record(Log.ERROR, tag, msg, args, null);
+        }
     }
 
     /**
@@ -86,5 +278,61 @@ public class L {
      */
     public static void e(String tag, Exception e, @NonNull String msg, Object... args) {
         Log.e(tag, String.format(msg, args), e);
+        LogRingBuffer ringBuffer = sRingBuffer;
+        if (ringBuffer != null && ringBuffer.isRecorded(Log.ERROR)) {
+            ringBuffer.record(Log.ERROR, tag, msg, args, e);
+        }
+    }
+
+    private static void log(int level, String tag, String msg, int argCount, Object arg1,
+            Object arg2, Object arg3) {
+        LogRingBuffer ringBuffer = sRingBuffer;
+        if (ringBuffer != null && ringBuffer.isRecorded(level)) {
+            ringBuffer.record(level, tag, msg, argCount, arg1, arg2, arg3);
+        }
+        if (isLoggable(tag, level)) {
+            String formatted;
+            switch (argCount) {
+                case 0:
+                    formatted = msg;
+                    break;
+                case 1:
+                    formatted = String.format(msg, arg1);
+                    break;
+                case 2:
+                    formatted = String.format(msg, arg1, arg2);
+                    break;
+                default:
+                    formatted = String.format(msg, arg1, arg2, arg3);
+                    break;
+            }
+            Log.println(level, tag, formatted);
+        }
+    }
+
+    private static void logVarArgs(int level, String tag, String msg, Object[] args) {
+        LogRingBuffer ringBuffer = sRingBuffer;
+        if (ringBuffer != null && ringBuffer.isRecorded(level)) {
+            ringBuffer.record(level, tag, msg, args, null);
+        }
+        if (isLoggable(tag, level)) {
+            Log.println(level, tag, String.format(msg, args));
+        }
+    }
+
+    private static void logLazy(int level, String tag, MessageSupplier messageSupplier) {
+        LogRingBuffer ringBuffer = sRingBuffer;
+        boolean isRecorded = ringBuffer != null && ringBuffer.isRecorded(level);
+        boolean isLoggable = isLoggable(tag, level);
+        if (!isRecorded && !isLoggable) {
+            return;
+        }
+        String msg = messageSupplier.get();
+        if (isRecorded) {
+            ringBuffer.record(level, tag, msg, 0, null, null, null);
+        }
+        if (isLoggable) {
+            Log.println(level, tag, msg);
+        }
     }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.log;
+
+import android.text.format.DateFormat;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.PrintWriter;
+
+/**
+ * A fixed size in-memory log sink. Records keep the unformatted message and its arguments in
+ * preallocated slots, and messages are only formatted when the buffer is
+ * {@link #dump(PrintWriter) dumped}. Messages below the {@link #setMinLevel(int) minimum level},
+ * {@link Log#INFO} by default, are not recorded; {@link L} checks it before building anything.
+ *
+ * <p>Only immutable arguments, i.e. strings, boxed primitives and enums, are kept as is. Other
+ * arguments are dropped and only their class is recorded, printed as {@code <ClassName>}, so that
+ * recording neither calls {@code toString()} on lists, calls or intents nor keeps them alive.
+ */
+public class LogRingBuffer {
+    private static final int NO_ARGS = -1;
+
+    private final int mCapacity;
+    private volatile int mMinLevel;
+    private final long[] mTimestamps;
+    private final int[] mLevels;
+    private final String[] mTags;
+    private final String[] mMessages;
+    private final int[] mArgCounts;
+    private final Object[] mArgs1;
+    private final Object[] mArgs2;
+    private final Object[] mArgs3;
+    private final Object[][] mVarArgs;
+    private final Throwable[] mThrowables;
+
+    /** Index of the slot the next record is written to. */
+    private int mNext;
+    /** Total number of records written, including the overwritten ones. */
+    private long mCount;
+
+    /** Creates a buffer recording the messages of {@link Log#INFO} level and above. */
+    public LogRingBuffer(int capacity) {
+        this(capacity, Log.INFO);
+    }
+
+    /** Creates a buffer recording the messages of {@code minLevel} and above. */
+    public LogRingBuffer(int capacity, int minLevel) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        mCapacity = capacity;
+        mTimestamps = new long[capacity];
+        mLevels = new int[capacity];
+        mTags = new String[capacity];
+        mMessages = new String[capacity];
+        mArgCounts = new int[capacity];
+        mArgs1 = new Object[capacity];
+        mArgs2 = new Object[capacity];
+        mArgs3 = new Object[capacity];
+        mVarArgs = new Object[capacity][];
+        mThrowables = new Throwable[capacity];
+        mMinLevel = minLevel;
+    }
+
+    /** Sets the lowest level recorded, e.g. {@link Log#DEBUG} while investigating an issue. */
+    public void setMinLevel(int minLevel) {
+        mMinLevel = minLevel;
+    }
+
+    /** Returns the lowest level recorded. */
+    public int getMinLevel() {
+        return mMinLevel;
+    }
+
+    /** Returns whether messages of the given level are recorded. */
+    boolean isRecorded(int level) {
+        return level >= mMinLevel;
+    }
+
+    /** Records a message with up to three arguments. */
+    synchronized void record(int level, String tag, String msg, int argCount, Object arg1,
+            Object arg2, Object arg3) {
+        int slot = nextSlot(level, tag, msg, argCount);
+        mArgs1[slot] = snapshot(arg1);
+        mArgs2[slot] = snapshot(arg2);
+        mArgs3[slot] = snapshot(arg3);
+    }
+
+    /** Records a message with an argument array. */
+    synchronized void record(int level, String tag, String msg, @Nullable Object[] args,
+            @Nullable Throwable throwable) {
+        int slot = nextSlot(level, tag, msg, NO_ARGS);
+        if (args != null) {
+            Object[] snapshots = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                snapshots[i] = snapshot(args[i]);
+            }
+            mVarArgs[slot] = snapshots;
+        }
+        mThrowables[slot] = throwable;
+    }
+
+    /** Returns the argument if it is immutable, or its class otherwise. */
+    @Nullable
+    private static Object snapshot(@Nullable Object arg) {
+        if (arg == null || arg instanceof String || arg instanceof Integer || arg instanceof Long
+                || arg instanceof Boolean || arg instanceof Enum || arg instanceof Character
+                || arg instanceof Float || arg instanceof Double || arg instanceof Short
+                || arg instanceof Byte) {
+            return arg;
+        }
+        return arg.getClass();
+    }
+
+    /** Returns the printed value of a recorded argument. */
+    @Nullable
+    private static Object toPrintable(@Nullable Object arg) {
+        return arg instanceof Class ? "<" + ((Class<?>) arg).getSimpleName() + ">" : arg;
+    }
+
+    private int nextSlot(int level, String tag, String msg, int argCount) {
+        int slot = mNext;
+        mNext = (mNext + 1) % mCapacity;
+        mCount++;
+
+        mTimestamps[slot] = System.currentTimeMillis();
+        mLevels[slot] = level;
+        mTags[slot] = tag;
+        mMessages[slot] = msg;
+        mArgCounts[slot] = argCount;
+        mArgs1[slot] = null;
+        mArgs2[slot] = null;
+        mArgs3[slot] = null;
+        mVarArgs[slot] = null;
+        mThrowables[slot] = null;
+        return slot;
+    }
+
+    /** Returns the number of records currently held by the buffer. */
+    public synchronized int size() {
+        return (int) Math.min(mCount, mCapacity);
+    }
+
+    /** Drops all records. */
+    public synchronized void clear() {
+        for (int i = 0; i < mCapacity; i++) {
+            mTags[i] = null;
+            mMessages[i] = null;
+            mArgs1[i] = null;
+            mArgs2[i] = null;
+            mArgs3[i] = null;
+            mVarArgs[i] = null;
+            mThrowables[i] = null;
+        }
+        mNext = 0;
+        mCount = 0;
+    }
+
+    /** Formats and prints the records from the oldest to the newest. */
+    public synchronized void dump(@NonNull PrintWriter pw) {
+        int size = size();
+        pw.printf("Log ring buffer: %d of %d records\n", size, mCount);
+        int first = (mNext - size + mCapacity) % mCapacity;
+        for (int i = 0; i < size; i++) {
+            int slot = (first + i) % mCapacity;
+            pw.print(DateFormat.format("MM-dd HH:mm:ss", mTimestamps[slot]));
+            pw.print(' ');
+            pw.print(levelToChar(mLevels[slot]));
+            pw.print(' ');
+            pw.print(mTags[slot]);
+            pw.print(": ");
+            pw.println(format(slot));
+            if (mThrowables[slot] != null) {
+                pw.println(Log.getStackTraceString(mThrowables[slot]));
+            }
+        }
+    }
+
+    private String format(int slot) {
+        String msg = mMessages[slot];
+        try {
+            switch (mArgCounts[slot]) {
+                case 0:
+                    return msg;
+                case 1:
+                    return String.format(msg, toPrintable(mArgs1[slot]));
+                case 2:
+                    return String.format(msg, toPrintable(mArgs1[slot]),
+                            toPrintable(mArgs2[slot]));
+                case 3:
+                    return String.format(msg, toPrintable(mArgs1[slot]),
+                            toPrintable(mArgs2[slot]), toPrintable(mArgs3[slot]));
+                default:
+                    Object[] args = mVarArgs[slot];
+                    if (args == null) {
+                        return msg;
+                    }
+                    Object[] printableArgs = new Object[args.length];
+                    for (int i = 0; i < args.length; i++) {
+                        printableArgs[i] = toPrintable(args[i]);
+                    }
+                    return String.format(msg, printableArgs);
+            }
+        } catch (RuntimeException e) {
+            // The arguments might have changed since the record was written.
+            return msg + " <format failed: " + e + ">";
+        }
+    }
+
+    private static char levelToChar(int level) {
+        switch (level) {
+            case Log.VERBOSE:
+                return 'V';
+            case Log.DEBUG:
+                return 'D';
+            case Log.INFO:
+                return 'I';
+            case Log.WARN:
+                return 'W';
+            default:
+                return 'E';
+        }
+    }
+}
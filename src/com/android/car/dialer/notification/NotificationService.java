@@ -24,6 +24,7 @@ import android.text.TextUtils;
 import androidx.core.app.JobIntentService;
 
 import com.android.car.dialer.Constants;
+import com.android.car.dialer.DialerStartup;
 import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.telephony.common.TelecomUtils;
 
@@ -55,6 +56,12 @@ public class NotificationService extends JobIntentService {
                 context, NotificationService.class, Constants.JobIds.NOTIFICATION_SERVICE, intent);
     }
 
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        DialerStartup.ensureInitialized(DialerStartup.CALL_MANAGER);
+    }
+
     @Override
     protected void onHandleWork(Intent intent) {
         String action = intent.getAction();
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.perf;
+
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide registry of runtime metrics, printed by
+ * {@code adb shell dumpsys activity service InCallServiceImpl}. Metrics are looked up by name once
+ * and are expected to be kept in static fields; updating them doesn't allocate.
+ */
+public final class DialerMetrics {
+    private static final Map<String, Counter> sCounters = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> sGauges = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> sHistograms = new ConcurrentHashMap<>();
+
+    /** A monotonically increasing count, e.g. the number of queries. */
+    public static final class Counter {
+        private final AtomicLong mValue = new AtomicLong();
+
+        public void increment() {
+            mValue.incrementAndGet();
+        }
+
+        public long get() {
+            return mValue.get();
+        }
+    }
+
+    /** The last observed value of something, e.g. the number of loaded entries. */
+    public static final class Gauge {
+        private volatile long mValue;
+
+        public void set(long value) {
+            mValue = value;
+        }
+
+        public long get() {
+            return mValue;
+        }
+    }
+
+    /** Returns the counter with the given name, creating it if needed. */
+    public static Counter counter(@NonNull String name) {
+        return sCounters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /** Returns the gauge with the given name, creating it if needed. */
+    public static Gauge gauge(@NonNull String name) {
+        return sGauges.computeIfAbsent(name, key -> new Gauge());
+    }
+
+    /** Returns the latency histogram with the given name, creating it if needed. */
+    public static LatencyHistogram histogram(@NonNull String name) {
+        return sHistograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /** Prints all metrics sorted by name. */
+    public static void dump(@NonNull PrintWriter pw) {
+        pw.println("Counters:");
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(sCounters).entrySet()) {
+            pw.printf("  %s: %d\n", entry.getKey(), entry.getValue().get());
+        }
+        pw.println("Gauges:");
+        for (Map.Entry<String, Gauge> entry : new TreeMap<>(sGauges).entrySet()) {
+            pw.printf("  %s: %d\n", entry.getKey(), entry.getValue().get());
+        }
+        pw.println("Histograms:");
+        for (LatencyHistogram histogram : new TreeMap<>(sHistograms).values()) {
+            histogram.dump(pw);
+        }
+    }
+
+    private DialerMetrics() {
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.perf;
+
+import android.os.SystemClock;
+import android.os.Trace;
+import android.telecom.Call;
+import android.util.SparseLongArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.PrintWriter;
+
+/**
+ * Instrumentation of the dialer's critical paths. Each {@link Stage} emits systrace sections and
+ * records its latency into a {@link LatencyHistogram}, which is printed by
+ * {@code adb shell dumpsys activity service InCallServiceImpl}.
+ */
+public final class DialerTrace {
+
+    /** From {@code InCallServiceImpl#onCallAdded} to the first frame of the in call UI. */
+    public static final Stage RING_TO_IN_CALL_UI = new Stage("RingToInCallUi");
+    /** From the dialpad call button to {@code TelecomManager#placeCall} returning. */
+    public static final Stage TAP_TO_PLACE_CALL = new Stage("TapToPlaceCall");
+    /** From {@code TelecomActivity#onCreate} to the first list data bound. */
+    public static final Stage LAUNCH_TO_FIRST_LIST = new Stage("LaunchToFirstList");
+
+    private static final Stage[] STAGES =
+            {RING_TO_IN_CALL_UI, TAP_TO_PLACE_CALL, LAUNCH_TO_FIRST_LIST};
+
+    /** The cookie used for stages which have a single instance in flight. */
+    public static final int SINGLETON_COOKIE = 0;
+
+    /** Max number of async sections of a stage that can be in flight. */
+    private static final int MAX_PENDING_ASYNC_SECTIONS = 16;
+
+    /**
+     * A measured stage. Synchronous stages use {@link #begin()} and {@link #end(long)}, stages
+     * spanning threads or callbacks use the async variants with a cookie.
+     */
+    public static final class Stage {
+        private final String mName;
+        private final LatencyHistogram mHistogram;
+        /** Start times of the in flight async sections keyed by cookie. */
+        private final SparseLongArray mPendingStartNanos = new SparseLongArray();
+
+        private Stage(String name) {
+            mName = name;
+            mHistogram = new LatencyHistogram(name);
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return mHistogram;
+        }
+
+        /** Begins a synchronous section on the current thread and returns its start time. */
+        public long begin() {
+            Trace.beginSection(mName);
+            return SystemClock.elapsedRealtimeNanos();
+        }
+
+        /** Ends the section started by {@link #begin()} on the current thread. */
+        public void end(long startNanos) {
+            mHistogram.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+            Trace.endSection();
+        }
+
+        /** Begins an async section identified by the cookie. Restarts it if already started. */
+        public void beginAsync(int cookie) {
+            synchronized (mPendingStartNanos) {
+                if (mPendingStartNanos.indexOfKey(cookie) < 0
+                        && mPendingStartNanos.size() >= MAX_PENDING_ASYNC_SECTIONS) {
+                    // Drop the section that never ended instead of growing unbounded.
+                    Trace.endAsyncSection(mName, mPendingStartNanos.keyAt(0));
+                    mPendingStartNanos.removeAt(0);
+                }
+                mPendingStartNanos.put(cookie, SystemClock.elapsedRealtimeNanos());
+            }
+            Trace.beginAsyncSection(mName, cookie);
+        }
+
+        /** Ends the async section and records its latency. Ignored if it wasn't started. */
+        public void endAsync(int cookie) {
+            long startNanos;
+            synchronized (mPendingStartNanos) {
+                int index = mPendingStartNanos.indexOfKey(cookie);
+                if (index < 0) {
+                    return;
+                }
+                startNanos = mPendingStartNanos.valueAt(index);
+                mPendingStartNanos.removeAt(index);
+            }
+            mHistogram.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+            Trace.endAsyncSection(mName, cookie);
+        }
+
+        /** Ends the async section without recording its latency. */
+        public void cancelAsync(int cookie) {
+            synchronized (mPendingStartNanos) {
+                int index = mPendingStartNanos.indexOfKey(cookie);
+                if (index < 0) {
+                    return;
+                }
+                mPendingStartNanos.removeAt(index);
+            }
+            Trace.endAsyncSection(mName, cookie);
+        }
+    }
+
+    /** Returns the async cookie of a call, derived from its telecom call id. */
+    public static int cookieFor(@Nullable Call call) {
+        if (call == null) {
+            return SINGLETON_COOKIE;
+        }
+        Call.Details details = call.getDetails();
+        String telecomCallId = details == null ? null : details.getTelecomCallId();
+        return telecomCallId == null ? System.identityHashCode(call) : telecomCallId.hashCode();
+    }
+
+    /** Prints the latency histograms of all stages. */
+    public static void dump(@NonNull PrintWriter pw) {
+        pw.println("Latency histograms:");
+        for (Stage stage : STAGES) {
+            stage.getHistogram().dump(pw);
+        }
+    }
+
+    private DialerTrace() {
+    }
+}
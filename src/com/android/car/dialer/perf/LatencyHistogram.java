@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.perf;
+
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+
+/**
+ * An in-memory latency histogram with fixed millisecond buckets. Recording is allocation free.
+ */
+public class LatencyHistogram {
+    /** Upper bounds of the buckets in milliseconds. The last bucket is unbounded. */
+    private static final long[] BUCKET_UPPER_BOUNDS_MS =
+            {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private final String mName;
+    private final long[] mBucketCounts = new long[BUCKET_UPPER_BOUNDS_MS.length + 1];
+    private long mCount;
+    private long mSumNanos;
+    private long mMinNanos = Long.MAX_VALUE;
+    private long mMaxNanos;
+
+    public LatencyHistogram(@NonNull String name) {
+        mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /** Records a latency in nanoseconds. Negative values are ignored. */
+    public synchronized void record(long latencyNanos) {
+        if (latencyNanos < 0) {
+            return;
+        }
+        long latencyMs = latencyNanos / 1000000;
+        int bucket = 0;
+        while (bucket < BUCKET_UPPER_BOUNDS_MS.length
+                && latencyMs >= BUCKET_UPPER_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        mBucketCounts[bucket]++;
+        mCount++;
+        mSumNanos += latencyNanos;
+        mMinNanos = Math.min(mMinNanos, latencyNanos);
+        mMaxNanos = Math.max(mMaxNanos, latencyNanos);
+    }
+
+    /** Returns the number of recorded latencies. */
+    public synchronized long getCount() {
+        return mCount;
+    }
+
+    /**
+     * Returns the upper bound in milliseconds of the bucket containing the given percentile, or
+     * the max latency if it falls into the unbounded bucket. Returns 0 if nothing was recorded.
+     */
+    public synchronized long getPercentileMs(int percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = (mCount * percentile + 99) / 100;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++) {
+            seen += mBucketCounts[i];
+            if (seen >= rank) {
+                return BUCKET_UPPER_BOUNDS_MS[i];
+            }
+        }
+        return mMaxNanos / 1000000;
+    }
+
+    /** Drops all recorded latencies. */
+    public synchronized void reset() {
+        for (int i = 0; i < mBucketCounts.length; i++) {
+            mBucketCounts[i] = 0;
+        }
+        mCount = 0;
+        mSumNanos = 0;
+        mMinNanos = Long.MAX_VALUE;
+        mMaxNanos = 0;
+    }
+
+    /** Prints a summary line followed by the non empty buckets. */
+    public synchronized void dump(@NonNull PrintWriter pw) {
+        if (mCount == 0) {
+            pw.printf("  %s: no samples\n", mName);
+            return;
+        }
+        pw.printf("  %s: count=%d avg=%.1fms min=%.1fms max=%.1fms p50<%dms p90<%dms"
+                        + " p99<%dms\n",
+                mName, mCount, mSumNanos / 1e6 / mCount, mMinNanos / 1e6, mMaxNanos / 1e6,
+                getPercentileMs(50), getPercentileMs(90), getPercentileMs(99));
+        pw.print("    ");
+        for (int i = 0; i < mBucketCounts.length; i++) {
+            if (mBucketCounts[i] == 0) {
+                continue;
+            }
+            if (i < BUCKET_UPPER_BOUNDS_MS.length) {
+                pw.printf("<%dms:%d ", BUCKET_UPPER_BOUNDS_MS[i], mBucketCounts[i]);
+            } else {
+                pw.printf(">=%dms:%d ",
+                        BUCKET_UPPER_BOUNDS_MS[BUCKET_UPPER_BOUNDS_MS.length - 1],
+                        mBucketCounts[i]);
+            }
+        }
+        pw.println();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentUris;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.provider.ContactsContract;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
+import com.android.car.dialer.widget.CancellationToken;
+import com.android.car.dialer.widget.WorkerExecutor;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneNumber;
+import com.android.internal.annotations.GuardedBy;
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Applies the contact changes made in the Dialer, e.g. setting the primary phone number, off the
+ * main thread. Changes made before the pending ones are applied are coalesced per contact and
+ * applied as one {@link ContentProviderOperation} batch, in one provider transaction, so that the
+ * contact observers get notified once per batch instead of once per change.
+ *
+ * <p>A primary phone number not applied yet can be read through
+ * {@link #getPendingPrimaryPhoneNumber}, which only the primary number prompts do, so that they
+ * don't ask again. Observers can hold their reloads until the batch is applied, see
+ * {@link #addOnBatchAppliedListener}. The contact details and the favorites keep showing the
+ * previous primary number until the batch is applied and their contacts are reloaded.
+ *
+ * <p>The flush is submitted to the {@link WorkerExecutor}, which drops it when its lane is full.
+ * A dropped flush is submitted again after {@link #FLUSH_RETRY_DELAY_MS}, or with the next change.
+ */
+public class ContactMutationQueue {
+    private static final String TAG = "CD.ContactMutationQueue";
+    private static final LatencyHistogram APPLY_LATENCY =
+            DialerMetrics.histogram("ContactMutationQueue.applyBatch");
+    private static final DialerMetrics.Gauge BATCH_SIZE =
+            DialerMetrics.gauge("ContactMutationQueue.batchSize");
+    /** Delay before a flush dropped by the {@link WorkerExecutor} is submitted again. */
+    @VisibleForTesting
+    static final long FLUSH_RETRY_DELAY_MS = 1000;
+
+    /** Listens to the batches of changes being applied. */
+    public interface OnBatchAppliedListener {
+        /** Called on the main thread once a batch is applied, successfully or not. */
+        void onBatchApplied();
+    }
+
+    private static ContactMutationQueue sContactMutationQueue;
+
+    private final Context mContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final List<OnBatchAppliedListener> mListeners = new CopyOnWriteArrayList<>();
+    private final Object mLock = new Object();
+    /** The pending operations, keyed by the lookup key of the contact they change. */
+    @GuardedBy("mLock")
+    private final Map<String, ContentProviderOperation> mPendingOperations =
+            new LinkedHashMap<>();
+    /** The primary phone numbers not applied yet, keyed by lookup key. */
+    @GuardedBy("mLock")
+    private final Map<String, PhoneNumber> mPendingPrimaryPhoneNumbers = new HashMap<>();
+    /** The token of the flush submitted for the pending operations, if any. */
+    @GuardedBy("mLock")
+    @Nullable
+    private CancellationToken mFlushCancellationToken;
+    @GuardedBy("mLock")
+    private boolean mApplying;
+    private final Runnable mRetryFlushRunnable = () -> {
+        synchronized (mLock) {
+            scheduleFlushLocked();
+        }
+    };
+
+    /** Returns the queue of the application, creating it on first call. */
+    public static synchronized ContactMutationQueue get(Context context) {
+        if (sContactMutationQueue == null) {
+            sContactMutationQueue = new ContactMutationQueue(context.getApplicationContext());
+        }
+        return sContactMutationQueue;
+    }
+
+    @VisibleForTesting
+    ContactMutationQueue(Context applicationContext) {
+        mContext = applicationContext;
+    }
+
+    /**
+     * Sets the phone number as the primary one of the contact. Replaces the pending primary phone
+     * number of the contact if any.
+     */
+    public void setAsPrimaryPhoneNumber(@NonNull Contact contact,
+            @NonNull PhoneNumber phoneNumber) {
+        // Targets the data row of the number, the provider clears the primary flags of the other
+        // rows of the contact.
+        ContentProviderOperation operation = ContentProviderOperation
+                .newUpdate(ContentUris.withAppendedId(ContactsContract.Data.CONTENT_URI,
+                        phoneNumber.getId()))
+                .withValue(ContactsContract.Data.IS_PRIMARY, 1)
+                .withValue(ContactsContract.Data.IS_SUPER_PRIMARY, 1)
+                .build();
+        synchronized (mLock) {
+            mPendingPrimaryPhoneNumbers.put(contact.getLookupKey(), phoneNumber);
+            enqueueLocked(contact.getLookupKey(), operation);
+        }
+    }
+
+    /**
+     * Returns the primary phone number of the contact set but not applied yet, or {@code null}
+     * if there is none.
+     */
+    @Nullable
+    public PhoneNumber getPendingPrimaryPhoneNumber(@NonNull Contact contact) {
+        synchronized (mLock) {
+            return mPendingPrimaryPhoneNumbers.get(contact.getLookupKey());
+        }
+    }
+
+    /** Returns whether changes are being applied, which will notify the contact observers. */
+    public boolean isApplying() {
+        synchronized (mLock) {
+            return mApplying || isFlushScheduledLocked();
+        }
+    }
+
+    @MainThread
+    public void addOnBatchAppliedListener(@NonNull OnBatchAppliedListener listener) {
+        mListeners.add(listener);
+    }
+
+    @MainThread
+    public void removeOnBatchAppliedListener(@NonNull OnBatchAppliedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    @GuardedBy("mLock")
+    private void enqueueLocked(String lookupKey, ContentProviderOperation operation) {
+        // Re-inserted so that the batch keeps the order of the latest changes.
+        mPendingOperations.remove(lookupKey);
+        mPendingOperations.put(lookupKey, operation);
+        scheduleFlushLocked();
+    }
+
+    /** Submits the flush of the pending operations unless it is already submitted. */
+    @GuardedBy("mLock")
+    private void scheduleFlushLocked() {
+        if (mPendingOperations.isEmpty() || isFlushScheduledLocked()) {
+            return;
+        }
+        mFlushCancellationToken = scheduleFlush();
+        if (mFlushCancellationToken.isCancelled()) {
+            L.w(TAG, "Flush of %d contact changes rejected, retrying",
+                    mPendingOperations.size());
+            mMainHandler.removeCallbacks(mRetryFlushRunnable);
+            mMainHandler.postDelayed(mRetryFlushRunnable, FLUSH_RETRY_DELAY_MS);
+        }
+    }
+
+    /** Returns whether a flush is submitted and hasn't been dropped or started yet. */
+    @GuardedBy("mLock")
+    private boolean isFlushScheduledLocked() {
+        return mFlushCancellationToken != null && !mFlushCancellationToken.isCancelled();
+    }
+
+    /**
+     * Submits the flush of the pending operations. The returned token is cancelled if the flush
+     * has been rejected.
+     */
+    @VisibleForTesting
+    CancellationToken scheduleFlush() {
+        return WorkerExecutor.getInstance().submit(WorkerExecutor.Lane.BACKGROUND,
+                cancellationToken -> flush());
+    }
+
+    /** Applies the pending changes as one batch. */
+    @VisibleForTesting
+    void flush() {
+        ArrayList<ContentProviderOperation> operations;
+        synchronized (mLock) {
+            operations = new ArrayList<>(mPendingOperations.values());
+            mPendingOperations.clear();
+            mFlushCancellationToken = null;
+            mApplying = true;
+        }
+
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        try {
+            if (!operations.isEmpty()) {
+                mContext.getContentResolver().applyBatch(ContactsContract.AUTHORITY, operations);
+            }
+        } catch (RemoteException | OperationApplicationException e) {
+            L.e(TAG, "Failed to apply %d contact changes: %s", operations.size(), e);
+        } finally {
+            APPLY_LATENCY.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+            BATCH_SIZE.set(operations.size());
+            synchronized (mLock) {
+                mApplying = false;
+                // Changes enqueued meanwhile stay pending until their own batch.
+                mPendingPrimaryPhoneNumbers.keySet().retainAll(mPendingOperations.keySet());
+            }
+            mMainHandler.post(() -> {
+                for (OnBatchAppliedListener listener : mListeners) {
+                    listener.onBatchApplied();
+                }
+            });
+        }
+    }
+}
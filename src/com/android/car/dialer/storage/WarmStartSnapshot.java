@@ -0,0 +1,600 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.UserHandle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.dialer.ui.common.entity.UiCallLog;
+import com.android.car.dialer.widget.CancellationToken;
+import com.android.car.dialer.widget.WorkerExecutor;
+import com.android.car.telephony.common.PhoneCallLog;
+import com.android.internal.annotations.GuardedBy;
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The call history and favorites shown last time, persisted so that a cold start can show them
+ * right away instead of empty lists, until the provider queries finish.
+ *
+ * <p>The snapshot is a compact binary file in app storage which is memory mapped when read. It is
+ * read in background by {@link #preload(Context)} when the process starts, and the lists are
+ * returned once it has been read. Each list is saved together with the address of the phone it
+ * came from, and is only returned while that phone is the connected one. Until the HFP profile
+ * proxy is connected, the phone of the lists counts as connected if Bluetooth reported it
+ * connected when the snapshot was read. A list is dropped when it was saved by another user, when
+ * another phone is connected, or when its phone gets unpaired.
+ */
+public class WarmStartSnapshot {
+    private static final String TAG = "CD.WarmStartSnapshot";
+    private static final String FILE_NAME = "warm_start.snapshot";
+
+    private static final int MAGIC = 0x43445753;
+    private static final int VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_DOUBLE = 2;
+    private static final byte TYPE_STRING = 3;
+    private static final byte TYPE_BLOB = 4;
+
+    private static WarmStartSnapshot sWarmStartSnapshot;
+
+    private final File mFile;
+    private final Object mLock = new Object();
+    /** Serializes writes, which share the temporary file. */
+    private final Object mWriteLock = new Object();
+
+    /** Whether the file has been read, the lists are not returned before. */
+    private volatile boolean mLoaded;
+    /** The phone of the lists, if it was connected when the file was read. */
+    @GuardedBy("mLock")
+    private String mConnectedOnLoadDeviceAddress;
+    /** Copies of the call logs, never handed out since {@link UiCallLog} is mutable. */
+    @GuardedBy("mLock")
+    private List<UiCallLog> mCallLogs;
+    @GuardedBy("mLock")
+    private String mCallLogsDeviceAddress;
+    @GuardedBy("mLock")
+    private Rows mFavoriteRows;
+    @GuardedBy("mLock")
+    private String mFavoritesDeviceAddress;
+
+    private CancellationToken mPendingWrite;
+
+    private final BroadcastReceiver mBondStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+            int bondState = intent.getIntExtra(BluetoothDevice.EXTRA_BOND_STATE,
+                    BluetoothDevice.ERROR);
+            if (device != null && bondState == BluetoothDevice.BOND_NONE) {
+                invalidate(device.getAddress());
+            }
+        }
+    };
+
+    /** Raw rows of a cursor. */
+    private static class Rows {
+        private final String[] mColumnNames;
+        private final List<Object[]> mRows;
+
+        private Rows(String[] columnNames, List<Object[]> rows) {
+            mColumnNames = columnNames;
+            mRows = rows;
+        }
+    }
+
+    /** Returns the snapshot of the application. */
+    public static synchronized WarmStartSnapshot getInstance(@NonNull Context context) {
+        if (sWarmStartSnapshot == null) {
+            Context applicationContext = context.getApplicationContext();
+            sWarmStartSnapshot = new WarmStartSnapshot(
+                    new File(applicationContext.getFilesDir(), FILE_NAME));
+            applicationContext.registerReceiver(sWarmStartSnapshot.mBondStateReceiver,
+                    new IntentFilter(BluetoothDevice.ACTION_BOND_STATE_CHANGED));
+        }
+        return sWarmStartSnapshot;
+    }
+
+    /**
+     * Reads the snapshot of the application in background, so that it is ready when the lists are
+     * created.
+     */
+    public static void preload(@NonNull Context context) {
+        Context applicationContext = context.getApplicationContext();
+        WorkerExecutor.getInstance().submit(WorkerExecutor.Lane.BACKGROUND,
+                cancellationToken -> getInstance(applicationContext).load());
+    }
+
+    @VisibleForTesting
+    WarmStartSnapshot(File file) {
+        mFile = file;
+    }
+
+    /** Reads the file on the calling thread if it hasn't been read yet. */
+    @VisibleForTesting
+    void load() {
+        synchronized (mLock) {
+            ensureLoadedLocked();
+        }
+    }
+
+    /**
+     * Returns a copy of the saved call history of the connected phone, or {@code null} if there is
+     * no valid one or the snapshot hasn't been read yet.
+     */
+    @Nullable
+    public List<UiCallLog> getCallLogs() {
+        if (!mLoaded) {
+            L.d(TAG, "Snapshot not read yet");
+            return null;
+        }
+        String hfpDeviceAddress = getHfpDeviceAddress();
+        synchronized (mLock) {
+            String connectedDeviceAddress = getConnectedDeviceAddressLocked(hfpDeviceAddress);
+            if (mCallLogs != null && connectedDeviceAddress != null
+                    && !connectedDeviceAddress.equals(mCallLogsDeviceAddress)) {
+                L.d(TAG, "Dropping call logs of another phone");
+                mCallLogs = null;
+                mCallLogsDeviceAddress = null;
+            }
+            if (mCallLogs == null || connectedDeviceAddress == null) {
+                return null;
+            }
+            List<UiCallLog> callLogs = new ArrayList<>(mCallLogs.size());
+            for (UiCallLog callLog : mCallLogs) {
+                callLogs.add(copyOf(callLog));
+            }
+            return callLogs;
+        }
+    }
+
+    /**
+     * Returns the saved favorite contact rows of the connected phone, as returned by the contacts
+     * provider, or {@code null} if there is no valid one or the snapshot hasn't been read yet.
+     */
+    @Nullable
+    public Cursor getFavoriteRows() {
+        if (!mLoaded) {
+            L.d(TAG, "Snapshot not read yet");
+            return null;
+        }
+        String hfpDeviceAddress = getHfpDeviceAddress();
+        synchronized (mLock) {
+            String connectedDeviceAddress = getConnectedDeviceAddressLocked(hfpDeviceAddress);
+            if (mFavoriteRows != null && connectedDeviceAddress != null
+                    && !connectedDeviceAddress.equals(mFavoritesDeviceAddress)) {
+                L.d(TAG, "Dropping favorites of another phone");
+                mFavoriteRows = null;
+                mFavoritesDeviceAddress = null;
+            }
+            if (mFavoriteRows == null || connectedDeviceAddress == null) {
+                return null;
+            }
+            MatrixCursor cursor = new MatrixCursor(mFavoriteRows.mColumnNames,
+                    mFavoriteRows.mRows.size());
+            for (Object[] row : mFavoriteRows.mRows) {
+                cursor.addRow(row);
+            }
+            return cursor;
+        }
+    }
+
+    /** Saves the loaded call history of the connected phone. Writing happens in background. */
+    public void saveCallLogs(@NonNull List<UiCallLog> callLogs) {
+        String deviceAddress = getHfpDeviceAddress();
+        if (deviceAddress == null) {
+            return;
+        }
+        List<UiCallLog> copies = new ArrayList<>(callLogs.size());
+        for (UiCallLog callLog : callLogs) {
+            copies.add(copyOf(callLog));
+        }
+        synchronized (mLock) {
+            ensureLoadedLocked();
+            mCallLogs = copies;
+            mCallLogsDeviceAddress = deviceAddress;
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * Saves the favorite contact rows of the connected phone. The rows are copied right away and
+     * the cursor is moved back before the first row. Writing happens in background.
+     */
+    public void saveFavoriteRows(@NonNull Cursor cursor) {
+        String deviceAddress = getHfpDeviceAddress();
+        if (deviceAddress == null) {
+            return;
+        }
+        Rows rows = copyOf(cursor);
+        synchronized (mLock) {
+            ensureLoadedLocked();
+            mFavoriteRows = rows;
+            mFavoritesDeviceAddress = deviceAddress;
+        }
+        scheduleWrite();
+    }
+
+    /** Drops the lists saved from the given phone, e.g. when it is unpaired. */
+    public void invalidate(@NonNull String deviceAddress) {
+        boolean changed = false;
+        synchronized (mLock) {
+            ensureLoadedLocked();
+            if (deviceAddress.equals(mCallLogsDeviceAddress)) {
+                mCallLogs = null;
+                mCallLogsDeviceAddress = null;
+                changed = true;
+            }
+            if (deviceAddress.equals(mFavoritesDeviceAddress)) {
+                mFavoriteRows = null;
+                mFavoritesDeviceAddress = null;
+                changed = true;
+            }
+            if (deviceAddress.equals(mConnectedOnLoadDeviceAddress)) {
+                mConnectedOnLoadDeviceAddress = null;
+            }
+        }
+        if (changed) {
+            L.d(TAG, "Dropping snapshot of an unpaired phone");
+            scheduleWrite();
+        }
+    }
+
+    /** Writes the snapshot on the calling thread. */
+    @VisibleForTesting
+    void write() {
+        byte[] bytes;
+        synchronized (mLock) {
+            try {
+                bytes = encodeLocked();
+            } catch (IOException e) {
+                L.e(TAG, e, "Failed to encode the snapshot");
+                return;
+            }
+        }
+        synchronized (mWriteLock) {
+            // Writes to a temporary file first so a crash never leaves a truncated snapshot.
+            File tempFile = new File(mFile.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tempFile)) {
+                out.write(bytes);
+                out.getFD().sync();
+            } catch (IOException e) {
+                L.e(TAG, e, "Failed to write the snapshot");
+                return;
+            }
+            if (!tempFile.renameTo(mFile)) {
+                L.w(TAG, "Failed to replace %s", mFile);
+            }
+        }
+    }
+
+    private synchronized void scheduleWrite() {
+        if (mPendingWrite != null) {
+            mPendingWrite.cancel();
+        }
+        mPendingWrite = WorkerExecutor.getInstance().submit(WorkerExecutor.Lane.BACKGROUND,
+                cancellationToken -> write());
+    }
+
+    /** Reads the file, and checks the phones of the lists with Bluetooth, if not done yet. */
+    @GuardedBy("mLock")
+    private void ensureLoadedLocked() {
+        if (mLoaded) {
+            return;
+        }
+        try {
+            if (!mFile.exists()) {
+                return;
+            }
+            try (FileInputStream in = new FileInputStream(mFile);
+                 FileChannel channel = in.getChannel()) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                decodeLocked(new DataInputStream(new ByteBufferInputStream(buffer)));
+            } catch (IOException | RuntimeException e) {
+                L.w(TAG, "Dropping unreadable snapshot: %s", e);
+                mCallLogs = null;
+                mFavoriteRows = null;
+            }
+        } finally {
+            mLoaded = true;
+        }
+    }
+
+    @GuardedBy("mLock")
+    private byte[] encodeLocked() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(UserHandle.myUserId());
+
+        out.writeBoolean(mCallLogs != null);
+        if (mCallLogs != null) {
+            out.writeUTF(mCallLogsDeviceAddress);
+            out.writeInt(mCallLogs.size());
+            for (UiCallLog callLog : mCallLogs) {
+                writeNullableString(out, callLog.getTitle());
+                writeNullableString(out, callLog.getText());
+                writeNullableString(out, callLog.getNumber());
+                Uri avatarUri = callLog.getAvatarUri();
+                writeNullableString(out, avatarUri == null ? null : avatarUri.toString());
+                List<PhoneCallLog.Record> records = callLog.getCallRecords();
+                out.writeInt(records.size());
+                for (PhoneCallLog.Record record : records) {
+                    out.writeLong(record.getCallEndTimestamp());
+                    out.writeInt(record.getCallType());
+                }
+            }
+        }
+
+        out.writeBoolean(mFavoriteRows != null);
+        if (mFavoriteRows != null) {
+            out.writeUTF(mFavoritesDeviceAddress);
+            out.writeInt(mFavoriteRows.mColumnNames.length);
+            for (String columnName : mFavoriteRows.mColumnNames) {
+                out.writeUTF(columnName);
+            }
+            out.writeInt(mFavoriteRows.mRows.size());
+            for (Object[] row : mFavoriteRows.mRows) {
+                for (Object value : row) {
+                    writeValue(out, value);
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @GuardedBy("mLock")
+    private void decodeLocked(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            L.w(TAG, "Dropping snapshot of an unknown format");
+            return;
+        }
+        if (in.readInt() != UserHandle.myUserId()) {
+            L.d(TAG, "Dropping snapshot of another user");
+            return;
+        }
+
+        if (in.readBoolean()) {
+            String deviceAddress = in.readUTF();
+            int count = in.readInt();
+            List<UiCallLog> callLogs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String title = readNullableString(in);
+                String text = readNullableString(in);
+                String number = readNullableString(in);
+                String avatarUri = readNullableString(in);
+                int recordCount = in.readInt();
+                List<PhoneCallLog.Record> records = new ArrayList<>(recordCount);
+                for (int j = 0; j < recordCount; j++) {
+                    records.add(new PhoneCallLog.Record(in.readLong(), in.readInt()));
+                }
+                callLogs.add(new UiCallLog(title, text, number,
+                        avatarUri == null ? null : Uri.parse(avatarUri), records));
+            }
+            if (checkBondedDeviceLocked(deviceAddress)) {
+                mCallLogs = callLogs;
+                mCallLogsDeviceAddress = deviceAddress;
+            }
+        }
+
+        if (in.readBoolean()) {
+            String deviceAddress = in.readUTF();
+            String[] columnNames = new String[in.readInt()];
+            for (int i = 0; i < columnNames.length; i++) {
+                columnNames[i] = in.readUTF();
+            }
+            int count = in.readInt();
+            List<Object[]> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Object[] row = new Object[columnNames.length];
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = readValue(in);
+                }
+                rows.add(row);
+            }
+            if (checkBondedDeviceLocked(deviceAddress)) {
+                mFavoriteRows = new Rows(columnNames, rows);
+                mFavoritesDeviceAddress = deviceAddress;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the phone is paired, and remembers it as the connected phone if Bluetooth
+     * reports it connected.
+     */
+    @GuardedBy("mLock")
+    private boolean checkBondedDeviceLocked(String deviceAddress) {
+        BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
+        if (adapter == null) {
+            return false;
+        }
+        for (BluetoothDevice device : adapter.getBondedDevices()) {
+            if (deviceAddress.equals(device.getAddress())) {
+                if (device.isConnected()) {
+                    mConnectedOnLoadDeviceAddress = deviceAddress;
+                }
+                return true;
+            }
+        }
+        L.d(TAG, "Dropping snapshot of an unpaired phone");
+        return false;
+    }
+
+    /**
+     * Returns the address of the connected phone: the HFP device if the profile proxy knows it,
+     * else the phone of the lists if it was connected when the snapshot was read.
+     */
+    @GuardedBy("mLock")
+    @Nullable
+    private String getConnectedDeviceAddressLocked(@Nullable String hfpDeviceAddress) {
+        return hfpDeviceAddress != null ? hfpDeviceAddress : mConnectedOnLoadDeviceAddress;
+    }
+
+    /** Returns the address of the HFP device, {@code null} until the profile proxy knows it. */
+    @Nullable
+    private static String getHfpDeviceAddress() {
+        if (!UiCallManager.isInitialized()) {
+            return null;
+        }
+        BluetoothDevice device = UiCallManager.get().getHfpDevice();
+        return device == null ? null : device.getAddress();
+    }
+
+    private static UiCallLog copyOf(UiCallLog callLog) {
+        return new UiCallLog(callLog.getTitle(), callLog.getText(), callLog.getNumber(),
+                callLog.getAvatarUri(), new ArrayList<>(callLog.getCallRecords()));
+    }
+
+    private static Rows copyOf(Cursor cursor) {
+        String[] columnNames = cursor.getColumnNames();
+        List<Object[]> rows = new ArrayList<>(Math.max(cursor.getCount(), 0));
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            Object[] row = new Object[columnNames.length];
+            for (int i = 0; i < row.length; i++) {
+                switch (cursor.getType(i)) {
+                    case Cursor.FIELD_TYPE_INTEGER:
+                        row[i] = cursor.getLong(i);
+                        break;
+                    case Cursor.FIELD_TYPE_FLOAT:
+                        row[i] = cursor.getDouble(i);
+                        break;
+                    case Cursor.FIELD_TYPE_STRING:
+                        row[i] = cursor.getString(i);
+                        break;
+                    case Cursor.FIELD_TYPE_BLOB:
+                        row[i] = cursor.getBlob(i);
+                        break;
+                    default:
+                        row[i] = null;
+                }
+            }
+            rows.add(row);
+        }
+        cursor.moveToPosition(-1);
+        return new Rows(columnNames, Collections.unmodifiableList(rows));
+    }
+
+    private static void writeNullableString(DataOutputStream out, @Nullable String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeValue(DataOutputStream out, @Nullable Object value)
+            throws IOException {
+        if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof byte[]) {
+            out.writeByte(TYPE_BLOB);
+            out.writeInt(((byte[]) value).length);
+            out.write((byte[]) value);
+        } else {
+            out.writeByte(TYPE_NULL);
+        }
+    }
+
+    @Nullable
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_STRING:
+                return in.readUTF();
+            case TYPE_BLOB:
+                byte[] blob = new byte[in.readInt()];
+                in.readFully(blob);
+                return blob;
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    /** Reads a memory mapped file without copying it to the heap first. */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer mBuffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return mBuffer.hasRemaining() ? mBuffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!mBuffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, mBuffer.remaining());
+            mBuffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
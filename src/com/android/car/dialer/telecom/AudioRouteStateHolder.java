@@ -0,0 +1,345 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.annotation.Nullable;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHeadsetClient;
+import android.bluetooth.BluetoothHeadsetClientCall;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.telecom.Call;
+import android.telecom.CallAudioState;
+import android.telecom.PhoneAccountHandle;
+import android.telecom.TelecomManager;
+
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.UiCallManager.OnAudioRouteChangedListener;
+import com.android.internal.annotations.GuardedBy;
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps an in-memory snapshot of the audio routing state that otherwise requires binder calls into
+ * {@link TelecomManager} and {@link BluetoothHeadsetClient}. The snapshot is invalidated by call
+ * list changes, {@link InCallServiceImpl#onCallAudioStateChanged(CallAudioState)}, the HFP
+ * broadcasts and the phone account broadcasts, and is rebuilt at most once per invalidation on
+ * the next read.
+ *
+ * <p>The connected HFP devices are tracked by a {@link HfpDeviceTracker} from the
+ * {@link BluetoothHeadsetClient} broadcasts, and are only queried over binder when the profile
+ * proxy connects or a broadcast can't be applied. The outgoing phone account is only looked up
+ * again when the calls, the phone accounts or the HFP connections change.
+ */
+class AudioRouteStateHolder {
+    private static final String TAG = "CD.AudioRouteState";
+
+    /** Immutable snapshot of the audio routing state which requires binder calls to build. */
+    static final class AudioRouteState {
+        /** The state without any call routing, e.g. once the holder has been stopped. */
+        static final AudioRouteState EMPTY = new AudioRouteState(false, null, false, false);
+
+        private final boolean mIsBluetoothCall;
+        @Nullable
+        private final BluetoothDevice mActiveHfpDevice;
+        private final boolean mHasActiveHfpCall;
+        private final boolean mIsHfpAudioConnected;
+
+        private AudioRouteState(boolean isBluetoothCall, @Nullable BluetoothDevice activeHfpDevice,
+                boolean hasActiveHfpCall, boolean isHfpAudioConnected) {
+            mIsBluetoothCall = isBluetoothCall;
+            mActiveHfpDevice = activeHfpDevice;
+            mHasActiveHfpCall = hasActiveHfpCall;
+            mIsHfpAudioConnected = isHfpAudioConnected;
+        }
+
+        /** Returns true if the user selected outgoing phone account is an HFP account. */
+        boolean isBluetoothCall() {
+            return mIsBluetoothCall;
+        }
+
+        /** Returns true if there is at least one connected HFP device. */
+        boolean hasConnectedHfpDevice() {
+            return mActiveHfpDevice != null;
+        }
+
+        /**
+         * Returns the HFP device that owns the active call, or the first connected HFP device if
+         * none of them has a call.
+         */
+        @Nullable
+        BluetoothDevice getActiveHfpDevice() {
+            return mActiveHfpDevice;
+        }
+
+        /** Returns true if {@link #getActiveHfpDevice()} has at least one call. */
+        boolean hasActiveHfpCall() {
+            return mHasActiveHfpCall;
+        }
+
+        /** Returns true if the SCO audio of the active HFP device is connected. */
+        boolean isHfpAudioConnected() {
+            return mIsHfpAudioConnected;
+        }
+
+        @Override
+        public String toString() {
+            return "AudioRouteState{isBluetoothCall=" + mIsBluetoothCall
+                    + ", activeHfpDevice=" + mActiveHfpDevice
+                    + ", hasActiveHfpCall=" + mHasActiveHfpCall
+                    + ", isHfpAudioConnected=" + mIsHfpAudioConnected + "}";
+        }
+    }
+
+    private final Context mContext;
+    private final TelecomManager mTelecomManager;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<OnAudioRouteChangedListener> mListeners =
+            new CopyOnWriteArrayList<>();
+    private final AtomicInteger mBinderCallCount = new AtomicInteger();
+    private final AtomicInteger mSnapshotBuildCount = new AtomicInteger();
+    private final Object mHfpDevicesLock = new Object();
+
+    @GuardedBy("mHfpDevicesLock")
+    private final HfpDeviceTracker mHfpDeviceTracker = new HfpDeviceTracker();
+
+    @Nullable
+    private BluetoothHeadsetClient mBluetoothHeadsetClient;
+    @Nullable
+    private InCallServiceImpl mInCallService;
+    /** Whether the outgoing phone account is an HFP one, {@code null} if invalidated. */
+    @Nullable
+    private volatile Boolean mIsBluetoothCall;
+    /** The current snapshot, or {@code null} if it has been invalidated. */
+    @Nullable
+    private volatile AudioRouteState mAudioRouteState;
+
+    private final BroadcastReceiver mHfpReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            L.d(TAG, "onReceive %s", intent.getAction());
+            String action = intent.getAction();
+            boolean isPhoneAccountChange =
+                    TelecomManager.ACTION_PHONE_ACCOUNT_REGISTERED.equals(action)
+                            || TelecomManager.ACTION_PHONE_ACCOUNT_UNREGISTERED.equals(action);
+            if (!isPhoneAccountChange) {
+                synchronized (mHfpDevicesLock) {
+                    mHfpDeviceTracker.onBroadcast(intent);
+                }
+            }
+            // The HFP phone accounts are registered as the devices connect, while the audio and
+            // call changes of the devices don't affect the outgoing phone account.
+            if (isPhoneAccountChange
+                    || BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED.equals(action)) {
+                invalidate();
+            } else {
+                invalidateSnapshot();
+            }
+        }
+    };
+
+    private final InCallServiceImpl.Callback mInCallServiceCallback =
+            new InCallServiceImpl.Callback() {
+                @Override
+                public void onTelecomCallAdded(Call telecomCall) {
+                    invalidate();
+                }
+
+                @Override
+                public void onTelecomCallRemoved(Call telecomCall) {
+                    invalidate();
+                }
+
+                @Override
+                public void onCallAudioStateChanged(CallAudioState audioState) {
+                    invalidateSnapshot();
+                }
+            };
+
+    AudioRouteStateHolder(Context context, TelecomManager telecomManager) {
+        mContext = context;
+        mTelecomManager = telecomManager;
+    }
+
+    /**
+     * Starts listening to the HFP and phone account broadcasts. Telecom doesn't broadcast changes
+     * of the user selected outgoing phone account itself, but the HFP phone accounts are
+     * registered and unregistered as the devices connect and disconnect.
+     */
+    void start() {
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED);
+        intentFilter.addAction(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED);
+        intentFilter.addAction(BluetoothHeadsetClient.ACTION_CALL_CHANGED);
+        intentFilter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_REGISTERED);
+        intentFilter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_UNREGISTERED);
+        mContext.registerReceiver(mHfpReceiver, intentFilter);
+    }
+
+    /** Stops listening to all state changes. */
+    void stop() {
+        mContext.unregisterReceiver(mHfpReceiver);
+        setInCallService(null);
+        mListeners.clear();
+    }
+
+    /** Sets the bound {@link InCallServiceImpl} to listen to call and audio state changes. */
+    void setInCallService(@Nullable InCallServiceImpl inCallService) {
+        if (mInCallService != null) {
+            mInCallService.unregisterCallback(mInCallServiceCallback);
+        }
+        mInCallService = inCallService;
+        if (mInCallService != null) {
+            mInCallService.registerCallback(mInCallServiceCallback);
+        }
+        invalidate();
+    }
+
+    /** Sets the {@link BluetoothHeadsetClient} profile proxy once it is connected. */
+    void setBluetoothHeadsetClient(@Nullable BluetoothHeadsetClient bluetoothHeadsetClient) {
+        mBluetoothHeadsetClient = bluetoothHeadsetClient;
+        synchronized (mHfpDevicesLock) {
+            mHfpDeviceTracker.markStale();
+        }
+        invalidate();
+    }
+
+    void addListener(OnAudioRouteChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    void removeListener(OnAudioRouteChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /** Returns the current snapshot, rebuilding it if it has been invalidated. */
+    AudioRouteState getAudioRouteState() {
+        AudioRouteState audioRouteState = mAudioRouteState;
+        if (audioRouteState == null) {
+            audioRouteState = buildAudioRouteState();
+            mAudioRouteState = audioRouteState;
+        }
+        return audioRouteState;
+    }
+
+    /** Returns the number of binder calls made to build the snapshots so far. */
+    @VisibleForTesting
+    int getBinderCallCount() {
+        return mBinderCallCount.get();
+    }
+
+    /** Returns the number of snapshots built so far. */
+    @VisibleForTesting
+    int getSnapshotBuildCount() {
+        return mSnapshotBuildCount.get();
+    }
+
+    /**
+     * Drops the current snapshot, including the outgoing phone account lookup, and notifies the
+     * listeners on the main thread.
+     */
+    void invalidate() {
+        mIsBluetoothCall = null;
+        invalidateSnapshot();
+    }
+
+    /** Drops the current snapshot but keeps the outgoing phone account lookup. */
+    private void invalidateSnapshot() {
+        mAudioRouteState = null;
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            notifyListeners();
+        } else {
+            mMainHandler.post(this::notifyListeners);
+        }
+    }
+
+    private void notifyListeners() {
+        for (OnAudioRouteChangedListener listener : mListeners) {
+            listener.onAudioRouteChanged();
+        }
+    }
+
+    private AudioRouteState buildAudioRouteState() {
+        mSnapshotBuildCount.incrementAndGet();
+        Boolean isBluetoothCall = mIsBluetoothCall;
+        if (isBluetoothCall == null) {
+            isBluetoothCall = queryIsBluetoothCall();
+            mIsBluetoothCall = isBluetoothCall;
+        }
+        BluetoothHeadsetClient bluetoothHeadsetClient = mBluetoothHeadsetClient;
+        if (!isBluetoothCall || bluetoothHeadsetClient == null) {
+            return new AudioRouteState(isBluetoothCall, null, false, false);
+        }
+
+        synchronized (mHfpDevicesLock) {
+            if (mHfpDeviceTracker.isStale()) {
+                reloadHfpDevicesLocked(bluetoothHeadsetClient);
+            }
+
+            BluetoothDevice activeDevice = mHfpDeviceTracker.getActiveDevice();
+            AudioRouteState audioRouteState = activeDevice == null
+                    ? new AudioRouteState(true, null, false, false)
+                    : new AudioRouteState(true, activeDevice,
+                            mHfpDeviceTracker.hasCall(activeDevice),
+                            mHfpDeviceTracker.isAudioConnected(activeDevice));
+            L.d(TAG, "Rebuilt %s", audioRouteState);
+            return audioRouteState;
+        }
+    }
+
+    @GuardedBy("mHfpDevicesLock")
+    private void reloadHfpDevicesLocked(BluetoothHeadsetClient bluetoothHeadsetClient) {
+        mHfpDeviceTracker.beginReload();
+        mBinderCallCount.incrementAndGet();
+        List<BluetoothDevice> connectedDevices = bluetoothHeadsetClient.getConnectedDevices();
+        for (BluetoothDevice device : connectedDevices) {
+            mBinderCallCount.incrementAndGet();
+            int audioState = bluetoothHeadsetClient.getAudioState(device);
+            mBinderCallCount.incrementAndGet();
+            List<BluetoothHeadsetClientCall> calls = bluetoothHeadsetClient.getCurrentCalls(device);
+            List<Integer> callIds = new ArrayList<>();
+            if (calls != null) {
+                for (BluetoothHeadsetClientCall call : calls) {
+                    if (call.getState() != BluetoothHeadsetClientCall.CALL_STATE_TERMINATED) {
+                        callIds.add(call.getId());
+                    }
+                }
+            }
+            mHfpDeviceTracker.addDevice(device, audioState, callIds);
+        }
+    }
+
+    private boolean queryIsBluetoothCall() {
+        mBinderCallCount.incrementAndGet();
+        PhoneAccountHandle phoneAccountHandle =
+                mTelecomManager.getUserSelectedOutgoingPhoneAccount();
+        if (phoneAccountHandle != null && phoneAccountHandle.getComponentName() != null) {
+            return UiCallManager.HFP_CLIENT_CONNECTION_SERVICE_CLASS_NAME.equals(
+                    phoneAccountHandle.getComponentName().getClassName());
+        } else {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.annotation.Nullable;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHeadsetClient;
+import android.bluetooth.BluetoothHeadsetClientCall;
+import android.bluetooth.BluetoothProfile;
+import android.content.Intent;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the connected HFP devices, each with its own audio state and ongoing calls, by applying
+ * the {@link BluetoothHeadsetClient} broadcasts. Once a broadcast can't be applied the devices are
+ * stale and have to be reloaded from the profile proxy, see {@link #beginReload()}.
+ *
+ * <p>Not thread safe.
+ */
+class HfpDeviceTracker {
+    /** Rank of a connected device without calls. */
+    private static final int RANK_CONNECTED = 0;
+    /** Rank of a device with at least one call. */
+    private static final int RANK_IN_CALL = 1;
+    /** Rank of a device with at least one call and connected audio. */
+    private static final int RANK_IN_CALL_WITH_AUDIO = 2;
+
+    /** Mutable state of a single connected HFP device. */
+    private static final class DeviceState {
+        private int mAudioState = BluetoothHeadsetClient.STATE_AUDIO_DISCONNECTED;
+        /** Ids of the {@link BluetoothHeadsetClientCall}s that are not terminated yet. */
+        private final Set<Integer> mCallIds = new HashSet<>();
+
+        private int getRank() {
+            if (mCallIds.isEmpty()) {
+                return RANK_CONNECTED;
+            }
+            return mAudioState == BluetoothHeadsetClient.STATE_AUDIO_CONNECTED
+                    ? RANK_IN_CALL_WITH_AUDIO : RANK_IN_CALL;
+        }
+    }
+
+    /** Connected HFP devices in the order they connected. */
+    private final Map<BluetoothDevice, DeviceState> mDevices = new LinkedHashMap<>();
+    private boolean mStale = true;
+
+    /** Returns whether the devices have to be reloaded before they can be read. */
+    boolean isStale() {
+        return mStale;
+    }
+
+    /** Drops the devices, e.g. when the profile proxy changes. */
+    void markStale() {
+        mDevices.clear();
+        mStale = true;
+    }
+
+    /** Drops the devices before they are added again by {@link #addDevice}. */
+    void beginReload() {
+        mDevices.clear();
+        mStale = false;
+    }
+
+    /** Adds a device loaded from the profile proxy, with the ids of its ongoing calls. */
+    void addDevice(BluetoothDevice device, int audioState, Collection<Integer> callIds) {
+        DeviceState deviceState = new DeviceState();
+        deviceState.mAudioState = audioState;
+        deviceState.mCallIds.addAll(callIds);
+        mDevices.put(device, deviceState);
+    }
+
+    /**
+     * Applies an HFP broadcast. Broadcasts without the expected extras, or about devices not
+     * tracked, mark the devices stale. Broadcasts are ignored while the devices are stale.
+     */
+    void onBroadcast(Intent intent) {
+        if (mStale) {
+            return;
+        }
+        String action = intent.getAction();
+        if (BluetoothHeadsetClient.ACTION_CALL_CHANGED.equals(action)) {
+            BluetoothHeadsetClientCall call =
+                    intent.getParcelableExtra(BluetoothHeadsetClient.EXTRA_CALL);
+            if (call == null) {
+                markStale();
+            } else {
+                onCallChanged(call.getDevice(), call.getId(), call.getState());
+            }
+            return;
+        }
+
+        BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+        int state = intent.getIntExtra(BluetoothProfile.EXTRA_STATE, -1);
+        if (device == null || state == -1) {
+            markStale();
+        } else if (BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED.equals(action)) {
+            onConnectionStateChanged(device, state);
+        } else if (BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED.equals(action)) {
+            onAudioStateChanged(device, state);
+        }
+    }
+
+    /** Applies a {@link BluetoothHeadsetClient#ACTION_CONNECTION_STATE_CHANGED}. */
+    void onConnectionStateChanged(BluetoothDevice device, int connectionState) {
+        if (mStale) {
+            return;
+        }
+        if (connectionState == BluetoothProfile.STATE_CONNECTED) {
+            if (!mDevices.containsKey(device)) {
+                mDevices.put(device, new DeviceState());
+            }
+        } else if (connectionState == BluetoothProfile.STATE_DISCONNECTED) {
+            mDevices.remove(device);
+        }
+    }
+
+    /** Applies a {@link BluetoothHeadsetClient#ACTION_AUDIO_STATE_CHANGED}. */
+    void onAudioStateChanged(BluetoothDevice device, int audioState) {
+        if (mStale) {
+            return;
+        }
+        DeviceState deviceState = mDevices.get(device);
+        if (deviceState == null) {
+            markStale();
+        } else {
+            deviceState.mAudioState = audioState;
+        }
+    }
+
+    /** Applies a {@link BluetoothHeadsetClient#ACTION_CALL_CHANGED}. */
+    void onCallChanged(@Nullable BluetoothDevice device, int callId, int callState) {
+        if (mStale) {
+            return;
+        }
+        DeviceState deviceState = device == null ? null : mDevices.get(device);
+        if (deviceState == null) {
+            markStale();
+        } else if (callState == BluetoothHeadsetClientCall.CALL_STATE_TERMINATED) {
+            deviceState.mCallIds.remove(callId);
+        } else {
+            deviceState.mCallIds.add(callId);
+        }
+    }
+
+    /**
+     * Returns the device with an ongoing call and connected audio, else any device with a call,
+     * else the first connected device, or {@code null} if no device is connected.
+     */
+    @Nullable
+    BluetoothDevice getActiveDevice() {
+        BluetoothDevice activeDevice = null;
+        int activeDeviceRank = -1;
+        for (Map.Entry<BluetoothDevice, DeviceState> entry : mDevices.entrySet()) {
+            int rank = entry.getValue().getRank();
+            if (rank > activeDeviceRank) {
+                activeDevice = entry.getKey();
+                activeDeviceRank = rank;
+            }
+        }
+        return activeDevice;
+    }
+
+    /** Returns whether the device is tracked and has at least one ongoing call. */
+    boolean hasCall(BluetoothDevice device) {
+        DeviceState deviceState = mDevices.get(device);
+        return deviceState != null && !deviceState.mCallIds.isEmpty();
+    }
+
+    /** Returns whether the device is tracked and its SCO audio is connected. */
+    boolean isAudioConnected(BluetoothDevice device) {
+        DeviceState deviceState = mDevices.get(device);
+        return deviceState != null
+                && deviceState.mAudioState == BluetoothHeadsetClient.STATE_AUDIO_CONNECTED;
+    }
+}
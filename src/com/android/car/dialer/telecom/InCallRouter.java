@@ -18,47 +18,63 @@ package com.android.car.dialer.telecom;
 
 import android.content.Context;
 import android.content.Intent;
-import android.os.Handler;
 import android.telecom.Call;
 
 import com.android.car.dialer.log.L;
 import com.android.car.dialer.notification.InCallNotificationController;
 import com.android.car.dialer.ui.activecall.InCallActivity;
 import com.android.car.dialer.ui.activecall.InCallViewModel;
-
-import java.util.ArrayList;
+import com.android.internal.annotations.GuardedBy;
+import com.android.internal.annotations.VisibleForTesting;
 
 /**
  * Routes a call to different path depending on its state. If there is any {@link
  * InCallServiceImpl.ActiveCallListChangedCallback} that already handles the call, i.e. the {@link
  * InCallViewModel} that actively updates the in call page, then we don't show HUN for the ringing
  * call or attempt to start the in call page again.
+ *
+ * <p>Callbacks are kept in an immutable snapshot array which is replaced on every registration
+ * change. Registration can happen from any thread and takes effect immediately, while dispatching
+ * reads the current snapshot without locking or allocating. Prioritized callbacks, i.e. the
+ * {@link ProjectionCallHandler}, are always dispatched before the others. Within the same priority
+ * callbacks are dispatched in registration order.
  */
 class InCallRouter {
 
     private static final String TAG = "CD.InCallRouter";
+    private static final InCallServiceImpl.ActiveCallListChangedCallback[] EMPTY_CALLBACKS =
+            new InCallServiceImpl.ActiveCallListChangedCallback[0];
 
     private final Context mContext;
-    private final Handler mMainHandler;
     private final InCallNotificationController mInCallNotificationController;
-    private final ArrayList<InCallServiceImpl.ActiveCallListChangedCallback>
-            mActiveCallListChangedCallbacks = new ArrayList<>();
     private final ProjectionCallHandler mProjectionCallHandler;
 
+    private final Object mCallbackLock = new Object();
+    private volatile InCallServiceImpl.ActiveCallListChangedCallback[]
+            mActiveCallListChangedCallbacks = EMPTY_CALLBACKS;
+    /** Number of prioritized callbacks at the head of {@link #mActiveCallListChangedCallbacks}. */
+    @GuardedBy("mCallbackLock")
+    private int mPrioritizedCallbackCount;
+
     InCallRouter(Context context) {
+        this(context, InCallNotificationController.get(), new ProjectionCallHandler(context));
+    }
+
+    @VisibleForTesting
+    InCallRouter(Context context, InCallNotificationController inCallNotificationController,
+            ProjectionCallHandler projectionCallHandler) {
         mContext = context;
-        mMainHandler = Handler.getMain();
-        mInCallNotificationController = InCallNotificationController.get();
-        mProjectionCallHandler = new ProjectionCallHandler(context);
+        mInCallNotificationController = inCallNotificationController;
+        mProjectionCallHandler = projectionCallHandler;
     }
 
     void start() {
         mProjectionCallHandler.start();
-        mActiveCallListChangedCallbacks.add(mProjectionCallHandler);
+        addCallback(mProjectionCallHandler, /* prioritized= */true);
     }
 
     void stop() {
-        mActiveCallListChangedCallbacks.remove(mProjectionCallHandler);
+        removeCallback(mProjectionCallHandler);
         mProjectionCallHandler.stop();
     }
 
@@ -89,27 +105,96 @@ class InCallRouter {
      * InCallServiceImpl.ActiveCallListChangedCallback}s to update the active call list.
      */
     void onCallRemoved(Call call) {
-        for (InCallServiceImpl.ActiveCallListChangedCallback callback :
-                mActiveCallListChangedCallbacks) {
-            callback.onTelecomCallRemoved(call);
+        InCallServiceImpl.ActiveCallListChangedCallback[] callbacks =
+                mActiveCallListChangedCallbacks;
+        for (int i = 0; i < callbacks.length; i++) {
+            callbacks[i].onTelecomCallRemoved(call);
         }
     }
 
+    /**
+     * Registers a callback. It is safe to call from any thread and the callback will receive all
+     * calls added after this method returns. Registering the same callback twice is a no-op.
+     */
     void registerActiveCallListChangedCallback(
             InCallServiceImpl.ActiveCallListChangedCallback callback) {
-        mMainHandler.post(() -> mActiveCallListChangedCallbacks.add(callback));
+        addCallback(callback, /* prioritized= */false);
     }
 
+    /** Unregisters a callback. It is safe to call from any thread. */
     void unregisterActiveCallHandler(InCallServiceImpl.ActiveCallListChangedCallback callback) {
-        mMainHandler.post(() -> mActiveCallListChangedCallbacks.remove(callback));
+        removeCallback(callback);
+    }
+
+    @VisibleForTesting
+    InCallServiceImpl.ActiveCallListChangedCallback[] getActiveCallListChangedCallbacks() {
+        return mActiveCallListChangedCallbacks.clone();
+    }
+
+    private void addCallback(InCallServiceImpl.ActiveCallListChangedCallback callback,
+            boolean prioritized) {
+        synchronized (mCallbackLock) {
+            InCallServiceImpl.ActiveCallListChangedCallback[] current =
+                    mActiveCallListChangedCallbacks;
+            if (indexOf(current, callback) != -1) {
+                return;
+            }
+
+            int insertIndex = prioritized ? mPrioritizedCallbackCount : current.length;
+            InCallServiceImpl.ActiveCallListChangedCallback[] updated =
+                    new InCallServiceImpl.ActiveCallListChangedCallback[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertIndex);
+            updated[insertIndex] = callback;
+            System.arraycopy(current, insertIndex, updated, insertIndex + 1,
+                    current.length - insertIndex);
+            if (prioritized) {
+                mPrioritizedCallbackCount++;
+            }
+            mActiveCallListChangedCallbacks = updated;
+        }
+    }
+
+    private void removeCallback(InCallServiceImpl.ActiveCallListChangedCallback callback) {
+        synchronized (mCallbackLock) {
+            InCallServiceImpl.ActiveCallListChangedCallback[] current =
+                    mActiveCallListChangedCallbacks;
+            int index = indexOf(current, callback);
+            if (index == -1) {
+                return;
+            }
+
+            if (current.length == 1) {
+                mActiveCallListChangedCallbacks = EMPTY_CALLBACKS;
+            } else {
+                InCallServiceImpl.ActiveCallListChangedCallback[] updated =
+                        new InCallServiceImpl.ActiveCallListChangedCallback[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, updated.length - index);
+                mActiveCallListChangedCallbacks = updated;
+            }
+            if (index < mPrioritizedCallbackCount) {
+                mPrioritizedCallbackCount--;
+            }
+        }
+    }
+
+    private static int indexOf(InCallServiceImpl.ActiveCallListChangedCallback[] callbacks,
+            InCallServiceImpl.ActiveCallListChangedCallback callback) {
+        for (int i = 0; i < callbacks.length; i++) {
+            if (callbacks[i] == callback) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /** Dispatches the call to {@link InCallServiceImpl.ActiveCallListChangedCallback}. */
     private boolean routeToActiveCallListChangedCallback(Call call) {
         boolean isHandled = false;
-        for (InCallServiceImpl.ActiveCallListChangedCallback callback :
-                mActiveCallListChangedCallbacks) {
-            if (callback.onTelecomCallAdded(call)) {
+        InCallServiceImpl.ActiveCallListChangedCallback[] callbacks =
+                mActiveCallListChangedCallbacks;
+        for (int i = 0; i < callbacks.length; i++) {
+            if (callbacks[i].onTelecomCallAdded(call)) {
                 isHandled = true;
             }
         }
@@ -23,8 +23,13 @@ import android.telecom.Call;
 import android.telecom.CallAudioState;
 import android.telecom.InCallService;
 
+import com.android.car.dialer.DialerStartup;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.DialerTrace;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -62,6 +67,7 @@ public class InCallServiceImpl extends InCallService {
     @Override
     public void onCreate() {
         super.onCreate();
+        DialerStartup.ensureInitialized(DialerStartup.IN_CALL_NOTIFICATION);
         mInCallRouter = new InCallRouter(getApplicationContext());
         mInCallRouter.start();
     }
@@ -76,6 +82,7 @@ public class InCallServiceImpl extends InCallService {
     @Override
     public void onCallAdded(Call telecomCall) {
         L.d(TAG, "onCallAdded: %s", telecomCall);
+        DialerTrace.RING_TO_IN_CALL_UI.beginAsync(DialerTrace.cookieFor(telecomCall));
 
         for (Callback callback : mCallbacks) {
             callback.onTelecomCallAdded(telecomCall);
@@ -87,6 +94,7 @@ public class InCallServiceImpl extends InCallService {
     @Override
     public void onCallRemoved(Call telecomCall) {
         L.d(TAG, "onCallRemoved: %s", telecomCall);
+        DialerTrace.RING_TO_IN_CALL_UI.cancelAsync(DialerTrace.cookieFor(telecomCall));
         for (Callback callback : mCallbacks) {
             callback.onTelecomCallRemoved(telecomCall);
         }
@@ -118,6 +126,13 @@ public class InCallServiceImpl extends InCallService {
         }
     }
 
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter pw, String[] args) {
+        DialerTrace.dump(pw);
+        DialerMetrics.dump(pw);
+        L.dump(pw);
+    }
+
     public void registerCallback(Callback callback) {
         mCallbacks.add(callback);
     }
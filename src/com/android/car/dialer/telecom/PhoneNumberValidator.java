@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.telephony.common.TelecomUtils;
+import com.android.internal.annotations.GuardedBy;
+import com.android.internal.annotations.VisibleForTesting;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.ValidationResult;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+/**
+ * Checks that a dialed number has a possible length, in an internationalized way. Further
+ * validation on whether the number actually exists is left for the phone carrier.
+ *
+ * <p>Whether a length is possible only depends on the country calling code, so the verdicts of
+ * all lengths are computed in one pass the first time a calling code is seen, and
+ * {@link #preload()} does it for the current region in background, together with loading its
+ * libphonenumber metadata. Verdicts of recently dialed numbers are kept as well, so that
+ * redialing doesn't parse the number again.
+ */
+class PhoneNumberValidator {
+    private static final String TAG = "CD.PhoneNumberValidator";
+    /** The max length of a national significant number, see ITU-T E.164. */
+    @VisibleForTesting
+    static final int MAX_NATIONAL_NUMBER_LENGTH = 17;
+    private static final int RECENT_NUMBER_CACHE_SIZE = 32;
+    private static final DialerMetrics.Counter RECENT_NUMBER_HIT_COUNT =
+            DialerMetrics.counter("PhoneNumberValidator.recentNumberHitCount");
+
+    private final Context mContext;
+    private final LruCache<String, Boolean> mRecentVerdicts =
+            new LruCache<>(RECENT_NUMBER_CACHE_SIZE);
+    /** Whether each national number length is possible, keyed by country calling code. */
+    @GuardedBy("mLengthVerdicts")
+    private final SparseArray<boolean[]> mLengthVerdicts = new SparseArray<>();
+
+    PhoneNumberValidator(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Loads the metadata and computes the length verdicts of the current region. Slow, call on a
+     * background thread.
+     */
+    void preload() {
+        String regionCode = RegionUtils.getRegionCode(mContext);
+        int countryCode = PhoneNumberUtil.getInstance().getCountryCodeForRegion(regionCode);
+        if (countryCode == 0) {
+            L.d(TAG, "Unknown region %s, nothing to preload", regionCode);
+            return;
+        }
+        getLengthVerdicts(countryCode);
+    }
+
+    /** Returns whether the number has a possible length. */
+    boolean isValidNumber(String number) {
+        if (TextUtils.isEmpty(number)) {
+            return false;
+        }
+        Boolean recentVerdict = mRecentVerdicts.get(number);
+        if (recentVerdict != null) {
+            RECENT_NUMBER_HIT_COUNT.increment();
+            return recentVerdict;
+        }
+
+        Phonenumber.PhoneNumber phoneNumber = TelecomUtils.createI18nPhoneNumber(mContext,
+                number);
+        boolean isValid = phoneNumber != null && isPossibleLength(phoneNumber);
+        mRecentVerdicts.put(number, isValid);
+        return isValid;
+    }
+
+    private boolean isPossibleLength(Phonenumber.PhoneNumber phoneNumber) {
+        int length = PhoneNumberUtil.getInstance().getNationalSignificantNumber(phoneNumber)
+                .length();
+        if (length > MAX_NATIONAL_NUMBER_LENGTH) {
+            return isPossibleForAnyType(phoneNumber);
+        }
+        return getLengthVerdicts(phoneNumber.getCountryCode())[length];
+    }
+
+    @NonNull
+    private boolean[] getLengthVerdicts(int countryCode) {
+        synchronized (mLengthVerdicts) {
+            boolean[] lengthVerdicts = mLengthVerdicts.get(countryCode);
+            if (lengthVerdicts == null) {
+                lengthVerdicts = new boolean[MAX_NATIONAL_NUMBER_LENGTH + 1];
+                // A national number of the given length made of a 1 and zeros, libphonenumber
+                // only looks at the length and the calling code.
+                long nationalNumber = 1;
+                for (int length = 1; length <= MAX_NATIONAL_NUMBER_LENGTH; length++) {
+                    lengthVerdicts[length] = isPossibleForAnyType(new Phonenumber.PhoneNumber()
+                            .setCountryCode(countryCode)
+                            .setNationalNumber(nationalNumber));
+                    nationalNumber *= 10;
+                }
+                mLengthVerdicts.put(countryCode, lengthVerdicts);
+            }
+            return lengthVerdicts;
+        }
+    }
+
+    /**
+     * Returns whether the number is neither too short nor too long for at least one number type.
+     * This is the reference the length verdicts are computed with.
+     */
+    @VisibleForTesting
+    static boolean isPossibleForAnyType(Phonenumber.PhoneNumber phoneNumber) {
+        for (PhoneNumberType type : PhoneNumberType.values()) {
+            ValidationResult result =
+                    PhoneNumberUtil.getInstance().isPossibleNumberForTypeWithReason(phoneNumber,
+                            type);
+            if (result != ValidationResult.TOO_SHORT && result != ValidationResult.TOO_LONG) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
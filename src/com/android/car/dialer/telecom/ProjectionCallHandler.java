@@ -20,7 +20,10 @@ import android.bluetooth.BluetoothDevice;
 import android.car.Car;
 import android.car.CarProjectionManager;
 import android.car.projection.ProjectionStatus;
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Parcelable;
@@ -33,7 +36,11 @@ import com.android.car.dialer.log.L;
 import com.android.internal.annotations.VisibleForTesting;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCallback,
         CarProjectionManager.ProjectionStatusListener {
@@ -45,50 +52,86 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
     @VisibleForTesting static final String PROJECTION_STATUS_EXTRA_DEVICE_STATE =
             "android.car.projection.DEVICE_STATE";
 
+    /** Cached value for phone accounts that don't belong to an HFP device. */
+    private static final String NO_HFP_ADDRESS = "";
+
+    private final Context mContext;
     private final CarProjectionManager mCarProjectionManager;
     private final TelecomManager mTelecomManager;
 
-    private int mProjectionState = ProjectionStatus.PROJECTION_STATE_INACTIVE;
-    private List<ProjectionStatus> mProjectionDetails = Collections.emptyList();
+    /**
+     * Suppression decision precomputed from the latest projection status, so that the ringing
+     * path only needs a hash lookup.
+     */
+    private boolean mSuppressAllHfpCalls;
+    private Set<String> mSuppressedBluetoothAddresses = Collections.emptySet();
+    /** Caches the HFP Bluetooth address of phone accounts, {@link #NO_HFP_ADDRESS} if none. */
+    private final Map<PhoneAccountHandle, String> mHfpAddressCache = new HashMap<>();
+
+    private final BroadcastReceiver mPhoneAccountReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            // A handle can be registered again with another address, e.g. for another device.
+            L.d(TAG, "Clearing HFP address cache on %s", intent.getAction());
+            mHfpAddressCache.clear();
+        }
+    };
 
     ProjectionCallHandler(Context context) {
-        this(context.getSystemService(TelecomManager.class),
+        this(context, context.getSystemService(TelecomManager.class),
                 (CarProjectionManager)
                         Car.createCar(context).getCarManager(Car.PROJECTION_SERVICE));
     }
 
     @VisibleForTesting
-    ProjectionCallHandler(TelecomManager telecomManager, CarProjectionManager projectionManager) {
+    ProjectionCallHandler(Context context, TelecomManager telecomManager,
+            CarProjectionManager projectionManager) {
+        mContext = context;
         mTelecomManager = telecomManager;
         mCarProjectionManager = projectionManager;
     }
 
     void start() {
         mCarProjectionManager.registerProjectionStatusListener(this);
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_REGISTERED);
+        intentFilter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_UNREGISTERED);
+        mContext.registerReceiver(mPhoneAccountReceiver, intentFilter);
     }
 
     void stop() {
         mCarProjectionManager.unregisterProjectionStatusListener(this);
+        mContext.unregisterReceiver(mPhoneAccountReceiver);
+        mHfpAddressCache.clear();
     }
 
     @Override
     public void onProjectionStatusChanged(
             int state, String packageName, List<ProjectionStatus> details) {
-        mProjectionState = state;
-        mProjectionDetails = details;
+        mSuppressAllHfpCalls = false;
+        mSuppressedBluetoothAddresses = Collections.emptySet();
+        // Phone accounts might have been re-registered while projection state changed.
+        mHfpAddressCache.clear();
+
+        if (state != ProjectionStatus.PROJECTION_STATE_ACTIVE_BACKGROUND
+                && state != ProjectionStatus.PROJECTION_STATE_ACTIVE_FOREGROUND) {
+            // Nothing's actively projecting, so no need to even check anything else.
+            return;
+        }
+
+        Set<String> suppressedBluetoothAddresses = new HashSet<>();
+        mSuppressAllHfpCalls = collectSuppressedBluetoothAddresses(
+                details, suppressedBluetoothAddresses);
+        mSuppressedBluetoothAddresses = suppressedBluetoothAddresses;
+        L.d(TAG, "Suppress all HFP calls: %s, suppressed addresses: %s", mSuppressAllHfpCalls,
+                mSuppressedBluetoothAddresses);
     }
 
     @Override
     public boolean onTelecomCallAdded(Call telecomCall) {
         L.d(TAG, "onTelecomCallAdded(%s)", telecomCall);
-        if (mProjectionState != ProjectionStatus.PROJECTION_STATE_ACTIVE_BACKGROUND
-                && mProjectionState != ProjectionStatus.PROJECTION_STATE_ACTIVE_FOREGROUND) {
-            // Nothing's actively projecting, so no need to even check anything else.
-            return false;
-        }
-
-        if (mTelecomManager.isInEmergencyCall()) {
-            L.i(TAG, "Not suppressing UI for projection - in emergency call");
+        if (!mSuppressAllHfpCalls && mSuppressedBluetoothAddresses.isEmpty()) {
+            // No projecting app wants to suppress any device.
             return false;
         }
 
@@ -98,7 +141,17 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
             return false;
         }
 
-        return shouldSuppressCallUiForBluetoothDevice(bluetoothAddress);
+        if (!mSuppressAllHfpCalls && !mSuppressedBluetoothAddresses.contains(bluetoothAddress)) {
+            return false;
+        }
+
+        if (mTelecomManager.isInEmergencyCall()) {
+            L.i(TAG, "Not suppressing UI for projection - in emergency call");
+            return false;
+        }
+
+        L.i(TAG, "Suppressing in-call UI for call from %s", bluetoothAddress);
+        return true;
     }
 
     @Override
@@ -114,22 +167,45 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
         }
 
         PhoneAccountHandle accountHandle = details.getAccountHandle();
+        String cachedAddress = mHfpAddressCache.get(accountHandle);
+        if (cachedAddress == null) {
+            cachedAddress = resolveHfpBluetoothAddress(accountHandle);
+            if (accountHandle != null) {
+                mHfpAddressCache.put(accountHandle, cachedAddress);
+            }
+        }
+
+        return NO_HFP_ADDRESS.equals(cachedAddress) ? null : cachedAddress;
+    }
+
+    /**
+     * Returns the HFP Bluetooth address of the given phone account, or {@link #NO_HFP_ADDRESS} if
+     * the account is not registered or not an HFP account.
+     */
+    private String resolveHfpBluetoothAddress(@Nullable PhoneAccountHandle accountHandle) {
         PhoneAccount account = mTelecomManager.getPhoneAccount(accountHandle);
         if (account == null) {
-            return null;
+            return NO_HFP_ADDRESS;
         }
 
         Uri address = account.getAddress();
         if (address == null || !HFP_CLIENT_SCHEME.equals(address.getScheme())) {
-            return null;
+            return NO_HFP_ADDRESS;
         }
 
         return address.getSchemeSpecificPart();
     }
 
-    private boolean shouldSuppressCallUiForBluetoothDevice(String bluetoothAddress) {
-        L.d(TAG, "shouldSuppressCallUiFor(%s)", bluetoothAddress);
-        for (ProjectionStatus status : mProjectionDetails) {
+    /**
+     * Collects the Bluetooth addresses of the devices which are actively projecting by apps
+     * handling the phone UI.
+     *
+     * @return {@code true} if a projecting device doesn't specify a valid Bluetooth address, in
+     * which case calls from all HFP devices should be suppressed.
+     */
+    private static boolean collectSuppressedBluetoothAddresses(List<ProjectionStatus> details,
+            Set<String> suppressedBluetoothAddresses) {
+        for (ProjectionStatus status : details) {
             if (!status.isActive()) {
                 // Don't suppress UI for packages that aren't actively projecting.
                 L.d(TAG, "skip non-projecting package %s", status.getPackageName());
@@ -170,16 +246,16 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
                     L.e(TAG, "Device %s has bad EXTRA_DEVICE value %s - treating as unspecified",
                             device, projectingBluetoothDevice);
                     return true;
-                } else if (bluetoothAddress.equals(
-                        ((BluetoothDevice) projectingBluetoothDevice).getAddress())) {
-                    L.i(TAG, "Suppressing in-call UI - device %s is projecting, and call is coming "
-                            + "from device's Bluetooth address %s", device, bluetoothAddress);
-                    return true;
+                } else {
+                    String bluetoothAddress =
+                            ((BluetoothDevice) projectingBluetoothDevice).getAddress();
+                    L.i(TAG, "Suppressing in-call UI for calls from %s - device %s is projecting",
+                            bluetoothAddress, device);
+                    suppressedBluetoothAddresses.add(bluetoothAddress);
                 }
             }
         }
 
-        // No projecting apps want to suppress this device, so let it through.
         return false;
     }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.content.Context;
+import android.telephony.TelephonyManager;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/** Utility methods for the region dialed numbers are parsed and formatted for. */
+public final class RegionUtils {
+
+    private RegionUtils() {
+    }
+
+    /**
+     * Returns the upper case region code of the current network, or of the default locale when
+     * the network country is unknown.
+     */
+    @NonNull
+    public static String getRegionCode(Context context) {
+        TelephonyManager telephonyManager = context.getSystemService(TelephonyManager.class);
+        String countryIso = telephonyManager == null ? null
+                : telephonyManager.getNetworkCountryIso();
+        if (TextUtils.isEmpty(countryIso)) {
+            countryIso = Locale.getDefault().getCountry();
+        }
+        return countryIso.toUpperCase(Locale.US);
+    }
+}
@@ -18,6 +18,7 @@ package com.android.car.dialer.telecom;
 
 import android.content.Context;
 
+import com.android.car.dialer.livedata.AggregatedBluetoothStateLiveData;
 import com.android.car.dialer.livedata.BluetoothHfpStateLiveData;
 import com.android.car.dialer.livedata.BluetoothPairListLiveData;
 import com.android.car.dialer.livedata.BluetoothStateLiveData;
@@ -35,6 +36,7 @@ public class UiBluetoothMonitor {
     private BluetoothHfpStateLiveData mHfpStateLiveData;
     private BluetoothPairListLiveData mPairListLiveData;
     private BluetoothStateLiveData mBluetoothStateLiveData;
+    private AggregatedBluetoothStateLiveData mAggregatedBluetoothStateLiveData;
 
     /**
      * Initialized a globally accessible {@link UiBluetoothMonitor} which can be retrieved by
@@ -99,4 +101,16 @@ public class UiBluetoothMonitor {
         }
         return mBluetoothStateLiveData;
     }
+
+    /**
+     * Returns a LiveData which folds the Bluetooth, paired device list and HFP states into a
+     * single state, emitting at most once per frame and only on actual changes.
+     */
+    public AggregatedBluetoothStateLiveData getAggregatedBluetoothStateLiveData() {
+        if (mAggregatedBluetoothStateLiveData == null) {
+            mAggregatedBluetoothStateLiveData = new AggregatedBluetoothStateLiveData(
+                    getBluetoothStateLiveData(), getPairListLiveData(), getHfpStateLiveData());
+        }
+        return mAggregatedBluetoothStateLiveData;
+    }
 }
@@ -18,7 +18,6 @@ package com.android.car.dialer.telecom;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothHeadsetClient;
-import android.bluetooth.BluetoothHeadsetClientCall;
 import android.bluetooth.BluetoothProfile;
 import android.content.ComponentName;
 import android.content.Context;
@@ -35,16 +34,14 @@ import android.telecom.TelecomManager;
 import android.text.TextUtils;
 import android.widget.Toast;
 
+import androidx.annotation.Nullable;
+
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.widget.WorkerExecutor;
 import com.android.car.telephony.common.TelecomUtils;
 import com.android.internal.annotations.VisibleForTesting;
 
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
-import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
-import com.google.i18n.phonenumbers.PhoneNumberUtil.ValidationResult;
-import com.google.i18n.phonenumbers.Phonenumber;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -65,6 +62,14 @@ public class UiCallManager {
     private TelecomManager mTelecomManager;
     private InCallServiceImpl mInCallService;
     private BluetoothHeadsetClient mBluetoothHeadsetClient;
+    private AudioRouteStateHolder mAudioRouteStateHolder;
+    private PhoneNumberValidator mPhoneNumberValidator;
+
+    /** Listens to changes of the audio route and the supported audio routes. */
+    public interface OnAudioRouteChangedListener {
+        /** Called on the main thread when the audio routing state might have changed. */
+        void onAudioRouteChanged();
+    }
 
     /**
      * Initialized a globally accessible {@link UiCallManager} which can be retrieved by
@@ -94,6 +99,11 @@ public class UiCallManager {
         return sUiCallManager;
     }
 
+    /** Returns whether {@link #init(Context)} has been called and not torn down since. */
+    public static boolean isInitialized() {
+        return sUiCallManager != null;
+    }
+
     /**
      * This is used only for testing
      */
@@ -107,6 +117,12 @@ public class UiCallManager {
         mContext = context;
 
         mTelecomManager = (TelecomManager) context.getSystemService(Context.TELECOM_SERVICE);
+        mPhoneNumberValidator = new PhoneNumberValidator(context);
+        // Loads the phone number metadata before the user presses call.
+        WorkerExecutor.getInstance().submit(WorkerExecutor.Lane.BACKGROUND,
+                cancellationToken -> mPhoneNumberValidator.preload());
+        mAudioRouteStateHolder = new AudioRouteStateHolder(context, mTelecomManager);
+        mAudioRouteStateHolder.start();
         Intent intent = new Intent(context, InCallServiceImpl.class);
         intent.setAction(InCallServiceImpl.ACTION_LOCAL_BIND);
         context.bindService(intent, mInCallServiceConnection, Context.BIND_AUTO_CREATE);
@@ -118,11 +134,21 @@ public class UiCallManager {
                 public void onServiceConnected(int profile, BluetoothProfile proxy) {
                     if (profile == BluetoothProfile.HEADSET_CLIENT) {
                         mBluetoothHeadsetClient = (BluetoothHeadsetClient) proxy;
+                        if (mAudioRouteStateHolder != null) {
+                            mAudioRouteStateHolder.setBluetoothHeadsetClient(
+                                    mBluetoothHeadsetClient);
+                        }
                     }
                 }
 
                 @Override
                 public void onServiceDisconnected(int profile) {
+                    if (profile == BluetoothProfile.HEADSET_CLIENT) {
+                        mBluetoothHeadsetClient = null;
+                        if (mAudioRouteStateHolder != null) {
+                            mAudioRouteStateHolder.setBluetoothHeadsetClient(null);
+                        }
+                    }
                 }
             }, BluetoothProfile.HEADSET_CLIENT);
         }
@@ -134,12 +160,18 @@ public class UiCallManager {
         public void onServiceConnected(ComponentName name, IBinder binder) {
             L.d(TAG, "onServiceConnected: %s, service: %s", name, binder);
             mInCallService = ((InCallServiceImpl.LocalBinder) binder).getService();
+            if (mAudioRouteStateHolder != null) {
+                mAudioRouteStateHolder.setInCallService(mInCallService);
+            }
         }
 
         @Override
         public void onServiceDisconnected(ComponentName name) {
             L.d(TAG, "onServiceDisconnected: %s", name);
             mInCallService = null;
+            if (mAudioRouteStateHolder != null) {
+                mAudioRouteStateHolder.setInCallService(null);
+            }
         }
     };
 
@@ -149,6 +181,10 @@ public class UiCallManager {
      * {@link UiCallManager}.
      */
     public void tearDown() {
+        if (mAudioRouteStateHolder != null) {
+            mAudioRouteStateHolder.stop();
+            mAudioRouteStateHolder = null;
+        }
         if (mInCallService != null) {
             mContext.unbindService(mInCallServiceConnection);
             mInCallService = null;
@@ -212,14 +248,16 @@ public class UiCallManager {
     }
 
     public boolean isBluetoothCall() {
-        PhoneAccountHandle phoneAccountHandle =
-                mTelecomManager.getUserSelectedOutgoingPhoneAccount();
-        if (phoneAccountHandle != null && phoneAccountHandle.getComponentName() != null) {
-            return HFP_CLIENT_CONNECTION_SERVICE_CLASS_NAME.equals(
-                    phoneAccountHandle.getComponentName().getClassName());
-        } else {
-            return false;
-        }
+        return getAudioRouteState().isBluetoothCall();
+    }
+
+    /**
+     * Returns the connected HFP device, preferring the one with the active call, or {@code null}
+     * if no phone is connected.
+     */
+    @Nullable
+    public BluetoothDevice getHfpDevice() {
+        return getAudioRouteState().getActiveHfpDevice();
     }
 
     /**
@@ -227,14 +265,9 @@ public class UiCallManager {
      * The available routes are defined in {@link CallAudioState}.
      */
     public int getAudioRoute() {
-        if (isBluetoothCall()
-                && mBluetoothHeadsetClient != null
-                && !mBluetoothHeadsetClient.getConnectedDevices().isEmpty()) {
-            // TODO: Make this handle multiple devices
-            BluetoothDevice device = mBluetoothHeadsetClient.getConnectedDevices().get(0);
-            int audioState = mBluetoothHeadsetClient.getAudioState(device);
-
-            if (audioState == BluetoothHeadsetClient.STATE_AUDIO_CONNECTED) {
+        AudioRouteStateHolder.AudioRouteState audioRouteState = getAudioRouteState();
+        if (audioRouteState.isBluetoothCall() && audioRouteState.hasConnectedHfpDevice()) {
+            if (audioRouteState.isHfpAudioConnected()) {
                 return CallAudioState.ROUTE_BLUETOOTH;
             } else {
                 return CallAudioState.ROUTE_EARPIECE;
@@ -251,22 +284,50 @@ public class UiCallManager {
      * Re-route the audio out phone of the ongoing phone call.
      */
     public void setAudioRoute(@CallAudioRoute int audioRoute) {
-        if (mBluetoothHeadsetClient != null && isBluetoothCall()) {
-            for (BluetoothDevice device : mBluetoothHeadsetClient.getConnectedDevices()) {
-                List<BluetoothHeadsetClientCall> currentCalls =
-                        mBluetoothHeadsetClient.getCurrentCalls(device);
-                if (currentCalls != null && !currentCalls.isEmpty()) {
-                    if (audioRoute == CallAudioState.ROUTE_BLUETOOTH) {
-                        mBluetoothHeadsetClient.connectAudio(device);
-                    } else if ((audioRoute & CallAudioState.ROUTE_WIRED_OR_EARPIECE) != 0) {
-                        mBluetoothHeadsetClient.disconnectAudio(device);
-                    }
-                }
+        AudioRouteStateHolder.AudioRouteState audioRouteState = getAudioRouteState();
+        if (mBluetoothHeadsetClient != null && audioRouteState.isBluetoothCall()
+                && audioRouteState.hasActiveHfpCall()) {
+            // Only the device that owns the active call is re-routed.
+            BluetoothDevice device = audioRouteState.getActiveHfpDevice();
+            if (audioRoute == CallAudioState.ROUTE_BLUETOOTH) {
+                mBluetoothHeadsetClient.connectAudio(device);
+            } else if ((audioRoute & CallAudioState.ROUTE_WIRED_OR_EARPIECE) != 0) {
+                mBluetoothHeadsetClient.disconnectAudio(device);
             }
         }
         // TODO: Implement routing audio if current call is not a bluetooth call.
     }
 
+    /**
+     * Adds a listener which is notified when the audio route or the supported audio routes might
+     * have changed. The state is cached and only refreshed on these changes, so listeners should
+     * prefer re-reading {@link #getAudioRoute()} over polling.
+     */
+    public void addOnAudioRouteChangedListener(OnAudioRouteChangedListener listener) {
+        if (mAudioRouteStateHolder != null) {
+            mAudioRouteStateHolder.addListener(listener);
+        }
+    }
+
+    /** Removes a listener added by {@link #addOnAudioRouteChangedListener}. */
+    public void removeOnAudioRouteChangedListener(OnAudioRouteChangedListener listener) {
+        if (mAudioRouteStateHolder != null) {
+            mAudioRouteStateHolder.removeListener(listener);
+        }
+    }
+
+    @VisibleForTesting
+    AudioRouteStateHolder getAudioRouteStateHolder() {
+        return mAudioRouteStateHolder;
+    }
+
+    /** Returns the audio route state, which is empty once torn down for late callers. */
+    private AudioRouteStateHolder.AudioRouteState getAudioRouteState() {
+        AudioRouteStateHolder audioRouteStateHolder = mAudioRouteStateHolder;
+        return audioRouteStateHolder != null ? audioRouteStateHolder.getAudioRouteState()
+                : AudioRouteStateHolder.AudioRouteState.EMPTY;
+    }
+
     private CallAudioState getCallAudioStateOrNull() {
         return mInCallService != null ? mInCallService.getCallAudioState() : null;
     }
@@ -277,7 +338,7 @@ public class UiCallManager {
      * @return {@code true} if a call is successfully placed, false if number is invalid.
      */
     public boolean placeCall(String number) {
-        if (isValidNumber(number)) {
+        if (mPhoneNumberValidator.isValidNumber(number)) {
             Uri uri = Uri.fromParts("tel", number, null);
             L.d(TAG, "android.telecom.TelecomManager#placeCall: %s", number);
             mTelecomManager.placeCall(uri, null);
@@ -290,27 +351,6 @@ public class UiCallManager {
         }
     }
 
-    /**
-     * Runs basic validation check of a phone number, to verify it is the correct length
-     * in an internationalized way. Further validation on whether the number actually exists
-     * is left for the phone carrier.
-     */
-    private boolean isValidNumber(String number) {
-        Phonenumber.PhoneNumber phoneNumber = TelecomUtils.createI18nPhoneNumber(mContext,
-                number);
-        if (phoneNumber != null) {
-            for (PhoneNumberType type : PhoneNumberType.values()) {
-                ValidationResult result =
-                        PhoneNumberUtil.getInstance().isPossibleNumberForTypeWithReason(phoneNumber,
-                                type);
-                if (result != ValidationResult.TOO_SHORT && result != ValidationResult.TOO_LONG) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     public void callVoicemail() {
         L.d(TAG, "callVoicemail");
 
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.bluetooth.BluetoothHeadsetClient;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.telecom.PhoneAccountHandle;
+import android.telecom.TelecomManager;
+import android.telephony.CarrierConfigManager;
+import android.telephony.PhoneNumberUtils;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.widget.WorkerExecutor;
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Caches the voicemail numbers of the active subscriptions and phone accounts, so that checking
+ * whether a number is a voicemail number doesn't go through telephony for every call log row.
+ *
+ * <p>The numbers are kept normalized and reloaded in background when the SIM, the carrier config
+ * or the phone accounts, e.g. of a connected HFP phone, change.
+ */
+public class VoicemailNumberCache {
+    private static final String TAG = "CD.VoicemailNumberCache";
+    /** Sent when the SIM state changes, see {@code TelephonyIntents}. */
+    private static final String ACTION_SIM_STATE_CHANGED =
+            "android.intent.action.SIM_STATE_CHANGED";
+    private static final DialerMetrics.Counter REFRESH_COUNT =
+            DialerMetrics.counter("VoicemailNumberCache.refreshCount");
+
+    private static VoicemailNumberCache sVoicemailNumberCache;
+
+    private final Context mContext;
+    /** The normalized voicemail numbers, or {@code null} until first loaded. */
+    private volatile Set<String> mNormalizedNumbers;
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            L.d(TAG, "Refreshing on %s", intent.getAction());
+            if (WorkerExecutor.getInstance().submit(WorkerExecutor.Lane.BACKGROUND,
+                    cancellationToken -> refresh()).isCancelled()) {
+                // The lane is full, drop the stale numbers so that the next check reloads them.
+                mNormalizedNumbers = null;
+            }
+        }
+    };
+
+    /** Returns the cache of the application, creating it on first call. */
+    public static synchronized VoicemailNumberCache get(Context context) {
+        if (sVoicemailNumberCache == null) {
+            sVoicemailNumberCache = new VoicemailNumberCache(context.getApplicationContext());
+        }
+        return sVoicemailNumberCache;
+    }
+
+    @VisibleForTesting
+    VoicemailNumberCache(Context applicationContext) {
+        mContext = applicationContext;
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(ACTION_SIM_STATE_CHANGED);
+        intentFilter.addAction(CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED);
+        intentFilter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_REGISTERED);
+        intentFilter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_UNREGISTERED);
+        intentFilter.addAction(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED);
+        mContext.registerReceiver(mReceiver, intentFilter);
+    }
+
+    /**
+     * Returns whether the number is the voicemail number of any active subscription or phone
+     * account. The first call loads the numbers on the calling thread.
+     */
+    public boolean isVoicemailNumber(@Nullable String number) {
+        if (TextUtils.isEmpty(number)) {
+            return false;
+        }
+        Set<String> normalizedNumbers = mNormalizedNumbers;
+        if (normalizedNumbers == null) {
+            normalizedNumbers = refresh();
+        }
+        return !normalizedNumbers.isEmpty()
+                && normalizedNumbers.contains(PhoneNumberUtils.normalizeNumber(number));
+    }
+
+    /** Stops listening to changes and drops the cache of the application. */
+    public static synchronized void tearDown() {
+        if (sVoicemailNumberCache != null) {
+            sVoicemailNumberCache.mContext.unregisterReceiver(sVoicemailNumberCache.mReceiver);
+            sVoicemailNumberCache = null;
+        }
+    }
+
+    /** Reloads the voicemail numbers and returns them. */
+    @VisibleForTesting
+    Set<String> refresh() {
+        REFRESH_COUNT.increment();
+        Set<String> normalizedNumbers = new HashSet<>();
+        try {
+            TelephonyManager telephonyManager = mContext.getSystemService(TelephonyManager.class);
+            if (telephonyManager != null) {
+                addNumber(normalizedNumbers, telephonyManager.getVoiceMailNumber());
+                SubscriptionManager subscriptionManager =
+                        mContext.getSystemService(SubscriptionManager.class);
+                List<SubscriptionInfo> subscriptions = subscriptionManager == null ? null
+                        : subscriptionManager.getActiveSubscriptionInfoList();
+                if (subscriptions != null) {
+                    for (SubscriptionInfo subscription : subscriptions) {
+                        addNumber(normalizedNumbers, telephonyManager.createForSubscriptionId(
+                                subscription.getSubscriptionId()).getVoiceMailNumber());
+                    }
+                }
+            }
+
+            TelecomManager telecomManager = mContext.getSystemService(TelecomManager.class);
+            if (telecomManager != null) {
+                for (PhoneAccountHandle phoneAccountHandle :
+                        telecomManager.getCallCapablePhoneAccounts()) {
+                    addNumber(normalizedNumbers,
+                            telecomManager.getVoiceMailNumber(phoneAccountHandle));
+                }
+            }
+        } catch (SecurityException e) {
+            L.w(TAG, "No permission to read the voicemail numbers: %s", e);
+        }
+
+        Set<String> result = Collections.unmodifiableSet(normalizedNumbers);
+        mNormalizedNumbers = result;
+        return result;
+    }
+
+    private static void addNumber(Set<String> normalizedNumbers, @Nullable String number) {
+        if (!TextUtils.isEmpty(number)) {
+            normalizedNumbers.add(PhoneNumberUtils.normalizeNumber(number));
+        }
+    }
+}
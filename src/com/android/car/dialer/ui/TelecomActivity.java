@@ -21,12 +21,16 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.telecom.Call;
 import android.telephony.PhoneNumberUtils;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.Toolbar;
 
 import androidx.annotation.NonNull;
@@ -41,9 +45,11 @@ import androidx.preference.PreferenceManager;
 import com.android.car.apps.common.util.Themes;
 import com.android.car.apps.common.widget.CarTabLayout;
 import com.android.car.dialer.Constants;
+import com.android.car.dialer.DialerStartup;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
 import com.android.car.dialer.notification.NotificationService;
+import com.android.car.dialer.perf.DialerTrace;
 import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.dialer.ui.activecall.InCallActivity;
 import com.android.car.dialer.ui.activecall.InCallViewModel;
@@ -56,7 +62,9 @@ import com.android.car.dialer.ui.search.ContactResultsFragment;
 import com.android.car.dialer.ui.settings.DialerSettingsActivity;
 import com.android.car.dialer.ui.warning.NoHfpFragment;
 
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Queue;
 
 /**
  * Main activity for the Dialer app. It contains two layers:
@@ -82,11 +90,17 @@ public class TelecomActivity extends FragmentActivity implements
     private TelecomPageTab.Factory mTabFactory;
     private Toolbar mToolbar;
     private View mToolbarContainer;
+    private TabPreloader mTabPreloader;
+    /** Whether a tab is being selected by the app rather than by the user. */
+    private boolean mSelectingTabProgrammatically;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        // Restored fragments may use the components in super.onCreate().
+        DialerStartup.ensureInitialized(DialerStartup.UI_COMPONENTS);
         super.onCreate(savedInstanceState);
         L.d(TAG, "onCreate");
+        DialerTrace.LAUNCH_TO_FIRST_LIST.beginAsync(DialerTrace.SINGLETON_COOKIE);
         setContentView(R.layout.telecom_activity);
 
         mToolbar = findViewById(R.id.car_toolbar);
@@ -127,6 +141,14 @@ public class TelecomActivity extends FragmentActivity implements
         getSupportFragmentManager().removeOnBackStackChangedListener(this);
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (mTabPreloader != null) {
+            mTabPreloader.stop();
+        }
+    }
+
     @Override
     protected void onNewIntent(Intent i) {
         super.onNewIntent(i);
@@ -263,8 +285,10 @@ public class TelecomActivity extends FragmentActivity implements
     private void setupTabLayout() {
         mTabLayout = findViewById(R.id.tab_layout);
 
-        boolean hasContentFragment = false;
+        int startTabIndex = -1;
 
+        // Only the fragment of the starting tab is created here, the others when first selected
+        // or by the TabPreloader once the activity is idle.
         mTabFactory = new TelecomPageTab.Factory(this, getSupportFragmentManager());
         for (int i = 0; i < mTabFactory.getTabCount(); i++) {
             TelecomPageTab telecomPageTab = mTabFactory.createTab(getBaseContext(), i);
@@ -272,13 +296,13 @@ public class TelecomActivity extends FragmentActivity implements
 
             if (telecomPageTab.wasFragmentRestored()) {
                 mTabLayout.selectCarTab(i);
-                hasContentFragment = true;
+                startTabIndex = i;
             }
         }
 
         // Select the starting tab and set up the fragment for it.
-        if (!hasContentFragment) {
-            int startTabIndex = getTabFromSharedPreference();
+        if (startTabIndex == -1) {
+            startTabIndex = getTabFromSharedPreference();
             TelecomPageTab startTab = mTabLayout.get(startTabIndex);
             mTabLayout.selectCarTab(startTabIndex);
             setContentFragment(startTab.getFragment(), startTab.getFragmentTag());
@@ -288,10 +312,18 @@ public class TelecomActivity extends FragmentActivity implements
                 new CarTabLayout.SimpleOnCarTabSelectedListener<TelecomPageTab>() {
                     @Override
                     public void onCarTabSelected(TelecomPageTab telecomPageTab) {
+                        // Only the tabs the user picks order the preloading.
+                        if (!mSelectingTabProgrammatically) {
+                            mTabFactory.recordTabSelected(
+                                    mTabFactory.getTabIndex(telecomPageTab.getPage()));
+                        }
                         Fragment fragment = telecomPageTab.getFragment();
                         setContentFragment(fragment, telecomPageTab.getFragmentTag());
                     }
                 });
+
+        mTabPreloader = new TabPreloader(mTabFactory.getPreloadOrder(startTabIndex));
+        mTabPreloader.start();
     }
 
     /** Switch to {@link DialpadFragment} and set the given number as dialed number. */
@@ -322,7 +354,12 @@ public class TelecomActivity extends FragmentActivity implements
             getSupportFragmentManager().popBackStackImmediate();
         }
 
-        mTabLayout.selectCarTab(tabIndex);
+        mSelectingTabProgrammatically = true;
+        try {
+            mTabLayout.selectCarTab(tabIndex);
+        } finally {
+            mSelectingTabProgrammatically = false;
+        }
         return tabIndex;
     }
 
@@ -425,6 +462,62 @@ public class TelecomActivity extends FragmentActivity implements
         return mTabFactory.getTabIndex(sharedPreferences.getString(key, defaultValue));
     }
 
+    /**
+     * Preloads the tabs which haven't been selected yet, one per idle pass of the main thread after
+     * the first frame is drawn, so that switching tabs later is quicker without delaying the first
+     * frame. Creating the fragment of a tab is cheap, the cost of showing it is mostly inflating
+     * its layouts, so those are inflated and dropped to load their view classes and resources.
+     */
+    private class TabPreloader implements ViewTreeObserver.OnDrawListener,
+            MessageQueue.IdleHandler {
+        private final View mDecorView = getWindow().getDecorView();
+        private final Queue<Integer> mTabIndexes;
+        private boolean mDrawn;
+
+        private TabPreloader(List<Integer> tabIndexes) {
+            mTabIndexes = new ArrayDeque<>(tabIndexes);
+        }
+
+        private void start() {
+            mDecorView.getViewTreeObserver().addOnDrawListener(this);
+        }
+
+        private void stop() {
+            mTabIndexes.clear();
+            mDecorView.getViewTreeObserver().removeOnDrawListener(this);
+            Looper.myQueue().removeIdleHandler(this);
+        }
+
+        @Override
+        public void onDraw() {
+            if (mDrawn) {
+                return;
+            }
+            mDrawn = true;
+            // Draw listeners can't be removed while they are being dispatched.
+            mDecorView.post(() -> mDecorView.getViewTreeObserver().removeOnDrawListener(this));
+            Looper.myQueue().addIdleHandler(this);
+        }
+
+        @Override
+        public boolean queueIdle() {
+            Integer tabIndex = mTabIndexes.poll();
+            if (tabIndex == null || isDestroyed()) {
+                return false;
+            }
+            TelecomPageTab telecomPageTab = mTabLayout.get(tabIndex);
+            if (!telecomPageTab.hasFragment()) {
+                L.d(TAG, "Preloading tab %s", telecomPageTab.getPage());
+                telecomPageTab.getFragment();
+                ViewGroup container = findViewById(R.id.content_fragment_container);
+                for (int layoutResId : mTabFactory.getPreloadLayouts(telecomPageTab.getPage())) {
+                    getLayoutInflater().inflate(layoutResId, container, false);
+                }
+            }
+            return !mTabIndexes.isEmpty();
+        }
+    }
+
     /** Sets the background of the Activity's action bar to a {@link Drawable} */
     public void setActionBarBackground(@Nullable Drawable drawable) {
         if (mToolbarContainer != null) {
@@ -19,8 +19,6 @@ package com.android.car.dialer.ui;
 import android.annotation.IntDef;
 import android.app.Application;
 import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothProfile;
 import android.content.Context;
 
 import androidx.lifecycle.AndroidViewModel;
@@ -29,15 +27,12 @@ import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.android.car.dialer.R;
-import com.android.car.dialer.livedata.BluetoothHfpStateLiveData;
-import com.android.car.dialer.livedata.BluetoothPairListLiveData;
-import com.android.car.dialer.livedata.BluetoothStateLiveData;
+import com.android.car.dialer.livedata.AggregatedBluetoothStateLiveData;
 import com.android.car.dialer.log.L;
 import com.android.car.dialer.telecom.UiBluetoothMonitor;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.Set;
 
 /**
  * View model for {@link TelecomActivity}.
@@ -76,9 +71,7 @@ public class TelecomActivityViewModel extends AndroidViewModel {
             UiBluetoothMonitor uiBluetoothMonitor = UiBluetoothMonitor.get();
             mErrorStringLiveData = new ErrorStringLiveData(
                     mApplicationContext,
-                    uiBluetoothMonitor.getHfpStateLiveData(),
-                    uiBluetoothMonitor.getPairListLiveData(),
-                    uiBluetoothMonitor.getBluetoothStateLiveData());
+                    uiBluetoothMonitor.getAggregatedBluetoothStateLiveData());
         }
 
         mDialerAppStateLiveData = new DialerAppStateLiveData(mErrorStringLiveData);
@@ -135,77 +128,32 @@ public class TelecomActivityViewModel extends AndroidViewModel {
     }
 
     private static class ErrorStringLiveData extends MediatorLiveData<String> {
-        private LiveData<Integer> mHfpStateLiveData;
-        private LiveData<Set<BluetoothDevice>> mPairedListLiveData;
-        private LiveData<Integer> mBluetoothStateLiveData;
-
-        private Context mContext;
+        private final Context mContext;
 
         ErrorStringLiveData(Context context,
-                BluetoothHfpStateLiveData hfpStateLiveData,
-                BluetoothPairListLiveData pairListLiveData,
-                BluetoothStateLiveData bluetoothStateLiveData) {
+                AggregatedBluetoothStateLiveData aggregatedBluetoothStateLiveData) {
             mContext = context;
-            mHfpStateLiveData = hfpStateLiveData;
-            mPairedListLiveData = pairListLiveData;
-            mBluetoothStateLiveData = bluetoothStateLiveData;
             setValue(NO_BT_ERROR);
 
-            addSource(hfpStateLiveData, this::onHfpStateChanged);
-            addSource(pairListLiveData, this::onPairListChanged);
-            addSource(bluetoothStateLiveData, this::onBluetoothStateChanged);
-        }
-
-        private void onHfpStateChanged(Integer state) {
-            update();
-        }
-
-        private void onPairListChanged(Set<BluetoothDevice> pairedDevices) {
-            update();
-        }
-
-        private void onBluetoothStateChanged(Integer state) {
-            update();
+            addSource(aggregatedBluetoothStateLiveData, this::update);
         }
 
-        private void update() {
-            boolean isBluetoothEnabled = isBluetoothEnabled();
-            boolean hasPairedDevices = hasPairedDevices();
-            boolean isHfpConnected = isHfpConnected();
-            L.d(TAG, "Update error string."
-                            + " isBluetoothEnabled: %s"
-                            + " hasPairedDevices: %s"
-                            + " isHfpConnected: %s",
-                    isBluetoothEnabled,
-                    hasPairedDevices,
-                    isHfpConnected);
-            if (!isBluetoothEnabled) {
-                setValue(mContext.getString(R.string.bluetooth_disabled));
-            } else if (!hasPairedDevices) {
-                setValue(mContext.getString(R.string.bluetooth_unpaired));
-            } else if (!isHfpConnected) {
-                setValue(mContext.getString(R.string.no_hfp));
+        private void update(AggregatedBluetoothStateLiveData.State state) {
+            L.d(TAG, "Update error string. %s", state);
+            String errorString;
+            if (!state.isBluetoothEnabled()) {
+                errorString = mContext.getString(R.string.bluetooth_disabled);
+            } else if (!state.hasPairedDevices()) {
+                errorString = mContext.getString(R.string.bluetooth_unpaired);
+            } else if (!state.isHfpConnected()) {
+                errorString = mContext.getString(R.string.no_hfp);
             } else {
-                if (!NO_BT_ERROR.equals(getValue())) {
-                    setValue(NO_BT_ERROR);
-                }
+                errorString = NO_BT_ERROR;
             }
-        }
-
-        private boolean isHfpConnected() {
-            Integer hfpState = mHfpStateLiveData.getValue();
-            return hfpState == null || hfpState == BluetoothProfile.STATE_CONNECTED;
-        }
 
-        private boolean isBluetoothEnabled() {
-            Integer bluetoothState = mBluetoothStateLiveData.getValue();
-            return bluetoothState == null
-                    || bluetoothState != BluetoothStateLiveData.BluetoothState.DISABLED;
-        }
-
-        private boolean hasPairedDevices() {
-            Set<BluetoothDevice> pairedDevices = mPairedListLiveData.getValue();
-            return pairedDevices == null || !pairedDevices.isEmpty();
+            if (!errorString.equals(getValue())) {
+                setValue(errorString);
+            }
         }
     }
 }
@@ -17,6 +17,7 @@
 package com.android.car.dialer.ui;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.graphics.drawable.Drawable;
 
 import androidx.annotation.Nullable;
@@ -33,10 +34,12 @@ import com.android.car.dialer.ui.favorite.FavoriteFragment;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-/** Tab presenting fragments. */
+/** Tab presenting fragments. The fragment of a tab is created when first needed. */
 public class TelecomPageTab extends CarTabLayout.CarTab {
 
     /** Note: the strings must be consist with the items in string array tabs_config */
@@ -54,6 +57,7 @@ public class TelecomPageTab extends CarTabLayout.CarTab {
     }
 
     private final Factory mFactory;
+    private String mPage;
     private Fragment mFragment;
     private String mFragmentTag;
     private boolean mWasFragmentRestored;
@@ -64,17 +68,14 @@ public class TelecomPageTab extends CarTabLayout.CarTab {
     }
 
     /**
-     * Either restore fragment from saved state or create new instance.
+     * Restores the fragment from saved state if there is one. Otherwise the fragment is created
+     * by {@link #getFragment()}.
      */
     private void initFragment(FragmentManager fragmentManager, @Page String page) {
+        mPage = page;
         mFragmentTag = makeFragmentTag(page);
         mFragment = fragmentManager.findFragmentByTag(mFragmentTag);
-        if (mFragment == null) {
-            mFragment = mFactory.createFragment(page);
-            mWasFragmentRestored = false;
-            return;
-        }
-        mWasFragmentRestored = true;
+        mWasFragmentRestored = mFragment != null;
     }
 
     /** Returns true if the fragment for this tab is restored from a saved state. */
@@ -82,11 +83,25 @@ public class TelecomPageTab extends CarTabLayout.CarTab {
         return mWasFragmentRestored;
     }
 
-    /** Returns the fragment for this tab. */
+    /** Returns the fragment for this tab, creating it on first call. */
     public Fragment getFragment() {
+        if (mFragment == null) {
+            mFragment = mFactory.createFragment(mPage);
+        }
         return mFragment;
     }
 
+    /** Returns true if the fragment for this tab has been restored or created. */
+    public boolean hasFragment() {
+        return mFragment != null;
+    }
+
+    /** Returns the page of this tab. */
+    @Page
+    public String getPage() {
+        return mPage;
+    }
+
     /** Returns the fragment tag for this tab. */
     public String getFragmentTag() {
         return mFragmentTag;
@@ -98,6 +113,7 @@ public class TelecomPageTab extends CarTabLayout.CarTab {
 
     /** Responsible for creating the top tab items and their fragments. */
     public static class Factory {
+        private static final String TAB_USAGE_PREFERENCES = "tab_usage";
 
         private static final ImmutableMap<String, Integer> TAB_LABELS =
                 ImmutableMap.<String, Integer>builder()
@@ -115,12 +131,29 @@ public class TelecomPageTab extends CarTabLayout.CarTab {
                         .put(Page.DIAL_PAD, R.drawable.ic_dialpad)
                         .build();
 
+        /**
+         * Layouts inflated when the tab is shown, which can be inflated ahead of time. Layouts
+         * with {@code <fragment>} tags are left out as inflating them would add the fragments.
+         */
+        private static final ImmutableMap<String, int[]> TAB_PRELOAD_LAYOUTS =
+                ImmutableMap.<String, int[]>builder()
+                        .put(Page.FAVORITES, new int[]{
+                                R.layout.list_fragment, R.layout.favorite_contact_list_item})
+                        .put(Page.CALL_HISTORY, new int[]{
+                                R.layout.list_fragment, R.layout.call_history_list_item})
+                        .put(Page.CONTACTS, new int[]{
+                                R.layout.list_fragment, R.layout.contact_list_item})
+                        .put(Page.DIAL_PAD, new int[]{R.layout.keypad})
+                        .build();
+
         private final FragmentManager mFragmentManager;
         private final Map<String, Integer> mTabPageIndexMap;
         private final String[] mTabs;
+        private final SharedPreferences mTabUsage;
 
         public Factory(Context context, FragmentManager fragmentManager) {
             mFragmentManager = fragmentManager;
+            mTabUsage = context.getSharedPreferences(TAB_USAGE_PREFERENCES, Context.MODE_PRIVATE);
 
             mTabs = context.getResources().getStringArray(R.array.tabs_config);
 
@@ -161,5 +194,33 @@ public class TelecomPageTab extends CarTabLayout.CarTab {
         public int getTabIndex(@Page String page) {
             return mTabPageIndexMap.containsKey(page) ? mTabPageIndexMap.get(page) : -1;
         }
+
+        /** Returns the layouts of the page that can be inflated before the tab is shown. */
+        public int[] getPreloadLayouts(@Page String page) {
+            return TAB_PRELOAD_LAYOUTS.containsKey(page) ? TAB_PRELOAD_LAYOUTS.get(page).clone()
+                    : new int[0];
+        }
+
+        /** Counts a selection of the tab by the user, used to order {@link #getPreloadOrder}. */
+        public void recordTabSelected(int tabIndex) {
+            String page = mTabs[tabIndex];
+            mTabUsage.edit().putInt(page, mTabUsage.getInt(page, 0) + 1).apply();
+        }
+
+        /**
+         * Returns the indexes of the tabs other than the start tab, most selected first. Tabs
+         * selected equally often keep their tab order.
+         */
+        public List<Integer> getPreloadOrder(int startTabIndex) {
+            List<Integer> tabIndexes = new ArrayList<>();
+            for (int i = 0; i < getTabCount(); i++) {
+                if (i != startTabIndex) {
+                    tabIndexes.add(i);
+                }
+            }
+            tabIndexes.sort((first, second) -> Integer.compare(
+                    mTabUsage.getInt(mTabs[second], 0), mTabUsage.getInt(mTabs[first], 0)));
+            return tabIndexes;
+        }
     }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.activecall;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.telecom.Call;
+import android.telecom.TelecomManager;
+import android.telephony.PhoneNumberUtils;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.dialer.log.L;
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Sends a sequence of DTMF tones over a call, e.g. a conference PIN. A
+ * {@link TelecomManager#DTMF_CHARACTER_PAUSE} pauses the sequence for {@link #PAUSE_MS}, and a
+ * {@link TelecomManager#DTMF_CHARACTER_WAIT} holds it until {@link #continueSequence()}.
+ *
+ * <p>Tones are paced with delayed messages on the main thread rather than by sleeping, and each
+ * digit is only sent once the previous tone has stopped, so a busy main thread delays the
+ * sequence without dropping digits. The sequence is cancelled when its call disconnects or is put
+ * on hold, and {@link #cancelUnlessSentOver} cancels it when another call becomes the primary one.
+ * All methods must be called on the main thread.
+ */
+public class DtmfSequencer {
+    private static final String TAG = "CD.DtmfSequencer";
+    @VisibleForTesting
+    static final long TONE_MS = 200;
+    @VisibleForTesting
+    static final long TONE_GAP_MS = 100;
+    /** The length of a pause, as used by telephony for GSM calls. */
+    @VisibleForTesting
+    static final long PAUSE_MS = 3000;
+
+    /** The states of a sequence. */
+    @IntDef({State.SENDING, State.PAUSED, State.WAITING, State.DONE, State.CANCELLED})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface State {
+        int SENDING = 0;
+        int PAUSED = 1;
+        int WAITING = 2;
+        int DONE = 3;
+        int CANCELLED = 4;
+    }
+
+    /** The progress of a sequence. */
+    public static final class Progress {
+        private final String mSequence;
+        private final int mSentCount;
+        @State
+        private final int mState;
+
+        @VisibleForTesting
+        Progress(String sequence, int sentCount, @State int state) {
+            mSequence = sequence;
+            mSentCount = sentCount;
+            mState = state;
+        }
+
+        /** Returns the whole sequence. */
+        public String getSequence() {
+            return mSequence;
+        }
+
+        /** Returns the number of characters of the sequence handled so far. */
+        public int getSentCount() {
+            return mSentCount;
+        }
+
+        @State
+        public int getState() {
+            return mState;
+        }
+    }
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final MutableLiveData<Progress> mProgressLiveData = new MutableLiveData<>();
+    private final Runnable mStopToneRunnable = this::stopTone;
+    private final Runnable mSendNextRunnable = this::sendNext;
+    private final Call.Callback mCallCallback = new Call.Callback() {
+        @Override
+        public void onStateChanged(Call call, int state) {
+            if (state == Call.STATE_DISCONNECTING || state == Call.STATE_DISCONNECTED) {
+                L.d(TAG, "Call ended, cancelling the sequence");
+                cancel();
+            } else if (state == Call.STATE_HOLDING) {
+                L.d(TAG, "Call held, cancelling the sequence");
+                cancel();
+            }
+        }
+    };
+
+    @Nullable
+    private Call mCall;
+    private String mSequence;
+    private int mSentCount;
+    private boolean mTonePlaying;
+
+    /** Returns the progress of the current or last sequence. */
+    public LiveData<Progress> getProgress() {
+        return mProgressLiveData;
+    }
+
+    /** Sends the sequence over the call, cancelling the sequence being sent if any. */
+    public void send(@NonNull Call call, @NonNull String sequence) {
+        cancel();
+        mCall = call;
+        mSequence = sequence;
+        mSentCount = 0;
+        mCall.registerCallback(mCallCallback);
+        sendNext();
+    }
+
+    /** Continues a sequence waiting after a {@link TelecomManager#DTMF_CHARACTER_WAIT}. */
+    public void continueSequence() {
+        if (isWaiting()) {
+            sendNext();
+        }
+    }
+
+    /** Returns whether the current sequence waits for {@link #continueSequence()}. */
+    public boolean isWaiting() {
+        Progress progress = mProgressLiveData.getValue();
+        return mCall != null && progress != null && progress.getState() == State.WAITING;
+    }
+
+    /** Stops sending the current sequence. */
+    public void cancel() {
+        if (mCall == null) {
+            return;
+        }
+        mHandler.removeCallbacks(mStopToneRunnable);
+        mHandler.removeCallbacks(mSendNextRunnable);
+        if (mTonePlaying) {
+            mTonePlaying = false;
+            mCall.stopDtmfTone();
+        }
+        finish(State.CANCELLED);
+    }
+
+    /** Stops sending the current sequence if it is sent over a call other than the given one. */
+    public void cancelUnlessSentOver(@Nullable Call call) {
+        if (mCall != null && mCall != call) {
+            L.d(TAG, "Primary call changed, cancelling the sequence");
+            cancel();
+        }
+    }
+
+    private void sendNext() {
+        char c;
+        do {
+            if (mSentCount == mSequence.length()) {
+                finish(State.DONE);
+                return;
+            }
+            c = mSequence.charAt(mSentCount++);
+            // Skips the characters which are neither tones nor pacing, e.g. separators.
+        } while (!PhoneNumberUtils.is12Key(c) && c != TelecomManager.DTMF_CHARACTER_PAUSE
+                && c != TelecomManager.DTMF_CHARACTER_WAIT);
+
+        switch (c) {
+            case TelecomManager.DTMF_CHARACTER_PAUSE:
+                setProgress(State.PAUSED);
+                mHandler.postDelayed(mSendNextRunnable, PAUSE_MS);
+                break;
+            case TelecomManager.DTMF_CHARACTER_WAIT:
+                setProgress(State.WAITING);
+                break;
+            default:
+                setProgress(State.SENDING);
+                mCall.playDtmfTone(c);
+                mTonePlaying = true;
+                mHandler.postDelayed(mStopToneRunnable, TONE_MS);
+                break;
+        }
+    }
+
+    private void stopTone() {
+        mTonePlaying = false;
+        mCall.stopDtmfTone();
+        mHandler.postDelayed(mSendNextRunnable, TONE_GAP_MS);
+    }
+
+    private void finish(@State int state) {
+        setProgress(state);
+        mCall.unregisterCallback(mCallCallback);
+        mCall = null;
+    }
+
+    private void setProgress(@State int state) {
+        mProgressLiveData.setValue(new Progress(mSequence, mSentCount, state));
+    }
+}
@@ -19,6 +19,8 @@ package com.android.car.dialer.ui.activecall;
 import android.content.Intent;
 import android.os.Bundle;
 import android.telecom.Call;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 import androidx.core.util.Pair;
 import androidx.fragment.app.Fragment;
@@ -29,8 +31,11 @@ import androidx.lifecycle.ViewModelProviders;
 
 import com.android.car.arch.common.LiveDataFunctions;
 import com.android.car.dialer.Constants;
+import com.android.car.dialer.DialerStartup;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerTrace;
+import com.android.car.dialer.telecom.UiCallManager;
 
 import java.util.List;
 
@@ -44,6 +49,7 @@ public class InCallActivity extends FragmentActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        DialerStartup.ensureInitialized(DialerStartup.UI_COMPONENTS);
         super.onCreate(savedInstanceState);
         L.d(TAG, "onCreate");
 
@@ -63,6 +69,7 @@ public class InCallActivity extends FragmentActivity {
                 this, this::maybeFinishActivity);
 
         handleIntent();
+        endRingToInCallUiOnNextFrame();
     }
 
     @Override
@@ -71,6 +78,23 @@ public class InCallActivity extends FragmentActivity {
         L.d(TAG, "onNewIntent");
         setIntent(i);
         handleIntent();
+        endRingToInCallUiOnNextFrame();
+    }
+
+    /** Ends the {@link DialerTrace#RING_TO_IN_CALL_UI} stage of all calls before next frame. */
+    private void endRingToInCallUiOnNextFrame() {
+        View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        for (Call call : UiCallManager.get().getCallList()) {
+                            DialerTrace.RING_TO_IN_CALL_UI.endAsync(DialerTrace.cookieFor(call));
+                        }
+                        return true;
+                    }
+                });
     }
 
     private void maybeFinishActivity(Pair<List<Call>, Call> callList) {
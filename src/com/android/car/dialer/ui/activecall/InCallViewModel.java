@@ -23,12 +23,15 @@ import android.content.Intent;
 import android.content.ServiceConnection;
 import android.os.IBinder;
 import android.telecom.Call;
+import android.telecom.TelecomManager;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.util.Pair;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.Transformations;
 
 import com.android.car.arch.common.LiveDataFunctions;
@@ -38,6 +41,7 @@ import com.android.car.dialer.livedata.CallStateLiveData;
 import com.android.car.dialer.log.L;
 import com.android.car.dialer.telecom.InCallServiceImpl;
 import com.android.car.telephony.common.CallDetail;
+import com.android.internal.annotations.VisibleForTesting;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
@@ -67,6 +71,7 @@ public class InCallViewModel extends AndroidViewModel implements
     private final LiveData<Call> mSecondaryCallLiveData;
     private final LiveData<CallDetail> mSecondaryCallDetailLiveData;
     private final LiveData<Integer> mAudioRouteLiveData;
+    private final DtmfSequencer mDtmfSequencer = new DtmfSequencer();
     private LiveData<Long> mCallConnectTimeLiveData;
     private LiveData<Pair<Integer, Long>> mCallStateAndConnectTimeLiveData;
     private final Context mContext;
@@ -98,6 +103,21 @@ public class InCallViewModel extends AndroidViewModel implements
         }
     };
 
+    private final Call.Callback mPostDialCallback = new Call.Callback() {
+        @Override
+        public void onPostDialWait(Call call, String remainingPostDialSequence) {
+            // The rest of the post-dial digits are sent by the sequencer instead of the
+            // connection, so that they are cancelled when the call is held or replaced. The
+            // in call dialpad asks the user to send them.
+            call.postDialContinue(false);
+            mDtmfSequencer.send(call,
+                    TelecomManager.DTMF_CHARACTER_WAIT + remainingPostDialSequence);
+        }
+    };
+    private final Observer<Call> mPrimaryCallObserver = this::onPrimaryCallChanged;
+    @Nullable
+    private Call mPrimaryCall;
+
     public InCallViewModel(@NonNull Application application) {
         super(application);
         mContext = application.getApplicationContext();
@@ -138,7 +158,8 @@ public class InCallViewModel extends AndroidViewModel implements
         mSecondaryCallDetailLiveData = Transformations.switchMap(mSecondaryCallLiveData,
                 input -> input != null ? new CallDetailLiveData(input) : null);
 
-        mAudioRouteLiveData = new AudioRouteLiveData(mContext);
+        mAudioRouteLiveData = new AudioRouteLiveData();
+        mPrimaryCallLiveData.observeForever(mPrimaryCallObserver);
 
         Intent intent = new Intent(mContext, InCallServiceImpl.class);
         intent.setAction(InCallServiceImpl.ACTION_LOCAL_BIND);
@@ -209,6 +230,25 @@ public class InCallViewModel extends AndroidViewModel implements
         return mAudioRouteLiveData;
     }
 
+    /** Returns the sequencer which sends DTMF sequences over the primary call. */
+    public DtmfSequencer getDtmfSequencer() {
+        return mDtmfSequencer;
+    }
+
+    /**
+     * Sends the DTMF sequence over the primary call, honouring pause and wait characters. See
+     * {@link DtmfSequencer}. The post-dial digits of the primary call after a
+     * {@link TelecomManager#DTMF_CHARACTER_WAIT} are sent this way too.
+     */
+    public void sendDtmfSequence(@NonNull String sequence) {
+        Call primaryCall = mPrimaryCallLiveData.getValue();
+        if (primaryCall == null) {
+            L.w(TAG, "No primary call to send the DTMF sequence over");
+            return;
+        }
+        mDtmfSequencer.send(primaryCall, sequence);
+    }
+
     @Override
     public boolean onTelecomCallAdded(Call telecomCall) {
         L.i(TAG, "onTelecomCallAdded %s %s", telecomCall, this);
@@ -225,6 +265,21 @@ public class InCallViewModel extends AndroidViewModel implements
         return false;
     }
 
+    /** Moves the post-dial callback to the new primary call and cancels its stale sequence. */
+    private void onPrimaryCallChanged(@Nullable Call primaryCall) {
+        if (mPrimaryCall == primaryCall) {
+            return;
+        }
+        if (mPrimaryCall != null) {
+            mPrimaryCall.unregisterCallback(mPostDialCallback);
+        }
+        mPrimaryCall = primaryCall;
+        mDtmfSequencer.cancelUnlessSentOver(primaryCall);
+        if (mPrimaryCall != null) {
+            mPrimaryCall.registerCallback(mPostDialCallback);
+        }
+    }
+
     private void updateCallList() {
         List<Call> callList = new ArrayList<>();
         callList.addAll(mInCallService.getCalls());
@@ -233,6 +288,9 @@ public class InCallViewModel extends AndroidViewModel implements
 
     @Override
     protected void onCleared() {
+        mPrimaryCallLiveData.removeObserver(mPrimaryCallObserver);
+        onPrimaryCallChanged(null);
+        mDtmfSequencer.cancel();
         mContext.unbindService(mInCallServiceConnection);
         if (mInCallService != null) {
             mInCallService.removeActiveCallListChangedCallback(this);
@@ -240,7 +298,8 @@ public class InCallViewModel extends AndroidViewModel implements
         mInCallService = null;
     }
 
-    private static class CallComparator implements Comparator<Call> {
+    @VisibleForTesting
+    static class CallComparator implements Comparator<Call> {
         /**
          * The rank of call state. Used for sorting active calls. Rank is listed from lowest to
          * highest.
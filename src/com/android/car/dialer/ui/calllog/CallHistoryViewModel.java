@@ -23,6 +23,7 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import com.android.car.dialer.livedata.CallHistoryLiveData;
 import com.android.car.dialer.livedata.HeartBeatLiveData;
+import com.android.car.dialer.storage.WarmStartSnapshot;
 import com.android.car.dialer.ui.common.UiCallLogLiveData;
 import com.android.car.dialer.ui.common.entity.UiCallLog;
 import com.android.car.telephony.common.InMemoryPhoneBook;
@@ -41,6 +42,7 @@ public class CallHistoryViewModel extends AndroidViewModel {
                 new HeartBeatLiveData(DateUtils.MINUTE_IN_MILLIS),
                 CallHistoryLiveData.newInstance(application.getApplicationContext()),
                 InMemoryPhoneBook.get().getContactsLiveData());
+        mUiCallLogLiveData.setWarmStartSnapshot(WarmStartSnapshot.getInstance(application));
     }
 
     /**
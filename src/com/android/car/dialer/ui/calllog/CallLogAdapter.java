@@ -25,6 +25,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerTrace;
 import com.android.car.dialer.ui.common.entity.UiCallLog;
 import com.android.car.telephony.common.Contact;
 
@@ -55,6 +56,7 @@ public class CallLogAdapter extends RecyclerView.Adapter<CallLogViewHolder> {
         mUiCallLogs.clear();
         mUiCallLogs.addAll(uiCallLogs);
         notifyDataSetChanged();
+        DialerTrace.LAUNCH_TO_FIRST_LIST.endAsync(DialerTrace.SINGLETON_COOKIE);
     }
 
     @NonNull
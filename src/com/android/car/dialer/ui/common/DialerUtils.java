@@ -22,9 +22,9 @@ import android.content.res.Resources;
 
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.storage.ContactMutationQueue;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.PhoneNumber;
-import com.android.car.telephony.common.TelecomUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -91,14 +91,18 @@ public class DialerUtils {
             Context context,
             Contact contact,
             PhoneNumberSelectionCallback callback) {
-        if (contact.hasPrimaryPhoneNumber()) {
+        PhoneNumber pendingPrimaryPhoneNumber =
+                ContactMutationQueue.get(context).getPendingPrimaryPhoneNumber(contact);
+        if (pendingPrimaryPhoneNumber != null) {
+            callback.onPhoneNumberSelected(pendingPrimaryPhoneNumber, false);
+        } else if (contact.hasPrimaryPhoneNumber()) {
             callback.onPhoneNumberSelected(contact.getPrimaryPhoneNumber(), false);
         } else if (contact.getNumbers().size() == 1) {
             callback.onPhoneNumberSelected(contact.getNumbers().get(0), false);
         } else if (contact.getNumbers().size() > 0) {
             showPhoneNumberSelector(context, contact.getNumbers(), (phoneNumber, always) -> {
                 if (always) {
-                    TelecomUtils.setAsPrimaryPhoneNumber(context, phoneNumber);
+                    ContactMutationQueue.get(context).setAsPrimaryPhoneNumber(contact, phoneNumber);
                 }
 
                 callback.onPhoneNumberSelected(phoneNumber, false);
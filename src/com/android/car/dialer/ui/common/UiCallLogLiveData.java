@@ -26,12 +26,15 @@ import com.android.car.dialer.R;
 import com.android.car.dialer.livedata.CallHistoryLiveData;
 import com.android.car.dialer.livedata.HeartBeatLiveData;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.storage.WarmStartSnapshot;
+import com.android.car.dialer.telecom.VoicemailNumberCache;
 import com.android.car.telephony.common.TelecomUtils;
 import com.android.car.dialer.ui.common.entity.UiCallLog;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.InMemoryPhoneBook;
 import com.android.car.telephony.common.PhoneCallLog;
 import com.android.car.telephony.common.PhoneNumber;
+import com.android.internal.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 
@@ -48,20 +51,52 @@ public class UiCallLogLiveData extends MediatorLiveData<List<UiCallLog>> {
 
     private static final String TYPE_AND_RELATIVE_TIME_JOINER = ", ";
     private Context mContext;
+    private final VoicemailNumberCache mVoicemailNumberCache;
+    @Nullable
+    private WarmStartSnapshot mWarmStartSnapshot;
+    /** Whether the value comes from the snapshot and the call history hasn't loaded yet. */
+    private boolean mShowingSnapshot;
 
     public UiCallLogLiveData(Context context,
             HeartBeatLiveData heartBeatLiveData,
             CallHistoryLiveData callHistoryLiveData,
             LiveData<List<Contact>> contactListLiveData) {
         mContext = context;
+        mVoicemailNumberCache = VoicemailNumberCache.get(context);
         addSource(callHistoryLiveData, this::onCallHistoryChanged);
         addSource(contactListLiveData,
                 (contacts) -> onCallHistoryChanged(callHistoryLiveData.getValue()));
         addSource(heartBeatLiveData, (trigger) -> updateRelativeTime());
     }
 
+    /**
+     * Shows the call logs of the snapshot until the call history is loaded, and saves the loaded
+     * call history to it from then on.
+     */
+    public void setWarmStartSnapshot(WarmStartSnapshot warmStartSnapshot) {
+        mWarmStartSnapshot = warmStartSnapshot;
+        if (getValue() != null) {
+            return;
+        }
+        List<UiCallLog> callLogs = warmStartSnapshot.getCallLogs();
+        if (callLogs != null) {
+            mShowingSnapshot = true;
+            setValue(callLogs);
+            updateRelativeTime();
+        }
+    }
+
     private void onCallHistoryChanged(List<PhoneCallLog> callLogs) {
-        setValue(convert(callLogs));
+        if (callLogs == null && mShowingSnapshot) {
+            // Contacts loaded before the call history, keep showing the snapshot.
+            return;
+        }
+        mShowingSnapshot = false;
+        List<UiCallLog> uiCallLogs = convert(callLogs);
+        setValue(uiCallLogs);
+        if (callLogs != null && mWarmStartSnapshot != null) {
+            mWarmStartSnapshot.saveCallLogs(uiCallLogs);
+        }
     }
 
     private void updateRelativeTime() {
@@ -100,7 +135,8 @@ public class UiCallLogLiveData extends MediatorLiveData<List<UiCallLog>> {
         }
     }
 
-    private List<UiCallLog> convert(List<PhoneCallLog> phoneCallLogs) {
+    @VisibleForTesting
+    List<UiCallLog> convert(List<PhoneCallLog> phoneCallLogs) {
         if (phoneCallLogs == null) {
             return Collections.emptyList();
         }
@@ -110,7 +146,7 @@ public class UiCallLogLiveData extends MediatorLiveData<List<UiCallLog>> {
         for (PhoneCallLog phoneCallLog : phoneCallLogs) {
             String number = phoneCallLog.getPhoneNumberString();
             String relativeTime = getRelativeTime(phoneCallLog.getLastCallEndTimestamp());
-            if (TelecomUtils.isVoicemailNumber(mContext, number)) {
+            if (mVoicemailNumberCache.isVoicemailNumber(number)) {
                 String title = mContext.getString(R.string.voicemail);
                 UiCallLog uiCallLog = new UiCallLog(title,
                         relativeTime, number, null, phoneCallLog.getAllCallRecords());
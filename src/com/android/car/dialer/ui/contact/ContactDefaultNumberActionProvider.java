@@ -23,10 +23,10 @@ import android.view.View;
 import android.widget.Button;
 
 import com.android.car.dialer.R;
+import com.android.car.dialer.storage.ContactMutationQueue;
 import com.android.car.dialer.ui.common.PhoneNumberListAdapter;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.PhoneNumber;
-import com.android.car.telephony.common.TelecomUtils;
 
 import java.util.List;
 
@@ -58,9 +58,14 @@ public class ContactDefaultNumberActionProvider extends ActionProvider {
         mSelectedPhoneNumber = null;
 
         List<PhoneNumber> contactPhoneNumbers = mContact.getNumbers();
+        // The contact is reloaded only once a pending primary phone number has been applied.
+        PhoneNumber primaryPhoneNumber =
+                ContactMutationQueue.get(mContext).getPendingPrimaryPhoneNumber(mContact);
+        if (primaryPhoneNumber == null && mContact.hasPrimaryPhoneNumber()) {
+            primaryPhoneNumber = mContact.getPrimaryPhoneNumber();
+        }
         int primaryPhoneNumberIndex =
-                mContact.hasPrimaryPhoneNumber() ? contactPhoneNumbers.indexOf(
-                        mContact.getPrimaryPhoneNumber()) : -1;
+                primaryPhoneNumber != null ? contactPhoneNumbers.indexOf(primaryPhoneNumber) : -1;
         AlertDialog alertDialog = new AlertDialog.Builder(mContext)
                 .setTitle(R.string.set_default_number)
                 .setSingleChoiceItems(
@@ -74,8 +79,8 @@ public class ContactDefaultNumberActionProvider extends ActionProvider {
                 .setNegativeButton(android.R.string.cancel, null)
                 .setPositiveButton(android.R.string.ok,
                         (dialog, which) ->
-                                TelecomUtils.setAsPrimaryPhoneNumber(mContext,
-                                        mSelectedPhoneNumber))
+                                ContactMutationQueue.get(mContext).setAsPrimaryPhoneNumber(
+                                        mContact, mSelectedPhoneNumber))
                 .show();
         mPositiveButton = alertDialog.getButton(AlertDialog.BUTTON_POSITIVE);
         mPositiveButton.setEnabled(false);
@@ -91,7 +91,8 @@ public class ContactDetailsFragment extends DialerListBaseFragment {
         }
         ContactDetailsViewModel contactDetailsViewModel = ViewModelProviders.of(this).get(
                 ContactDetailsViewModel.class);
-        mContactDetailsLiveData = contactDetailsViewModel.getContactDetails(mContactLookupUri);
+        mContactDetailsLiveData = contactDetailsViewModel.getContactDetails(mContactLookupUri,
+                mContact);
         mContactDetailsLiveData.observe(this, this::onContactChanged);
     }
 
@@ -43,14 +43,17 @@ public class ContactDetailsViewModel extends AndroidViewModel {
      *                         the contact entry. It might have been out of date and whoever use it
      *                         should attempt to refresh first. A null contactLookupUri means the
      *                         contact entry has been deleted.
+     * @param contact          The contact already loaded, e.g. by the contact list, shown until
+     *                         it is revalidated. {@code null} if there is none.
      */
-    public LiveData<Contact> getContactDetails(@Nullable Uri contactLookupUri) {
+    public LiveData<Contact> getContactDetails(@Nullable Uri contactLookupUri,
+            @Nullable Contact contact) {
         if (contactLookupUri == null) {
             MutableLiveData<Contact> deletedContactDetailsLiveData = new MutableLiveData<>();
             deletedContactDetailsLiveData.setValue(null);
             return deletedContactDetailsLiveData;
         }
 
-        return new ContactDetailsLiveData(getApplication(), contactLookupUri);
+        return new ContactDetailsLiveData(getApplication(), contactLookupUri, contact);
     }
 }
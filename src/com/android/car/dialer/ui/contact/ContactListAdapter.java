@@ -25,6 +25,7 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.car.dialer.R;
+import com.android.car.dialer.perf.DialerTrace;
 import com.android.car.telephony.common.Contact;
 
 import java.util.ArrayList;
@@ -54,6 +55,7 @@ public class ContactListAdapter extends RecyclerView.Adapter<ContactListViewHold
             mContactList.addAll(contactList);
         }
         notifyDataSetChanged();
+        DialerTrace.LAUNCH_TO_FIRST_LIST.endAsync(DialerTrace.SINGLETON_COOKIE);
     }
 
     @NonNull
@@ -18,6 +18,9 @@ package com.android.car.dialer.ui.contact;
 
 import android.app.Application;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
@@ -26,14 +29,16 @@ import androidx.lifecycle.MediatorLiveData;
 
 import com.android.car.dialer.R;
 import com.android.car.dialer.livedata.SharedPreferencesLiveData;
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
+import com.android.car.dialer.widget.CancellationToken;
+import com.android.car.dialer.widget.ChunkedSort;
 import com.android.car.dialer.widget.WorkerExecutor;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.InMemoryPhoneBook;
 
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.Future;
 
 /**
  * View model for {@link ContactListFragment}.
@@ -63,12 +68,20 @@ public class ContactListViewModel extends AndroidViewModel {
     }
 
     private static class SortedContactListLiveData extends MediatorLiveData<List<Contact>> {
+        private static final DialerMetrics.Gauge CONTACT_COUNT =
+                DialerMetrics.gauge("InMemoryPhoneBook.contacts");
+        private static final LatencyHistogram SORT_LATENCY =
+                DialerMetrics.histogram("ContactListViewModel.sort");
+        /** Delay before a sort rejected by a full lane is submitted again. */
+        private static final long SORT_RETRY_DELAY_MS = 1000;
 
         private final LiveData<List<Contact>> mContactListLiveData;
         private final SharedPreferencesLiveData mPreferencesLiveData;
         private final Context mContext;
 
-        private Future<?> mRunnableFuture;
+        private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+        private final Runnable mRetrySortRunnable = this::updateSortedContactList;
+        private CancellationToken mSortCancellationToken;
 
         /**
          * Sort by the default display order of a name. For western names it will be "Given Family".
@@ -103,6 +116,9 @@ public class ContactListViewModel extends AndroidViewModel {
         }
 
         private void updateSortedContactList() {
+            // Whatever happens next, a sort still in flight is superseded.
+            cancelSort();
+
             if (mContactListLiveData.getValue() == null) {
                 setValue(null);
                 return;
@@ -113,6 +129,7 @@ public class ContactListViewModel extends AndroidViewModel {
                     R.array.contact_order_entry_values)[0];
 
             List<Contact> contactList = mContactListLiveData.getValue();
+            CONTACT_COUNT.set(contactList.size());
             Comparator<Contact> comparator;
             if (mPreferencesLiveData.getValue() == null
                     || mPreferencesLiveData.getValue().getString(key, defaultValue)
@@ -122,25 +139,55 @@ public class ContactListViewModel extends AndroidViewModel {
                 comparator = mLastNameComparator;
             }
 
-            // SingleThreadPoolExecutor is used here to avoid multiple threads sorting the list
-            // at the same time.
-            if (mRunnableFuture != null) {
-                mRunnableFuture.cancel(true);
+            // A lane runs one task at a time, which avoids multiple threads sorting the list at
+            // the same time. The contact list is shared, so the sort works on a copy.
+            mSortCancellationToken = WorkerExecutor.getInstance().submit(
+                    WorkerExecutor.Lane.INTERACTIVE, cancellationToken -> {
+                        long startNanos = SystemClock.elapsedRealtimeNanos();
+                        List<Contact> sortedList =
+                                ChunkedSort.sort(contactList, comparator, cancellationToken);
+                        if (sortedList == null) {
+                            return;
+                        }
+                        SORT_LATENCY.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+                        // Sorts are only superseded on the main thread, checking the token there
+                        // guarantees a stale list is never published.
+                        mMainHandler.post(() -> {
+                            if (!cancellationToken.isCancelled()) {
+                                mSortCancellationToken = null;
+                                setValue(sortedList);
+                            }
+                        });
+                    });
+            if (mSortCancellationToken.isCancelled()) {
+                // The lane is full, the list on screen stays out of date until the sort runs.
+                mMainHandler.postDelayed(mRetrySortRunnable, SORT_RETRY_DELAY_MS);
             }
+        }
 
-            Runnable runnable = () -> {
-                Collections.sort(contactList, comparator);
-                postValue(contactList);
-            };
-            mRunnableFuture = WorkerExecutor.getInstance().getSingleThreadExecutor().submit(
-                    runnable);
+        @Override
+        protected void onActive() {
+            super.onActive();
+            // Redo the sort cancelled when becoming inactive, the sources won't emit again.
+            if (mSortCancellationToken != null && mSortCancellationToken.isCancelled()) {
+                updateSortedContactList();
+            }
         }
 
         @Override
         protected void onInactive() {
             super.onInactive();
-            if (mRunnableFuture != null) {
-                mRunnableFuture.cancel(true);
+            mMainHandler.removeCallbacks(mRetrySortRunnable);
+            if (mSortCancellationToken != null) {
+                mSortCancellationToken.cancel();
+            }
+        }
+
+        private void cancelSort() {
+            mMainHandler.removeCallbacks(mRetrySortRunnable);
+            if (mSortCancellationToken != null) {
+                mSortCancellationToken.cancel();
+                mSortCancellationToken = null;
             }
         }
     }
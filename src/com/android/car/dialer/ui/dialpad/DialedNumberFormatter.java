@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.dialpad;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.telecom.RegionUtils;
+
+import com.google.i18n.phonenumbers.AsYouTypeFormatter;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+
+import java.util.ArrayList;
+
+/**
+ * Formats the dialed number as it is typed. The libphonenumber {@link AsYouTypeFormatter} keeps
+ * its state between keystrokes, so appending a digit formats only that digit instead of parsing
+ * the whole number again.
+ *
+ * <p>The formatted number of every typed prefix is kept, so removing the last digit doesn't
+ * format anything. As the {@link AsYouTypeFormatter} can't undo a digit, it is cleared and fed
+ * the remaining digits again on the next append after a removal. Typing after a deletion is then
+ * linear in the length of the number, not constant time, which is fine for dialed numbers.
+ */
+class DialedNumberFormatter {
+    private static final DialerMetrics.Counter REFEED_COUNT =
+            DialerMetrics.counter("DialedNumberFormatter.refeedCount");
+
+    private final AsYouTypeFormatter mAsYouTypeFormatter;
+    /** The characters of the number this formatter is in sync with. */
+    private final StringBuilder mInput = new StringBuilder();
+    /** The formatted number of each prefix of {@link #mInput}, by prefix length minus one. */
+    private final ArrayList<String> mFormattedPrefixes = new ArrayList<>();
+    /** The number of characters of {@link #mInput} fed to {@link #mAsYouTypeFormatter}. */
+    private int mFedLength;
+
+    /** Creates a formatter for the region of the current network, or of the locale. */
+    static DialedNumberFormatter create(Context context) {
+        return new DialedNumberFormatter(RegionUtils.getRegionCode(context));
+    }
+
+    DialedNumberFormatter(String regionCode) {
+        mAsYouTypeFormatter = PhoneNumberUtil.getInstance().getAsYouTypeFormatter(regionCode);
+    }
+
+    /**
+     * Returns the formatted number. Only the characters after the part in common with the
+     * previously formatted number are formatted, so typing or deleting a digit is cheap, except
+     * for the first digit typed after a deletion which formats the whole number again.
+     */
+    @NonNull
+    String format(@NonNull CharSequence number) {
+        int commonLength = 0;
+        int maxCommonLength = Math.min(mInput.length(), number.length());
+        while (commonLength < maxCommonLength
+                && mInput.charAt(commonLength) == number.charAt(commonLength)) {
+            commonLength++;
+        }
+
+        truncate(commonLength);
+        for (int i = commonLength; i < number.length(); i++) {
+            append(number.charAt(i));
+        }
+        return mInput.length() == 0 ? "" : mFormattedPrefixes.get(mInput.length() - 1);
+    }
+
+    private void truncate(int length) {
+        for (int i = mInput.length() - 1; i >= length; i--) {
+            mFormattedPrefixes.remove(i);
+        }
+        mInput.setLength(length);
+    }
+
+    private void append(char c) {
+        if (mFedLength != mInput.length()) {
+            REFEED_COUNT.increment();
+            mAsYouTypeFormatter.clear();
+            for (int i = 0; i < mInput.length(); i++) {
+                mAsYouTypeFormatter.inputDigit(mInput.charAt(i));
+            }
+        }
+        mFormattedPrefixes.add(mAsYouTypeFormatter.inputDigit(c));
+        mInput.append(c);
+        mFedLength = mInput.length();
+    }
+}
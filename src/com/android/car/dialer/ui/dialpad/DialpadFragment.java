@@ -17,8 +17,6 @@
 package com.android.car.dialer.ui.dialpad;
 
 import android.app.ActionBar;
-import android.media.AudioManager;
-import android.media.ToneGenerator;
 import android.os.Bundle;
 import android.provider.CallLog;
 import android.text.TextUtils;
@@ -36,13 +34,12 @@ import androidx.annotation.Nullable;
 import com.android.car.apps.common.util.ViewUtils;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerTrace;
 import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.InMemoryPhoneBook;
-import com.android.car.telephony.common.TelecomUtils;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ImmutableMap;
 
 /** Fragment that controls the dialpad. */
 public class DialpadFragment extends AbstractDialpadFragment {
@@ -55,30 +52,12 @@ public class DialpadFragment extends AbstractDialpadFragment {
     @VisibleForTesting
     static final int MAX_DIAL_NUMBER = 20;
 
-    private static final int TONE_RELATIVE_VOLUME = 80;
-    private static final int TONE_LENGTH_INFINITE = -1;
-    private final ImmutableMap<Integer, Integer> mToneMap =
-            ImmutableMap.<Integer, Integer>builder()
-                    .put(KeyEvent.KEYCODE_1, ToneGenerator.TONE_DTMF_1)
-                    .put(KeyEvent.KEYCODE_2, ToneGenerator.TONE_DTMF_2)
-                    .put(KeyEvent.KEYCODE_3, ToneGenerator.TONE_DTMF_3)
-                    .put(KeyEvent.KEYCODE_4, ToneGenerator.TONE_DTMF_4)
-                    .put(KeyEvent.KEYCODE_5, ToneGenerator.TONE_DTMF_5)
-                    .put(KeyEvent.KEYCODE_6, ToneGenerator.TONE_DTMF_6)
-                    .put(KeyEvent.KEYCODE_7, ToneGenerator.TONE_DTMF_7)
-                    .put(KeyEvent.KEYCODE_8, ToneGenerator.TONE_DTMF_8)
-                    .put(KeyEvent.KEYCODE_9, ToneGenerator.TONE_DTMF_9)
-                    .put(KeyEvent.KEYCODE_0, ToneGenerator.TONE_DTMF_0)
-                    .put(KeyEvent.KEYCODE_STAR, ToneGenerator.TONE_DTMF_S)
-                    .put(KeyEvent.KEYCODE_POUND, ToneGenerator.TONE_DTMF_P)
-                    .build();
-
     private TextView mTitleView;
     private TextView mDisplayName;
     private ImageButton mDeleteButton;
     private int mMode;
 
-    private ToneGenerator mToneGenerator;
+    private DialedNumberFormatter mDialedNumberFormatter;
 
     /**
      * Creates a new instance of the {@link DialpadFragment} which is used for dialing a number.
@@ -105,7 +84,14 @@ public class DialpadFragment extends AbstractDialpadFragment {
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mToneGenerator = new ToneGenerator(AudioManager.STREAM_MUSIC, TONE_RELATIVE_VOLUME);
+        DtmfToneEngine.get().acquire();
+        mDialedNumberFormatter = DialedNumberFormatter.create(getContext());
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        DtmfToneEngine.get().release();
     }
 
     @Override
@@ -127,7 +113,12 @@ public class DialpadFragment extends AbstractDialpadFragment {
         View callButton = rootView.findViewById(R.id.call_button);
         callButton.setOnClickListener(v -> {
             if (!TextUtils.isEmpty(getNumber().toString())) {
-                UiCallManager.get().placeCall(getNumber().toString());
+                long startNanos = DialerTrace.TAP_TO_PLACE_CALL.begin();
+                try {
+                    UiCallManager.get().placeCall(getNumber().toString());
+                } finally {
+                    DialerTrace.TAP_TO_PLACE_CALL.end(startNanos);
+                }
                 // Update dialed number UI later in onResume() when in call intent is handled.
                 getNumber().setLength(0);
             } else {
@@ -191,13 +182,13 @@ public class DialpadFragment extends AbstractDialpadFragment {
     @Override
     void playTone(int keycode) {
         L.d(TAG, "start key pressed tone for %s", keycode);
-        mToneGenerator.startTone(mToneMap.get(keycode), TONE_LENGTH_INFINITE);
+        DtmfToneEngine.get().startTone(keycode);
     }
 
     @Override
     void stopAllTones() {
         L.d(TAG, "stop key pressed tone");
-        mToneGenerator.stopTone();
+        DtmfToneEngine.get().stopTone();
     }
 
     @Override
@@ -215,8 +206,7 @@ public class DialpadFragment extends AbstractDialpadFragment {
         } else {
             mTitleView.setGravity(Gravity.END | Gravity.CENTER_VERTICAL);
             if (number.length() <= MAX_DIAL_NUMBER) {
-                mTitleView.setText(
-                        TelecomUtils.getFormattedNumber(getContext(), number.toString()));
+                mTitleView.setText(mDialedNumberFormatter.format(number));
             } else {
                 mTitleView.setText(number.substring(number.length() - MAX_DIAL_NUMBER));
             }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.dialpad;
+
+import android.media.AudioManager;
+import android.media.ToneGenerator;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.telecom.Call;
+import android.util.SparseIntArray;
+import android.view.KeyEvent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
+import com.android.internal.annotations.VisibleForTesting;
+
+/**
+ * Plays the DTMF tones of the dialpads. There is one engine per application, shared by all the
+ * dialpad fragments. All methods must be called on the main thread.
+ *
+ * <p>Dialpads {@link #acquire()} the engine when created, which loads the {@link ToneGenerator}
+ * before the first key press, and {@link #release()} it when destroyed. The tone generator is
+ * released once no dialpad has used the engine for {@link #RELEASE_DELAY_MS}, so that recreating
+ * a dialpad reuses it.
+ *
+ * <p>Tones are played locally, or sent over the call with {@link Call#playDtmfTone(char)} while
+ * in a call.
+ */
+class DtmfToneEngine {
+    private static final String TAG = "CD.DtmfToneEngine";
+    private static final int TONE_RELATIVE_VOLUME = 80;
+    private static final int TONE_LENGTH_INFINITE = -1;
+    private static final int TONE_UNKNOWN = -1;
+    @VisibleForTesting
+    static final long RELEASE_DELAY_MS = 10_000;
+    private static final LatencyHistogram START_TONE_LATENCY =
+            DialerMetrics.histogram("DtmfToneEngine.startTone");
+
+    private static final SparseIntArray sToneMap = new SparseIntArray();
+
+    static {
+        sToneMap.put(KeyEvent.KEYCODE_1, ToneGenerator.TONE_DTMF_1);
+        sToneMap.put(KeyEvent.KEYCODE_2, ToneGenerator.TONE_DTMF_2);
+        sToneMap.put(KeyEvent.KEYCODE_3, ToneGenerator.TONE_DTMF_3);
+        sToneMap.put(KeyEvent.KEYCODE_4, ToneGenerator.TONE_DTMF_4);
+        sToneMap.put(KeyEvent.KEYCODE_5, ToneGenerator.TONE_DTMF_5);
+        sToneMap.put(KeyEvent.KEYCODE_6, ToneGenerator.TONE_DTMF_6);
+        sToneMap.put(KeyEvent.KEYCODE_7, ToneGenerator.TONE_DTMF_7);
+        sToneMap.put(KeyEvent.KEYCODE_8, ToneGenerator.TONE_DTMF_8);
+        sToneMap.put(KeyEvent.KEYCODE_9, ToneGenerator.TONE_DTMF_9);
+        sToneMap.put(KeyEvent.KEYCODE_0, ToneGenerator.TONE_DTMF_0);
+        sToneMap.put(KeyEvent.KEYCODE_STAR, ToneGenerator.TONE_DTMF_S);
+        sToneMap.put(KeyEvent.KEYCODE_POUND, ToneGenerator.TONE_DTMF_P);
+    }
+
+    private static DtmfToneEngine sDtmfToneEngine;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mReleaseRunnable = this::releaseToneGenerator;
+    private int mUserCount;
+    @Nullable
+    private ToneGenerator mToneGenerator;
+    /** The call the playing tone is sent over, or {@code null} if played locally. */
+    @Nullable
+    private Call mToneCall;
+
+    /** Returns the engine of the application, creating it on first call. */
+    static DtmfToneEngine get() {
+        if (sDtmfToneEngine == null) {
+            sDtmfToneEngine = new DtmfToneEngine();
+        }
+        return sDtmfToneEngine;
+    }
+
+    /** Releases the tone generator and drops the engine of the application. */
+    @VisibleForTesting
+    static void tearDown() {
+        if (sDtmfToneEngine != null) {
+            sDtmfToneEngine.mHandler.removeCallbacks(sDtmfToneEngine.mReleaseRunnable);
+            sDtmfToneEngine.releaseToneGenerator();
+            sDtmfToneEngine = null;
+        }
+    }
+
+    @VisibleForTesting
+    DtmfToneEngine() {
+    }
+
+    /** Registers a user of the engine and loads the tone generator if needed. */
+    void acquire() {
+        mUserCount++;
+        mHandler.removeCallbacks(mReleaseRunnable);
+        if (mToneGenerator == null) {
+            try {
+                mToneGenerator = new ToneGenerator(AudioManager.STREAM_MUSIC,
+                        TONE_RELATIVE_VOLUME);
+            } catch (RuntimeException e) {
+                L.w(TAG, "Failed to create the tone generator: %s", e);
+            }
+        }
+    }
+
+    /** Unregisters a user of the engine, see {@link #acquire()}. */
+    void release() {
+        if (mUserCount == 0) {
+            L.w(TAG, "Released more than acquired");
+            return;
+        }
+        mUserCount--;
+        if (mUserCount == 0) {
+            stopTone();
+            mHandler.postDelayed(mReleaseRunnable, RELEASE_DELAY_MS);
+        }
+    }
+
+    /** Starts playing the tone of the keycode locally until {@link #stopTone()}. */
+    void startTone(int keycode) {
+        int tone = sToneMap.get(keycode, TONE_UNKNOWN);
+        if (tone == TONE_UNKNOWN || mToneGenerator == null) {
+            L.w(TAG, "Can't play tone for %s", keycode);
+            return;
+        }
+        stopTone();
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        mToneGenerator.startTone(tone, TONE_LENGTH_INFINITE);
+        START_TONE_LATENCY.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+    }
+
+    /** Starts sending the tone of the keycode over the call until {@link #stopTone()}. */
+    void startTone(int keycode, @NonNull Call call) {
+        Character digit = AbstractDialpadFragment.sDialValueMap.get(keycode);
+        if (digit == null) {
+            L.w(TAG, "Can't send tone for %s", keycode);
+            return;
+        }
+        stopTone();
+        mToneCall = call;
+        call.playDtmfTone(digit);
+    }
+
+    /** Stops the playing tone, if any. */
+    void stopTone() {
+        if (mToneCall != null) {
+            mToneCall.stopDtmfTone();
+            mToneCall = null;
+        } else if (mToneGenerator != null) {
+            mToneGenerator.stopTone();
+        }
+    }
+
+    /** Returns whether the tone generator is loaded. */
+    @VisibleForTesting
+    boolean hasToneGenerator() {
+        return mToneGenerator != null;
+    }
+
+    private void releaseToneGenerator() {
+        if (mToneGenerator != null) {
+            L.d(TAG, "Releasing the tone generator");
+            mToneGenerator.release();
+            mToneGenerator = null;
+        }
+    }
+}
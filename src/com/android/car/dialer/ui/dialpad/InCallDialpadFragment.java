@@ -32,6 +32,7 @@ import androidx.lifecycle.ViewModelProviders;
 
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.ui.activecall.DtmfSequencer;
 import com.android.car.dialer.ui.activecall.InCallViewModel;
 import com.android.car.telephony.common.TelecomUtils;
 
@@ -41,9 +42,11 @@ public class InCallDialpadFragment extends AbstractDialpadFragment {
 
     private TextView mTitleView;
     private Chronometer mCallStateView;
+    private View mSendRemainingDigitsButton;
 
     /** An active call which this fragment is serving for. */
     private LiveData<Call> mActiveCall;
+    private DtmfSequencer mDtmfSequencer;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
@@ -55,6 +58,7 @@ public class InCallDialpadFragment extends AbstractDialpadFragment {
 
         mTitleView = rootView.findViewById(R.id.title);
         mCallStateView = rootView.findViewById(R.id.call_state);
+        mSendRemainingDigitsButton = rootView.findViewById(R.id.send_remaining_digits_button);
 
         InCallViewModel viewModel = ViewModelProviders.of(getActivity()).get(InCallViewModel.class);
         viewModel.getCallStateAndConnectTime().observe(this, (pair) -> {
@@ -74,6 +78,18 @@ public class InCallDialpadFragment extends AbstractDialpadFragment {
             }
         });
         mActiveCall = viewModel.getPrimaryCall();
+        mDtmfSequencer = viewModel.getDtmfSequencer();
+        mSendRemainingDigitsButton.setOnClickListener(v -> mDtmfSequencer.continueSequence());
+        mDtmfSequencer.getProgress().observe(this, progress -> {
+            boolean waiting = progress != null
+                    && progress.getState() == DtmfSequencer.State.WAITING;
+            mSendRemainingDigitsButton.setVisibility(waiting ? View.VISIBLE : View.GONE);
+            // A finished sequence leaves the digits typed since, and the dialpad shown after it.
+            if (progress != null && progress.getState() != DtmfSequencer.State.CANCELLED
+                    && progress.getState() != DtmfSequencer.State.DONE) {
+                setDialedNumber(progress.getSequence().substring(0, progress.getSentCount()));
+            }
+        });
 
         return rootView;
     }
@@ -94,17 +110,20 @@ public class InCallDialpadFragment extends AbstractDialpadFragment {
     @Override
     void playTone(int keycode) {
         L.d(TAG, "start DTMF tone for %s", keycode);
+        // Tones typed while a sequence is being sent would interleave with it. A sequence waiting
+        // for confirmation, e.g. post-dial digits, is kept until the user sends it.
+        if (!mDtmfSequencer.isWaiting()) {
+            mDtmfSequencer.cancel();
+        }
         if (mActiveCall.getValue() != null) {
-            mActiveCall.getValue().playDtmfTone(sDialValueMap.get(keycode));
+            DtmfToneEngine.get().startTone(keycode, mActiveCall.getValue());
         }
     }
 
     @Override
     void stopAllTones() {
-        if (mActiveCall.getValue() != null) {
-            L.d(TAG, "stop DTMF tone");
-            mActiveCall.getValue().stopDtmfTone();
-        }
+        L.d(TAG, "stop DTMF tone");
+        DtmfToneEngine.get().stopTone();
     }
 
     @Override
@@ -26,6 +26,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerTrace;
 import com.android.car.dialer.ui.common.OnItemClickedListener;
 import com.android.car.telephony.common.Contact;
 
@@ -43,9 +44,10 @@ public class FavoriteAdapter extends RecyclerView.Adapter<FavoriteContactViewHol
 
     /** Sets the favorite contact list. */
     public void setFavoriteContacts(List<Contact> favoriteContacts) {
-        L.d(TAG, "setFavoriteContacts %s", favoriteContacts);
         mFavoriteContacts = (favoriteContacts != null) ? favoriteContacts : Collections.emptyList();
+        L.d(TAG, "setFavoriteContacts: %d", mFavoriteContacts.size());
         notifyDataSetChanged();
+        DialerTrace.LAUNCH_TO_FIRST_LIST.endAsync(DialerTrace.SINGLETON_COOKIE);
     }
 
     @Override
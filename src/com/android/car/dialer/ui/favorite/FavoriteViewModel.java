@@ -17,9 +17,12 @@
 package com.android.car.dialer.ui.favorite;
 
 import android.app.Application;
+import android.database.Cursor;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import com.android.car.dialer.livedata.FavoriteContactLiveData;
+import com.android.car.dialer.storage.WarmStartSnapshot;
 import com.android.car.telephony.common.Contact;
 
 import java.util.List;
@@ -28,11 +31,23 @@ import java.util.List;
  * View model for {@link FavoriteFragment}.
  */
 public class FavoriteViewModel extends AndroidViewModel {
-    private LiveData<List<Contact>> mFavoriteContactsLiveData;
+    private MediatorLiveData<List<Contact>> mFavoriteContactsLiveData;
 
     public FavoriteViewModel(Application application) {
         super(application);
-        mFavoriteContactsLiveData = FavoriteContactLiveData.newInstance(application);
+        mFavoriteContactsLiveData = new MediatorLiveData<>();
+        // Shows the favorites of the snapshot until the starred contacts are loaded.
+        Cursor snapshotRows = WarmStartSnapshot.getInstance(application).getFavoriteRows();
+        if (snapshotRows != null) {
+            try {
+                mFavoriteContactsLiveData.setValue(
+                        FavoriteContactLiveData.convert(application, snapshotRows));
+            } finally {
+                snapshotRows.close();
+            }
+        }
+        mFavoriteContactsLiveData.addSource(FavoriteContactLiveData.newInstance(application),
+                mFavoriteContactsLiveData::setValue);
     }
 
     /** Returns favorite contact list live data. */
@@ -19,6 +19,7 @@ package com.android.car.dialer.ui.search;
 import android.app.Application;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.provider.ContactsContract;
 import android.text.TextUtils;
 
@@ -28,6 +29,8 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
 import com.android.car.telephony.common.ObservableAsyncQuery;
 import com.android.car.telephony.common.QueryParam;
 
@@ -43,6 +46,12 @@ public class ContactResultsViewModel extends AndroidViewModel {
             ContactsContract.Contacts.DISPLAY_NAME,
             ContactsContract.Contacts.PHOTO_URI
     };
+    private static final DialerMetrics.Counter QUERY_COUNT =
+            DialerMetrics.counter("ContactResultsViewModel.queryCount");
+    private static final LatencyHistogram CONVERT_LATENCY =
+            DialerMetrics.histogram("ContactResultsViewModel.onQueryFinished");
+    private static final DialerMetrics.Gauge LOADED_SIZE =
+            DialerMetrics.gauge("ContactResultsViewModel.loadedResults");
 
     private final SearchQueryParamProvider mSearchQueryParamProvider;
     private final ObservableAsyncQuery mObservableAsyncQuery;
@@ -66,6 +75,7 @@ public class ContactResultsViewModel extends AndroidViewModel {
         if (TextUtils.isEmpty(searchQuery)) {
             mContactSearchResultsLiveData.setValue(Collections.emptyList());
         } else {
+            QUERY_COUNT.increment();
             mObservableAsyncQuery.startQuery();
         }
     }
@@ -84,6 +94,7 @@ public class ContactResultsViewModel extends AndroidViewModel {
             return;
         }
 
+        long startNanos = SystemClock.elapsedRealtimeNanos();
         List<ContactDetails> contactDetails = new ArrayList<>();
         while (cursor.moveToNext()) {
             int idColIdx = cursor.getColumnIndex(ContactsContract.Contacts._ID);
@@ -101,6 +112,8 @@ public class ContactResultsViewModel extends AndroidViewModel {
         }
         mContactSearchResultsLiveData.setValue(contactDetails);
         cursor.close();
+        CONVERT_LATENCY.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+        LOADED_SIZE.set(contactDetails.size());
     }
 
     private class SearchQueryParamProvider implements QueryParam.Provider {
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.widget;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Future;
+
+/**
+ * Handle of a task submitted to the {@link WorkerExecutor}. Cancelling it removes the task from
+ * its lane queue if it hasn't started yet. A running task is not interrupted, it is expected to
+ * check {@link #isCancelled()} and stop early.
+ */
+public class CancellationToken {
+    private volatile boolean mCancelled;
+    @Nullable
+    private volatile Future<?> mFuture;
+
+    /** Cancels the task. Can be called from any thread, more than once. */
+    public void cancel() {
+        mCancelled = true;
+        Future<?> future = mFuture;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /** Returns whether the task has been cancelled. */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    void setFuture(Future<?> future) {
+        mFuture = future;
+        // The token may have been cancelled while the task was being submitted.
+        if (mCancelled) {
+            future.cancel(false);
+        }
+    }
+}
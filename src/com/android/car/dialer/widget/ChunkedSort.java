@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.widget;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A stable merge sort for {@link WorkerExecutor} tasks which checks a {@link CancellationToken}
+ * every {@link #CHUNK_SIZE} elements, so a superseded sort gives its lane back promptly.
+ */
+public final class ChunkedSort {
+    @VisibleForTesting
+    static final int CHUNK_SIZE = 512;
+
+    /**
+     * Returns a sorted copy of the list, or {@code null} if the token got cancelled before the
+     * sort finished. The list itself is not modified.
+     */
+    @Nullable
+    public static <T> List<T> sort(@NonNull List<T> list,
+            @NonNull Comparator<? super T> comparator,
+            @NonNull CancellationToken cancellationToken) {
+        @SuppressWarnings("unchecked")
+        T[] source = (T[]) list.toArray();
+        int size = source.length;
+
+        // Sort chunks in place, then merge them pairwise into doubling runs.
+        for (int start = 0; start < size; start += CHUNK_SIZE) {
+            if (cancellationToken.isCancelled()) {
+                return null;
+            }
+            Arrays.sort(source, start, Math.min(start + CHUNK_SIZE, size), comparator);
+        }
+
+        T[] destination = source.clone();
+        for (int width = CHUNK_SIZE; width < size; width *= 2) {
+            for (int start = 0; start < size; start += 2 * width) {
+                int middle = Math.min(start + width, size);
+                int end = Math.min(start + 2 * width, size);
+                if (!merge(source, destination, start, middle, end, comparator,
+                        cancellationToken)) {
+                    return null;
+                }
+            }
+            T[] merged = destination;
+            destination = source;
+            source = merged;
+        }
+        return new ArrayList<>(Arrays.asList(source));
+    }
+
+    /** Merges two adjacent sorted runs. Returns false if cancelled. */
+    private static <T> boolean merge(T[] source, T[] destination, int start, int middle, int end,
+            Comparator<? super T> comparator, CancellationToken cancellationToken) {
+        int left = start;
+        int right = middle;
+        for (int i = start; i < end; i++) {
+            if ((i - start) % CHUNK_SIZE == 0 && cancellationToken.isCancelled()) {
+                return false;
+            }
+            // Taking from the left run on ties keeps the sort stable.
+            if (right >= end
+                    || (left < middle && comparator.compare(source[left], source[right]) <= 0)) {
+                destination[i] = source[left++];
+            } else {
+                destination[i] = source[right++];
+            }
+        }
+        return true;
+    }
+
+    private ChunkedSort() {
+    }
+}
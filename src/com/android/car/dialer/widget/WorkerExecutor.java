@@ -16,38 +16,234 @@
 
 package com.android.car.dialer.widget;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import android.os.Process;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.perf.DialerMetrics;
+import com.android.car.dialer.perf.LatencyHistogram;
+import com.android.internal.annotations.GuardedBy;
+import com.android.internal.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
- * WorkerExecutor is a singleton tied to the application to provide {@link ExecutorService} for
- * Dialer to run tasks in background.
+ * WorkerExecutor is a singleton tied to the application to run Dialer tasks in background.
+ *
+ * <p>Tasks are submitted to a {@link Lane}. Each lane has its own thread, so slow bulk work
+ * doesn't delay latency sensitive work, and runs its tasks one at a time in submission order.
+ * Lane queues are bounded: when a queue is full the new task is rejected, and the token returned
+ * for it is already cancelled. Cancelled tasks are removed from their queue right away, so
+ * cancelling and resubmitting a task doesn't fill the queue with dead tasks.
  */
 public class WorkerExecutor {
+    private static final String TAG = "CD.WorkerExecutor";
+
+    /** The lanes tasks can be submitted to, from the most to the least latency sensitive. */
+    public enum Lane {
+        /** Work on the path of an incoming or ongoing call. */
+        RING_CRITICAL("RingCritical", Process.THREAD_PRIORITY_FOREGROUND, 16),
+        /** Work the user is waiting for, e.g. sorting the list on screen. */
+        INTERACTIVE("Interactive", Process.THREAD_PRIORITY_DEFAULT, 32),
+        /** Work nobody is waiting for, e.g. warming up caches. */
+        BACKGROUND("Background", Process.THREAD_PRIORITY_BACKGROUND, 64);
+
+        private final String mName;
+        private final int mThreadPriority;
+        private final int mQueueCapacity;
+
+        Lane(String name, int threadPriority, int queueCapacity) {
+            mName = name;
+            mThreadPriority = threadPriority;
+            mQueueCapacity = queueCapacity;
+        }
+    }
+
+    /** A background task. Long running tasks should check the token and return early. */
+    public interface Task {
+        void run(@NonNull CancellationToken cancellationToken);
+    }
+
+    private static final Object sLock = new Object();
+    @GuardedBy("sLock")
     private static WorkerExecutor sWorkerExecutor;
 
-    private ExecutorService mSingleThreadExecutor;
+    private final LaneExecutor[] mLaneExecutors;
 
     /** Returns the singleton WorkerExecutor for the application. */
     public static WorkerExecutor getInstance() {
-        if (sWorkerExecutor == null) {
-            sWorkerExecutor = new WorkerExecutor();
+        synchronized (sLock) {
+            if (sWorkerExecutor == null) {
+                sWorkerExecutor = new WorkerExecutor();
+            }
+            return sWorkerExecutor;
         }
-        return sWorkerExecutor;
     }
 
     private WorkerExecutor() {
-        mSingleThreadExecutor = Executors.newSingleThreadExecutor();
+        Lane[] lanes = Lane.values();
+        mLaneExecutors = new LaneExecutor[lanes.length];
+        for (Lane lane : lanes) {
+            mLaneExecutors[lane.ordinal()] = new LaneExecutor(lane);
+        }
+    }
+
+    /**
+     * Submits a task to the given lane. The returned token cancels it. Tasks submitted while the
+     * lane queue is full, or after {@link #tearDown()}, are rejected: the returned token is
+     * already cancelled and the task never runs.
+     */
+    public CancellationToken submit(@NonNull Lane lane, @NonNull Task task) {
+        CancellationToken cancellationToken = new CancellationToken();
+        LaneExecutor laneExecutor = mLaneExecutors[lane.ordinal()];
+        LaneTask laneTask = new LaneTask(task, cancellationToken, laneExecutor);
+        cancellationToken.setFuture(laneTask);
+        laneExecutor.submit(laneTask);
+        return cancellationToken;
     }
 
-    /** Returns the single thread executor. */
-    public ExecutorService getSingleThreadExecutor() {
-        return mSingleThreadExecutor;
+    /** Returns the number of tasks waiting in the given lane. */
+    @VisibleForTesting
+    int getQueueDepth(@NonNull Lane lane) {
+        return mLaneExecutors[lane.ordinal()].getQueue().size();
     }
 
-    /** Tears down the singleton WorkerExecutor for the application */
+    /**
+     * Tears down the singleton WorkerExecutor for the application. All tasks are cancelled, and
+     * the running ones are not waited for: they finish on their lane thread, which then exits.
+     * This doesn't block, so it can be called from the main thread. {@link #getInstance()} starts
+     * over with a new instance right away.
+     */
     public void tearDown() {
-        mSingleThreadExecutor.shutdown();
-        sWorkerExecutor = null;
+        synchronized (sLock) {
+            if (sWorkerExecutor == this) {
+                sWorkerExecutor = null;
+            }
+        }
+        for (LaneExecutor laneExecutor : mLaneExecutors) {
+            laneExecutor.cancelAll();
+        }
+    }
+
+    /** A task queued in a lane, remembering its token and when it was queued. */
+    private static class LaneTask extends FutureTask<Void> {
+        private final CancellationToken mCancellationToken;
+        private final LaneExecutor mLaneExecutor;
+        private final long mQueuedNanos = SystemClock.elapsedRealtimeNanos();
+
+        private LaneTask(Task task, CancellationToken cancellationToken,
+                LaneExecutor laneExecutor) {
+            super(() -> {
+                if (!cancellationToken.isCancelled()) {
+                    task.run(cancellationToken);
+                }
+            }, null);
+            mCancellationToken = cancellationToken;
+            mLaneExecutor = laneExecutor;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mLaneExecutor.remove(this)) {
+                mLaneExecutor.mQueueDepth.set(mLaneExecutor.getQueue().size());
+            }
+            return cancelled;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                get();
+            } catch (ExecutionException e) {
+                L.e(TAG, e, "Task failed");
+            } catch (CancellationException | InterruptedException e) {
+                // Can't happen, the task is done and not cancelled.
+            }
+        }
+    }
+
+    /** Single threaded executor of a lane with a bounded queue. */
+    private static class LaneExecutor extends ThreadPoolExecutor {
+        private final Lane mLane;
+        private final DialerMetrics.Gauge mQueueDepth;
+        private final DialerMetrics.Counter mRejectedCount;
+        private final LatencyHistogram mQueueLatency;
+        private volatile LaneTask mRunningTask;
+
+        private LaneExecutor(Lane lane) {
+            super(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(lane.mQueueCapacity),
+                    runnable -> new Thread(() -> {
+                        Process.setThreadPriority(lane.mThreadPriority);
+                        runnable.run();
+                    }, "CD.Worker." + lane.mName),
+                    (runnable, executor) ->
+                            ((LaneExecutor) executor).onRejected((LaneTask) runnable));
+            mLane = lane;
+            String prefix = "WorkerExecutor." + lane.mName;
+            mQueueDepth = DialerMetrics.gauge(prefix + ".queueDepth");
+            mRejectedCount = DialerMetrics.counter(prefix + ".rejectedCount");
+            mQueueLatency = DialerMetrics.histogram(prefix + ".queueLatency");
+        }
+
+        private void submit(LaneTask laneTask) {
+            execute(laneTask);
+            mQueueDepth.set(getQueue().size());
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable runnable) {
+            super.beforeExecute(thread, runnable);
+            mRunningTask = (LaneTask) runnable;
+            mQueueDepth.set(getQueue().size());
+            mQueueLatency.record(
+                    SystemClock.elapsedRealtimeNanos() - mRunningTask.mQueuedNanos);
+        }
+
+        @Override
+        protected void afterExecute(Runnable runnable, Throwable throwable) {
+            super.afterExecute(runnable, throwable);
+            mRunningTask = null;
+        }
+
+        /**
+         * Cancels the pending tasks and the token of the running one, and stops accepting new
+         * tasks. The running task is not interrupted.
+         */
+        private void cancelAll() {
+            shutdown();
+            List<Runnable> pendingTasks = new ArrayList<>();
+            getQueue().drainTo(pendingTasks);
+            for (Runnable pending : pendingTasks) {
+                ((LaneTask) pending).mCancellationToken.cancel();
+            }
+            LaneTask runningTask = mRunningTask;
+            if (runningTask != null) {
+                runningTask.mCancellationToken.cancel();
+            }
+        }
+
+        private void onRejected(LaneTask laneTask) {
+            if (isShutdown()) {
+                L.w(TAG, "%s lane is torn down, dropping task", mLane.mName);
+                laneTask.mCancellationToken.cancel();
+                return;
+            }
+            L.w(TAG, "%s lane queue is full, rejecting the task", mLane.mName);
+            laneTask.mCancellationToken.cancel();
+            mRejectedCount.increment();
+        }
     }
 }
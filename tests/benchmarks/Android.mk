@@ -0,0 +1,52 @@
+LOCAL_PATH := $(call my-dir)
+#############################################################
+# Car Dialer host benchmark target.                         #
+#############################################################
+include $(CLEAR_VARS)
+
+LOCAL_MODULE := CarDialerBenchmarks
+LOCAL_MODULE_CLASS := JAVA_LIBRARIES
+
+LOCAL_SRC_FILES := $(call all-java-files-under, src)
+
+LOCAL_JAVA_RESOURCE_DIRS := config
+
+# Include the testing libraries
+LOCAL_JAVA_LIBRARIES := \
+    android.car \
+    robolectric_android-all-stub \
+    Robolectric_all-target \
+    mockito-robolectric-prebuilt \
+    truth-prebuilt
+
+LOCAL_INSTRUMENTATION_FOR := CarDialerAppForTesting
+
+LOCAL_MODULE_TAGS := optional
+
+# Generate test_config.properties
+include external/robolectric-shadows/gen_test_config.mk
+include $(BUILD_STATIC_JAVA_LIBRARY)
+
+#############################################################
+# Car Dialer runner target to run the benchmarks.           #
+#############################################################
+include $(CLEAR_VARS)
+
+LOCAL_MODULE := RunCarDialerBenchmarks
+
+LOCAL_JAVA_LIBRARIES := \
+    android.car \
+    CarDialerBenchmarks \
+    robolectric_android-all-stub \
+    Robolectric_all-target \
+    mockito-robolectric-prebuilt \
+    truth-prebuilt
+
+LOCAL_TEST_PACKAGE := CarDialerAppForTesting
+
+LOCAL_INSTRUMENT_SOURCE_DIRS := $(dir $(LOCAL_PATH))../src
+
+# Benchmarks are named *Benchmark.java so they don't run as part of RunCarDialerRoboTests.
+LOCAL_ROBOTEST_FILES := $(call find-files-in-subdirs,$(LOCAL_PATH)/src,*Benchmark.java,.)
+
+include external/robolectric-shadows/run_robotests.mk
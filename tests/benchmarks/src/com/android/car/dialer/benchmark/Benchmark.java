@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A small JMH style harness. A benchmark runs a number of warmup iterations followed by measured
+ * iterations, and reports the median time and the allocated bytes per operation. Results can be
+ * written to a file and compared against a previous run, see readme.md.
+ */
+public final class Benchmark {
+    /** Environment variable naming the file results are appended to. */
+    private static final String OUTPUT_ENV = "CAR_DIALER_BENCHMARK_OUTPUT";
+    /** Environment variable naming a results file to compare against. */
+    private static final String BASELINE_ENV = "CAR_DIALER_BENCHMARK_BASELINE";
+
+    private static final int DEFAULT_WARMUP_ITERATIONS = 5;
+    private static final int DEFAULT_MEASUREMENT_ITERATIONS = 10;
+
+    private static Map<String, Double> sBaseline;
+
+    /** Sink for results so that the JIT can't eliminate the measured code. */
+    private static volatile Object sBlackhole;
+
+    /** The measured operation. It receives the input prepared for the iteration. */
+    public interface Operation<T> {
+        Object run(T input) throws Exception;
+    }
+
+    private final String mName;
+    private int mOperationsPerIteration = 1;
+    private int mWarmupIterations = DEFAULT_WARMUP_ITERATIONS;
+    private int mMeasurementIterations = DEFAULT_MEASUREMENT_ITERATIONS;
+
+    public Benchmark(String name) {
+        mName = name;
+    }
+
+    /**
+     * Sets how many operations one iteration performs, e.g. the number of rows of a cursor, so
+     * results are reported per operation.
+     */
+    public Benchmark setOperationsPerIteration(int operationsPerIteration) {
+        mOperationsPerIteration = operationsPerIteration;
+        return this;
+    }
+
+    public Benchmark setIterations(int warmupIterations, int measurementIterations) {
+        mWarmupIterations = warmupIterations;
+        mMeasurementIterations = measurementIterations;
+        return this;
+    }
+
+    /** Runs the operation on the same input for every iteration. */
+    public Result run(Operation<Void> operation) throws Exception {
+        return run(() -> null, operation);
+    }
+
+    /**
+     * Runs the operation. The input of each iteration is created by the setup outside of the
+     * measured time, which is needed for operations that consume or mutate their input.
+     */
+    public <T> Result run(Supplier<T> setUp, Operation<T> operation) throws Exception {
+        for (int i = 0; i < mWarmupIterations; i++) {
+            sBlackhole = operation.run(setUp.get());
+        }
+
+        long[] nanos = new long[mMeasurementIterations];
+        long[] allocatedBytes = new long[mMeasurementIterations];
+        for (int i = 0; i < mMeasurementIterations; i++) {
+            T input = setUp.get();
+            long startBytes = getAllocatedBytes();
+            long startNanos = System.nanoTime();
+            sBlackhole = operation.run(input);
+            nanos[i] = System.nanoTime() - startNanos;
+            allocatedBytes[i] = getAllocatedBytes() - startBytes;
+        }
+        sBlackhole = null;
+
+        Result result = new Result(mName, median(nanos) / (double) mOperationsPerIteration,
+                median(allocatedBytes) / mOperationsPerIteration);
+        report(result);
+        return result;
+    }
+
+    /** The outcome of a benchmark. */
+    public static final class Result {
+        private final String mName;
+        private final double mNanosPerOperation;
+        private final long mBytesPerOperation;
+
+        private Result(String name, double nanosPerOperation, long bytesPerOperation) {
+            mName = name;
+            mNanosPerOperation = nanosPerOperation;
+            mBytesPerOperation = bytesPerOperation;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /** Median time of an operation in nanoseconds. */
+        public double getNanosPerOperation() {
+            return mNanosPerOperation;
+        }
+
+        /** Median bytes allocated by an operation, or a negative value if not supported. */
+        public long getBytesPerOperation() {
+            return mBytesPerOperation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %.1f ns/op %d B/op", mName, mNanosPerOperation,
+                    mBytesPerOperation);
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /** Returns the bytes allocated by the current thread so far, or -1 if not supported. */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void report(Result result) throws IOException {
+        StringBuilder line = new StringBuilder("BENCHMARK ").append(result);
+        Double baseline = getBaseline().get(result.getName());
+        if (baseline != null) {
+            line.append(String.format(" (%+.1f%% vs baseline)",
+                    (result.getNanosPerOperation() - baseline) * 100 / baseline));
+        }
+        System.out.println(line);
+
+        String output = System.getenv(OUTPUT_ENV);
+        if (output != null) {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(output, true))) {
+                writer.printf("%s\t%f\t%d\n", result.getName(), result.getNanosPerOperation(),
+                        result.getBytesPerOperation());
+            }
+        }
+    }
+
+    private static synchronized Map<String, Double> getBaseline() throws IOException {
+        if (sBaseline == null) {
+            sBaseline = new HashMap<>();
+            String baseline = System.getenv(BASELINE_ENV);
+            if (baseline != null) {
+                try (BufferedReader reader = new BufferedReader(new FileReader(baseline))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] fields = line.split("\t");
+                        sBaseline.put(fields[0], Double.parseDouble(fields[1]));
+                    }
+                }
+            }
+        }
+        return sBaseline;
+    }
+}
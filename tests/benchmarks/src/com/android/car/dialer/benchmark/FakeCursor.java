@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.benchmark;
+
+import android.database.AbstractCursor;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A read only cursor whose values are generated on demand, so cursors with a large number of rows
+ * don't have to be held in memory.
+ */
+public class FakeCursor extends AbstractCursor {
+
+    /** Generates the value of a cell. Must return the same value for the same cell. */
+    public interface ValueGenerator {
+        @Nullable
+        Object getValue(int row, int column);
+    }
+
+    private final String[] mColumnNames;
+    private final int mCount;
+    private final ValueGenerator mValueGenerator;
+
+    public FakeCursor(String[] columnNames, int count, ValueGenerator valueGenerator) {
+        mColumnNames = columnNames;
+        mCount = count;
+        mValueGenerator = valueGenerator;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mColumnNames;
+    }
+
+    @Override
+    public String getString(int column) {
+        Object value = getValue(column);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        Object value = getValue(column);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        Object value = getValue(column);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value == null ? 0 : Double.parseDouble(value.toString());
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return getValue(column) == null;
+    }
+
+    private Object getValue(int column) {
+        checkPosition();
+        // Columns the code under test asks for but the fake doesn't define read as null.
+        if (column < 0 || column >= mColumnNames.length) {
+            return null;
+        }
+        return mValueGenerator.getValue(getPosition(), column);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.benchmark;
+
+import android.database.Cursor;
+import android.provider.CallLog;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+
+/**
+ * Cursors with deterministic synthetic call log and contact rows, shaped like the ones returned by
+ * the call log and contacts providers.
+ */
+public final class SyntheticData {
+    /** The row counts benchmarks are run with. */
+    public static final int[] ROW_COUNTS = {10000, 100000};
+
+    /** Base timestamp of the newest call log row. */
+    private static final long NOW_MILLIS = 1546300800000L;
+    private static final long MINUTE_MILLIS = 60 * 1000;
+
+    private static final String[] CALL_LOG_COLUMNS = {
+            CallLog.Calls._ID,
+            CallLog.Calls.NUMBER,
+            CallLog.Calls.DATE,
+            CallLog.Calls.DURATION,
+            CallLog.Calls.TYPE,
+            CallLog.Calls.CACHED_NAME,
+            CallLog.Calls.NEW,
+            CallLog.Calls.IS_READ,
+    };
+
+    private static final String[] CONTACT_COLUMNS = {
+            ContactsContract.Data._ID,
+            ContactsContract.Data.CONTACT_ID,
+            ContactsContract.Data.RAW_CONTACT_ID,
+            ContactsContract.Data.MIMETYPE,
+            ContactsContract.Data.LOOKUP_KEY,
+            ContactsContract.Data.DISPLAY_NAME,
+            ContactsContract.Data.DISPLAY_NAME_ALTERNATIVE,
+            ContactsContract.Data.STARRED,
+            ContactsContract.Data.PHOTO_URI,
+            ContactsContract.Data.IS_PRIMARY,
+            ContactsContract.Data.IS_SUPER_PRIMARY,
+            Phone.NUMBER,
+            Phone.NORMALIZED_NUMBER,
+            Phone.TYPE,
+            Phone.LABEL,
+    };
+
+    private static final String[] GIVEN_NAMES = {
+            "Alex", "Bao", "Chloé", "Dmitri", "Emma", "Farah", "Giulia", "Hiro", "Ines", "Jonas",
+            "Kwame", "Lena", "Mateo", "Nadia", "Oskar", "Priya", "Quinn", "Rosa", "Sven", "Yuki",
+    };
+
+    private static final String[] FAMILY_NAMES = {
+            "Andersson", "Becker", "Chen", "Dubois", "Eriksen", "Fischer", "García", "Hansen",
+            "Ivanova", "Jensen", "Kim", "López", "Müller", "Nguyen", "O'Brien", "Patel", "Rossi",
+            "Schmidt", "Tanaka", "Weber", "Zhang",
+    };
+
+    private static final int[] CALL_TYPES = {
+            CallLog.Calls.INCOMING_TYPE,
+            CallLog.Calls.OUTGOING_TYPE,
+            CallLog.Calls.MISSED_TYPE,
+    };
+
+    /**
+     * Returns a call log cursor sorted by date descending. About a third of the rows repeat the
+     * number of the previous row so that consecutive call logs are merged.
+     */
+    public static Cursor newCallLogCursor(int count) {
+        return new FakeCursor(CALL_LOG_COLUMNS, count, (row, column) -> {
+            switch (CALL_LOG_COLUMNS[column]) {
+                case CallLog.Calls._ID:
+                    return (long) row;
+                case CallLog.Calls.NUMBER:
+                    return getPhoneNumber(row - row % 3 + (row % 3 == 2 ? 2 : 0));
+                case CallLog.Calls.DATE:
+                    return NOW_MILLIS - row * MINUTE_MILLIS;
+                case CallLog.Calls.DURATION:
+                    return (long) (row * 7 % 600);
+                case CallLog.Calls.TYPE:
+                    return CALL_TYPES[row % CALL_TYPES.length];
+                case CallLog.Calls.CACHED_NAME:
+                    return null;
+                case CallLog.Calls.NEW:
+                case CallLog.Calls.IS_READ:
+                    return row % 2;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Returns a phone data cursor with one row per phone number. Every contact has two numbers on
+     * consecutive rows, the way the contacts provider groups data rows by contact.
+     */
+    public static Cursor newContactCursor(int count) {
+        return new FakeCursor(CONTACT_COLUMNS, count, SyntheticData::getContactValue);
+    }
+
+    /**
+     * Returns the given rows of the phone data cursor of {@link #newContactCursor}, in the given
+     * order, e.g. the rows a selection matches.
+     */
+    public static Cursor newContactCursor(int[] rows) {
+        return new FakeCursor(CONTACT_COLUMNS, rows.length,
+                (row, column) -> getContactValue(rows[row], column));
+    }
+
+    /** Returns whether the contact with the given id is starred, one contact in 50 is. */
+    public static boolean isStarred(int contactId) {
+        return contactId % 50 == 0;
+    }
+
+    private static Object getContactValue(int row, int column) {
+        int contactId = row / 2;
+        switch (CONTACT_COLUMNS[column]) {
+            case ContactsContract.Data._ID:
+                return (long) row;
+            case ContactsContract.Data.CONTACT_ID:
+            case ContactsContract.Data.RAW_CONTACT_ID:
+                return (long) contactId;
+            case ContactsContract.Data.MIMETYPE:
+                return Phone.CONTENT_ITEM_TYPE;
+            case ContactsContract.Data.LOOKUP_KEY:
+                return "lookup" + contactId;
+            case ContactsContract.Data.DISPLAY_NAME:
+                return getGivenName(contactId) + " " + getFamilyName(contactId);
+            case ContactsContract.Data.DISPLAY_NAME_ALTERNATIVE:
+                return getFamilyName(contactId) + ", " + getGivenName(contactId);
+            case ContactsContract.Data.STARRED:
+                return isStarred(contactId) ? 1 : 0;
+            case ContactsContract.Data.PHOTO_URI:
+                return null;
+            case ContactsContract.Data.IS_PRIMARY:
+            case ContactsContract.Data.IS_SUPER_PRIMARY:
+                return row % 2 == 0 ? 1 : 0;
+            case Phone.NUMBER:
+            case Phone.NORMALIZED_NUMBER:
+                return getPhoneNumber(row);
+            case Phone.TYPE:
+                return row % 2 == 0 ? Phone.TYPE_MOBILE : Phone.TYPE_WORK;
+            case Phone.LABEL:
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /** Returns a distinct US number for each index. */
+    public static String getPhoneNumber(int index) {
+        return String.format("+1650%07d", index % 10000000);
+    }
+
+    private static String getGivenName(int contactId) {
+        return GIVEN_NAMES[contactId % GIVEN_NAMES.length];
+    }
+
+    private static String getFamilyName(int contactId) {
+        // Combined with the given name this gives 420 distinct names before a repeat, plus a
+        // numeric suffix so that the sort has to compare beyond the first characters.
+        return FAMILY_NAMES[contactId / GIVEN_NAMES.length % FAMILY_NAMES.length]
+                + (contactId / (GIVEN_NAMES.length * FAMILY_NAMES.length));
+    }
+
+    private SyntheticData() {
+    }
+}
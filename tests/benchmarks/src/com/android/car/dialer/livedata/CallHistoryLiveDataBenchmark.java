@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.android.car.dialer.benchmark.Benchmark;
+import com.android.car.dialer.benchmark.SyntheticData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class CallHistoryLiveDataBenchmark {
+
+    private CallHistoryLiveData mCallHistoryLiveData;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.application;
+        mCallHistoryLiveData = CallHistoryLiveData.newInstance(context);
+    }
+
+    @Test
+    public void convertToEntity() throws Exception {
+        for (int rowCount : SyntheticData.ROW_COUNTS) {
+            Benchmark.Result result =
+                    new Benchmark("CallHistoryLiveData.convertToEntity[" + rowCount + "]")
+                            .setOperationsPerIteration(rowCount)
+                            .run(() -> SyntheticData.newCallLogCursor(rowCount),
+                                    this::convertToEntity);
+
+            assertThat(result.getNanosPerOperation()).isGreaterThan(0.0);
+        }
+    }
+
+    private Object convertToEntity(Cursor cursor) {
+        try {
+            return mCallHistoryLiveData.convertToEntity(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+}
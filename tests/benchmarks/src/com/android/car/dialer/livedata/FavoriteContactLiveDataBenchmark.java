@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+
+import com.android.car.dialer.benchmark.Benchmark;
+import com.android.car.dialer.benchmark.SyntheticData;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowContentResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares loading the favorites from the starred contact ids and their phone rows with the single
+ * query on the data table they were loaded with before. Besides the time and the allocations of a
+ * load, reports the rows the provider scans for it.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FavoriteContactLiveDataBenchmark {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void load() throws Exception {
+        for (int rowCount : SyntheticData.ROW_COUNTS) {
+            CountingContactsProvider provider = new CountingContactsProvider(rowCount);
+            ShadowContentResolver.registerProviderInternal(ContactsContract.AUTHORITY, provider);
+
+            Benchmark.Result result =
+                    new Benchmark("FavoriteContactLiveData.load[" + rowCount + "]")
+                            .run(input -> loadFavorites());
+            Benchmark.Result singleQueryResult =
+                    new Benchmark("FavoriteContactLiveData.loadSingleQuery[" + rowCount + "]")
+                            .run(input -> loadFavoritesWithSingleQuery());
+
+            provider.resetRowsScanned();
+            List<Contact> favorites = loadFavorites();
+            long rowsScanned = provider.resetRowsScanned();
+            List<Contact> singleQueryFavorites = loadFavoritesWithSingleQuery();
+            long singleQueryRowsScanned = provider.resetRowsScanned();
+            System.out.printf("BENCHMARK %s %d rows scanned%n", result.getName(), rowsScanned);
+            System.out.printf("BENCHMARK %s %d rows scanned%n", singleQueryResult.getName(),
+                    singleQueryRowsScanned);
+
+            assertThat(result.getNanosPerOperation()).isGreaterThan(0.0);
+            assertThat(favorites).hasSize(singleQueryFavorites.size());
+            assertThat(rowsScanned).isLessThan(singleQueryRowsScanned);
+        }
+    }
+
+    private List<Contact> loadFavorites() {
+        try (Cursor cursor = FavoriteContactLiveData.queryPhoneRows(mContext)) {
+            return FavoriteContactLiveData.convert(mContext, cursor);
+        }
+    }
+
+    private List<Contact> loadFavoritesWithSingleQuery() {
+        try (Cursor cursor = mContext.getContentResolver().query(
+                ContactsContract.Data.CONTENT_URI,
+                QueryProjections.PHONE_CONTACT,
+                ContactsContract.Data.MIMETYPE + " = ? and " + ContactsContract.Data.STARRED
+                        + " = ?",
+                new String[]{Phone.CONTENT_ITEM_TYPE, "1"},
+                null)) {
+            return FavoriteContactLiveData.convert(mContext, cursor);
+        }
+    }
+
+    /**
+     * A contacts provider over the rows of {@link SyntheticData#newContactCursor}, counting the
+     * rows a query scans the way the contacts provider does: the starred flag isn't indexed, so
+     * filtering on it scans the whole table, while the phone rows of a contact are looked up by
+     * the contact id index.
+     */
+    private static class CountingContactsProvider extends ContentProvider {
+        private final int mRowCount;
+        private long mRowsScanned;
+
+        CountingContactsProvider(int rowCount) {
+            mRowCount = rowCount;
+        }
+
+        /** Returns the rows scanned since the last call. */
+        long resetRowsScanned() {
+            long rowsScanned = mRowsScanned;
+            mRowsScanned = 0;
+            return rowsScanned;
+        }
+
+        @Override
+        public boolean onCreate() {
+            return true;
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection,
+                String[] selectionArgs, String sortOrder) {
+            if (uri.equals(ContactsContract.Contacts.CONTENT_URI)) {
+                // Every contact has phone numbers, two data rows per contact.
+                int contactCount = (mRowCount + 1) / 2;
+                mRowsScanned += contactCount;
+                MatrixCursor cursor = new MatrixCursor(projection);
+                for (int contactId = 0; contactId < contactCount; contactId++) {
+                    if (SyntheticData.isStarred(contactId)) {
+                        cursor.addRow(new Object[]{(long) contactId});
+                    }
+                }
+                return cursor;
+            }
+            if (uri.equals(Phone.CONTENT_URI)) {
+                // The contact id IN (...) selection of the favorites.
+                String ids = selection.substring(selection.indexOf('(') + 1,
+                        selection.lastIndexOf(')'));
+                List<Integer> rows = new ArrayList<>();
+                if (!ids.isEmpty()) {
+                    for (String id : ids.split(",")) {
+                        int contactId = Integer.parseInt(id);
+                        for (int row = contactId * 2; row < Math.min(contactId * 2 + 2, mRowCount);
+                                row++) {
+                            rows.add(row);
+                        }
+                    }
+                }
+                mRowsScanned += rows.size();
+                return SyntheticData.newContactCursor(toArray(rows));
+            }
+            if (uri.equals(ContactsContract.Data.CONTENT_URI)) {
+                // The starred selection of the single query.
+                mRowsScanned += mRowCount;
+                List<Integer> rows = new ArrayList<>();
+                for (int row = 0; row < mRowCount; row++) {
+                    if (SyntheticData.isStarred(row / 2)) {
+                        rows.add(row);
+                    }
+                }
+                return SyntheticData.newContactCursor(toArray(rows));
+            }
+            throw new UnsupportedOperationException("Unexpected uri " + uri);
+        }
+
+        private static int[] toArray(List<Integer> rows) {
+            int[] array = new int[rows.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = rows.get(i);
+            }
+            return array;
+        }
+
+        @Override
+        public String getType(Uri uri) {
+            return null;
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int delete(Uri uri, String selection, String[] selectionArgs) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int update(Uri uri, ContentValues values, String selection,
+                String[] selectionArgs) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.activecall;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import android.telecom.Call;
+
+import com.android.car.dialer.benchmark.Benchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorts lists of calls the size the in call UI sees. {@link Call} can't be instantiated, so the
+ * calls are stub-only mocks; their overhead is part of the numbers and is the same across runs.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CallComparatorBenchmark {
+    private static final int CALL_LIST_SIZE = 4;
+    private static final int SORTS_PER_ITERATION = 10000;
+    private static final int[] CALL_STATES = {
+            Call.STATE_DIALING,
+            Call.STATE_HOLDING,
+            Call.STATE_ACTIVE,
+            Call.STATE_DISCONNECTING,
+    };
+
+    private final Comparator<Call> mCallComparator = new InCallViewModel.CallComparator();
+    private final List<Call> mCalls = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Call conference = newCall(Call.STATE_ACTIVE, null);
+        for (int i = 0; i < CALL_LIST_SIZE; i++) {
+            // Every other call is a conference participant.
+            mCalls.add(newCall(CALL_STATES[i % CALL_STATES.length],
+                    i % 2 == 0 ? null : conference));
+        }
+    }
+
+    @Test
+    public void sort() throws Exception {
+        Benchmark.Result result = new Benchmark("InCallViewModel.CallComparator.sort")
+                .setOperationsPerIteration(SORTS_PER_ITERATION)
+                .run(input -> {
+                    List<Call> calls = null;
+                    for (int i = 0; i < SORTS_PER_ITERATION; i++) {
+                        calls = new ArrayList<>(mCalls);
+                        calls.sort(mCallComparator);
+                    }
+                    return calls;
+                });
+
+        assertThat(result.getNanosPerOperation()).isGreaterThan(0.0);
+    }
+
+    private static Call newCall(int state, Call parent) {
+        Call call = mock(Call.class, withSettings().stubOnly());
+        when(call.getState()).thenReturn(state);
+        when(call.getParent()).thenReturn(parent);
+        return call;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.text.format.DateUtils;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.dialer.benchmark.Benchmark;
+import com.android.car.dialer.benchmark.SyntheticData;
+import com.android.car.dialer.livedata.CallHistoryLiveData;
+import com.android.car.dialer.livedata.HeartBeatLiveData;
+import com.android.car.telephony.common.InMemoryPhoneBook;
+import com.android.car.telephony.common.PhoneCallLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class UiCallLogLiveDataBenchmark {
+
+    private Context mContext;
+    private UiCallLogLiveData mUiCallLogLiveData;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        InMemoryPhoneBook.init(mContext);
+        mUiCallLogLiveData = new UiCallLogLiveData(mContext,
+                new HeartBeatLiveData(DateUtils.MINUTE_IN_MILLIS),
+                CallHistoryLiveData.newInstance(mContext),
+                new MutableLiveData<>());
+    }
+
+    @After
+    public void tearDown() {
+        InMemoryPhoneBook.tearDown();
+    }
+
+    @Test
+    public void convert() throws Exception {
+        for (int rowCount : SyntheticData.ROW_COUNTS) {
+            List<PhoneCallLog> phoneCallLogs = loadPhoneCallLogs(rowCount);
+
+            Benchmark.Result result =
+                    new Benchmark("UiCallLogLiveData.convert[" + rowCount + "]")
+                            .setOperationsPerIteration(phoneCallLogs.size())
+                            .setIterations(3, 5)
+                            .run(input -> mUiCallLogLiveData.convert(phoneCallLogs));
+
+            assertThat(result.getNanosPerOperation()).isGreaterThan(0.0);
+        }
+    }
+
+    private static List<PhoneCallLog> loadPhoneCallLogs(int rowCount) {
+        List<PhoneCallLog> phoneCallLogs = new ArrayList<>();
+        try (Cursor cursor = SyntheticData.newCallLogCursor(rowCount)) {
+            while (cursor.moveToNext()) {
+                phoneCallLogs.add(PhoneCallLog.fromCursor(RuntimeEnvironment.application, cursor));
+            }
+        }
+        return phoneCallLogs;
+    }
+}
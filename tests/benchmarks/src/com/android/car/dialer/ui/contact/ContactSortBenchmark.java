@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.contact;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.android.car.dialer.benchmark.Benchmark;
+import com.android.car.dialer.benchmark.SyntheticData;
+import com.android.car.dialer.widget.CancellationToken;
+import com.android.car.dialer.widget.ChunkedSort;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sorts the contact list with {@link ChunkedSort} and the comparators {@link ContactListViewModel}
+ * uses for the first name and last name sort orders, the way the view model sorts on its worker
+ * lane.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ContactSortBenchmark {
+
+    @Test
+    public void sortByDisplayName() throws Exception {
+        sort("ContactListViewModel.sortByDisplayName", Contact::compareByDisplayName);
+    }
+
+    @Test
+    public void sortByAltDisplayName() throws Exception {
+        sort("ContactListViewModel.sortByAltDisplayName", Contact::compareByAltDisplayName);
+    }
+
+    private void sort(String name, Comparator<Contact> comparator) throws Exception {
+        for (int rowCount : SyntheticData.ROW_COUNTS) {
+            List<Contact> contacts = loadContacts(rowCount);
+            // The loaded order is already mostly sorted by given name, shuffle it the same way
+            // for every run so the sort does real work.
+            Collections.shuffle(contacts, new Random(rowCount));
+
+            // ChunkedSort sorts a copy, so every iteration gets the same shuffled input.
+            Benchmark.Result result = new Benchmark(name + "[" + contacts.size() + "]")
+                    .setOperationsPerIteration(contacts.size())
+                    .run(input -> ChunkedSort.sort(contacts, comparator, new CancellationToken()));
+
+            assertThat(result.getNanosPerOperation()).isGreaterThan(0.0);
+        }
+    }
+
+    /** Loads contacts, merging the two phone number rows of each contact. */
+    private static List<Contact> loadContacts(int rowCount) {
+        Context context = RuntimeEnvironment.application;
+        List<Contact> contacts = new ArrayList<>();
+        try (Cursor cursor = SyntheticData.newContactCursor(rowCount)) {
+            while (cursor.moveToNext()) {
+                Contact contact = Contact.fromCursor(context, cursor);
+                if (cursor.moveToNext()) {
+                    contact.merge(Contact.fromCursor(context, cursor));
+                }
+                contacts.add(contact);
+            }
+        }
+        return contacts;
+    }
+}
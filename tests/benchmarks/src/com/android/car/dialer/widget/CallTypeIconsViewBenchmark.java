@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.widget;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+import com.android.car.dialer.benchmark.Benchmark;
+import com.android.car.dialer.livedata.CallHistoryLiveData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Rebinds and draws a {@link CallTypeIconsView} the way the call history list does while
+ * scrolling. Drawing isn't rasterized under Robolectric, so only the view's own work is measured.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CallTypeIconsViewBenchmark {
+    private static final int BINDS_PER_ITERATION = 10000;
+    private static final int MAX_CALLS_PER_ROW = 5;
+    private static final int[] CALL_TYPES = {
+            CallHistoryLiveData.CallType.INCOMING_TYPE,
+            CallHistoryLiveData.CallType.OUTGOING_TYPE,
+            CallHistoryLiveData.CallType.MISSED_TYPE,
+            CallHistoryLiveData.CallType.VOICEMAIL_TYPE,
+    };
+
+    private CallTypeIconsView mCallTypeIconsView;
+    private Canvas mCanvas;
+
+    @Before
+    public void setUp() {
+        mCallTypeIconsView = new CallTypeIconsView(RuntimeEnvironment.application);
+        mCanvas = new Canvas(Bitmap.createBitmap(200, 50, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void bindAndDraw() throws Exception {
+        int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        Benchmark.Result result = new Benchmark("CallTypeIconsView.bindAndDraw")
+                .setOperationsPerIteration(BINDS_PER_ITERATION)
+                .run(input -> {
+                    for (int i = 0; i < BINDS_PER_ITERATION; i++) {
+                        mCallTypeIconsView.clear();
+                        int callCount = i % MAX_CALLS_PER_ROW + 1;
+                        for (int j = 0; j < callCount; j++) {
+                            mCallTypeIconsView.add(CALL_TYPES[(i + j) % CALL_TYPES.length]);
+                        }
+                        mCallTypeIconsView.measure(unspecified, unspecified);
+                        mCallTypeIconsView.draw(mCanvas);
+                    }
+                    return mCallTypeIconsView.getCallCountText();
+                });
+
+        assertThat(result.getNanosPerOperation()).isGreaterThan(0.0);
+    }
+}
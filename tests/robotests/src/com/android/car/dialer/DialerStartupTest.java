@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class DialerStartupTest {
+    private final List<String> mInitialized = new ArrayList<>();
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void testInitialize_dependenciesFirst() {
+        DialerStartup.Component base = createComponent("Base", false);
+        DialerStartup.Component dependent = createComponent("Dependent", false, base);
+        DialerStartup dialerStartup = new DialerStartup(mContext, Arrays.asList(base, dependent));
+
+        dialerStartup.initialize(dependent);
+
+        assertThat(mInitialized).containsExactly("Base", "Dependent").inOrder();
+        assertThat(dialerStartup.isInitialized(base)).isTrue();
+    }
+
+    @Test
+    public void testInitialize_onlyOnce() {
+        DialerStartup.Component base = createComponent("Base", false);
+        DialerStartup.Component dependent = createComponent("Dependent", false, base);
+        DialerStartup dialerStartup = new DialerStartup(mContext, Arrays.asList(base, dependent));
+
+        dialerStartup.initialize(base);
+        dialerStartup.initialize(dependent);
+        dialerStartup.initialize(dependent);
+
+        assertThat(mInitialized).containsExactly("Base", "Dependent").inOrder();
+    }
+
+    @Test
+    public void testInitializeNext_ringCriticalFirst() {
+        DialerStartup.Component first = createComponent("First", false);
+        DialerStartup.Component ringCritical = createComponent("RingCritical", true);
+        DialerStartup.Component last = createComponent("Last", false);
+        DialerStartup dialerStartup = new DialerStartup(mContext,
+                Arrays.asList(first, ringCritical, last));
+
+        assertThat(dialerStartup.initializeNext()).isTrue();
+        assertThat(mInitialized).containsExactly("RingCritical");
+
+        dialerStartup.initialize(last);
+        assertThat(dialerStartup.initializeNext()).isFalse();
+        assertThat(mInitialized).containsExactly("RingCritical", "Last", "First").inOrder();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInitialize_cycle_throws() {
+        DialerStartup.Component[] dependencies = new DialerStartup.Component[1];
+        DialerStartup.Component first = createComponent("First", false, dependencies);
+        DialerStartup.Component second = createComponent("Second", false, first);
+        dependencies[0] = second;
+        DialerStartup dialerStartup = new DialerStartup(mContext, Arrays.asList(first, second));
+
+        dialerStartup.initialize(first);
+    }
+
+    private DialerStartup.Component createComponent(String name, boolean ringCritical,
+            DialerStartup.Component... dependencies) {
+        return new DialerStartup.Component(name, ringCritical,
+                applicationContext -> mInitialized.add(name), dependencies);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothProfile;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.LiveDataObserver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Collections;
+import java.util.Set;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class AggregatedBluetoothStateLiveDataTest {
+    private MutableLiveData<Integer> mBluetoothStateLiveData;
+    private MutableLiveData<Set<BluetoothDevice>> mPairListLiveData;
+    private MutableLiveData<Integer> mHfpStateLiveData;
+    private AggregatedBluetoothStateLiveData mAggregatedBluetoothStateLiveData;
+    @Mock
+    private LiveDataObserver<AggregatedBluetoothStateLiveData.State> mMockObserver;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        mBluetoothStateLiveData = new MutableLiveData<>();
+        mBluetoothStateLiveData.setValue(BluetoothStateLiveData.BluetoothState.ENABLED);
+        mPairListLiveData = new MutableLiveData<>();
+        mPairListLiveData.setValue(Collections.singleton(mock(BluetoothDevice.class)));
+        mHfpStateLiveData = new MutableLiveData<>();
+        mHfpStateLiveData.setValue(BluetoothProfile.STATE_CONNECTED);
+
+        mAggregatedBluetoothStateLiveData = new AggregatedBluetoothStateLiveData(
+                mBluetoothStateLiveData, mPairListLiveData, mHfpStateLiveData);
+        mAggregatedBluetoothStateLiveData.observeForever(
+                (value) -> mMockObserver.onChanged(value));
+        ShadowLooper.pauseMainLooper();
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+    }
+
+    @Test
+    public void testOnActive_emitsCurrentStateImmediately() {
+        verify(mMockObserver).onChanged(any());
+        AggregatedBluetoothStateLiveData.State state = mAggregatedBluetoothStateLiveData.getValue();
+        assertThat(state.isBluetoothEnabled()).isTrue();
+        assertThat(state.hasPairedDevices()).isTrue();
+        assertThat(state.isHfpConnected()).isTrue();
+    }
+
+    @Test
+    public void testBurstOfChanges_coalescedIntoOneUpdate() {
+        mHfpStateLiveData.setValue(BluetoothProfile.STATE_CONNECTING);
+        mPairListLiveData.setValue(Collections.emptySet());
+        mBluetoothStateLiveData.setValue(BluetoothStateLiveData.BluetoothState.DISABLED);
+        verify(mMockObserver, times(1)).onChanged(any());
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        verify(mMockObserver, times(2)).onChanged(any());
+        AggregatedBluetoothStateLiveData.State state = mAggregatedBluetoothStateLiveData.getValue();
+        assertThat(state.isBluetoothEnabled()).isFalse();
+        assertThat(state.hasPairedDevices()).isFalse();
+        assertThat(state.isHfpConnected()).isFalse();
+    }
+
+    @Test
+    public void testTransientChange_notEmitted() {
+        mHfpStateLiveData.setValue(BluetoothProfile.STATE_DISCONNECTED);
+        mHfpStateLiveData.setValue(BluetoothProfile.STATE_CONNECTED);
+        mPairListLiveData.setValue(Collections.singleton(mock(BluetoothDevice.class)));
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        verify(mMockObserver, times(1)).onChanged(any());
+    }
+}
@@ -20,14 +20,10 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import android.bluetooth.BluetoothHeadsetClient;
-import android.content.Context;
-import android.content.Intent;
 import android.telecom.CallAudioState;
 
 import androidx.lifecycle.Lifecycle;
@@ -37,7 +33,6 @@ import androidx.lifecycle.LifecycleRegistry;
 import com.android.car.dialer.CarDialerRobolectricTestRunner;
 import com.android.car.dialer.LiveDataObserver;
 import com.android.car.dialer.telecom.UiCallManager;
-import com.android.car.dialer.testutils.BroadcastReceiverVerifier;
 
 import org.junit.After;
 import org.junit.Before;
@@ -46,15 +41,11 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.robolectric.RuntimeEnvironment;
 
 @RunWith(CarDialerRobolectricTestRunner.class)
 public class AudioRouteLiveDataTest {
-    private static final String INTENT_ACTION = BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED;
-
     private AudioRouteLiveData mAudioRouteLiveData;
     private LifecycleRegistry mLifecycleRegistry;
-    private BroadcastReceiverVerifier mReceiverVerifier;
     @Mock
     private LifecycleOwner mMockLifecycleOwner;
     @Mock
@@ -66,13 +57,12 @@ public class AudioRouteLiveDataTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        mAudioRouteLiveData = new AudioRouteLiveData(RuntimeEnvironment.application);
+        mAudioRouteLiveData = new AudioRouteLiveData();
         mLifecycleRegistry = new LifecycleRegistry(mMockLifecycleOwner);
         when(mMockLifecycleOwner.getLifecycle()).thenReturn(mLifecycleRegistry);
 
         when(mMockUiCallManager.getAudioRoute()).thenReturn(CallAudioState.ROUTE_EARPIECE);
         UiCallManager.set(mMockUiCallManager);
-        mReceiverVerifier = new BroadcastReceiverVerifier(RuntimeEnvironment.application);
     }
 
     @After
@@ -86,34 +76,38 @@ public class AudioRouteLiveDataTest {
         verify(mMockObserver, never()).onChanged(any());
 
         mLifecycleRegistry.handleLifecycleEvent(Lifecycle.Event.ON_START);
-        mReceiverVerifier.verifyReceiverRegistered(INTENT_ACTION);
+        verify(mMockUiCallManager).addOnAudioRouteChangedListener(any());
         verify(mMockObserver).onChanged(any());
     }
 
     @Test
-    public void testOnBluetoothHfpStateChange() {
+    public void testOnAudioRouteChanged() {
         ArgumentCaptor<Integer> valueCaptor = ArgumentCaptor.forClass(Integer.class);
         doNothing().when(mMockObserver).onChanged(valueCaptor.capture());
+        ArgumentCaptor<UiCallManager.OnAudioRouteChangedListener> listenerCaptor =
+                ArgumentCaptor.forClass(UiCallManager.OnAudioRouteChangedListener.class);
 
         mAudioRouteLiveData.observe(mMockLifecycleOwner, (value) -> mMockObserver.onChanged(value));
         mLifecycleRegistry.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        verify(mMockUiCallManager).addOnAudioRouteChangedListener(listenerCaptor.capture());
         assertThat(mAudioRouteLiveData.getValue()).isEqualTo(CallAudioState.ROUTE_EARPIECE);
         assertThat(valueCaptor.getValue()).isEqualTo(CallAudioState.ROUTE_EARPIECE);
 
         when(mMockUiCallManager.getAudioRoute()).thenReturn(CallAudioState.ROUTE_BLUETOOTH);
-        mReceiverVerifier.getBroadcastReceiverFor(INTENT_ACTION)
-                .onReceive(mock(Context.class), mock(Intent.class));
+        listenerCaptor.getValue().onAudioRouteChanged();
         assertThat(mAudioRouteLiveData.getValue()).isEqualTo(CallAudioState.ROUTE_BLUETOOTH);
         assertThat(valueCaptor.getValue()).isEqualTo(CallAudioState.ROUTE_BLUETOOTH);
     }
 
     @Test
     public void testOnInactiveUnregister() {
+        ArgumentCaptor<UiCallManager.OnAudioRouteChangedListener> listenerCaptor =
+                ArgumentCaptor.forClass(UiCallManager.OnAudioRouteChangedListener.class);
         mAudioRouteLiveData.observe(mMockLifecycleOwner, (value) -> mMockObserver.onChanged(value));
         mLifecycleRegistry.handleLifecycleEvent(Lifecycle.Event.ON_START);
-        int preNumber = mReceiverVerifier.getReceiverNumber();
+        verify(mMockUiCallManager).addOnAudioRouteChangedListener(listenerCaptor.capture());
 
         mLifecycleRegistry.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
-        mReceiverVerifier.verifyReceiverUnregistered(INTENT_ACTION, preNumber);
+        verify(mMockUiCallManager).removeOnAudioRouteChangedListener(listenerCaptor.getValue());
     }
 }
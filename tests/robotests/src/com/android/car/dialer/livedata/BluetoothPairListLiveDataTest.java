@@ -22,6 +22,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.robolectric.Shadows.shadowOf;
@@ -118,6 +119,42 @@ public class BluetoothPairListLiveDataTest {
         verifyBondedDevices(bondedDevices);
     }
 
+    @Test
+    public void testOnBondStateChanged_appliesDeltaWithoutReload() {
+        doNothing().when(mMockObserver).onChanged(mValueCaptor.capture());
+        mBluetoothPairListLiveData.observe(mMockLifecycleOwner,
+                (value) -> mMockObserver.onChanged(value));
+        mLifecycleRegistry.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        assertThat(mBluetoothPairListLiveData.getValue()).isEmpty();
+
+        // The adapter is not updated, so the new device can only come from the broadcast extras.
+        BluetoothDevice bluetoothDevice = mock(BluetoothDevice.class);
+        sendBondStateChanged(bluetoothDevice, BluetoothDevice.BOND_NONE,
+                BluetoothDevice.BOND_BONDING);
+        verify(mMockObserver, times(1)).onChanged(any());
+
+        sendBondStateChanged(bluetoothDevice, BluetoothDevice.BOND_BONDING,
+                BluetoothDevice.BOND_BONDED);
+        verify(mMockObserver, times(2)).onChanged(any());
+        assertThat(mValueCaptor.getValue()).containsExactly(bluetoothDevice);
+
+        sendBondStateChanged(bluetoothDevice, BluetoothDevice.BOND_BONDED,
+                BluetoothDevice.BOND_NONE);
+        verify(mMockObserver, times(3)).onChanged(any());
+        assertThat(mValueCaptor.getValue()).isEmpty();
+    }
+
+    @Test
+    public void testOnBondStateChanged_unchangedAfterReload_notEmitted() {
+        mBluetoothPairListLiveData.observe(mMockLifecycleOwner,
+                (value) -> mMockObserver.onChanged(value));
+        mLifecycleRegistry.handleLifecycleEvent(Lifecycle.Event.ON_START);
+
+        mReceiverVerifier.getBroadcastReceiverFor(INTENT_ACTION)
+                .onReceive(mock(Context.class), mock(Intent.class));
+        verify(mMockObserver, times(1)).onChanged(any());
+    }
+
     @Test
     public void testOnInactiveUnregister() {
         mBluetoothPairListLiveData.observe(mMockLifecycleOwner,
@@ -129,6 +166,16 @@ public class BluetoothPairListLiveDataTest {
         mReceiverVerifier.verifyReceiverUnregistered(INTENT_ACTION, preNumber);
     }
 
+    private void sendBondStateChanged(BluetoothDevice device, int previousBondState,
+            int bondState) {
+        Intent intent = new Intent(INTENT_ACTION);
+        intent.putExtra(BluetoothDevice.EXTRA_DEVICE, device);
+        intent.putExtra(BluetoothDevice.EXTRA_PREVIOUS_BOND_STATE, previousBondState);
+        intent.putExtra(BluetoothDevice.EXTRA_BOND_STATE, bondState);
+        mReceiverVerifier.getBroadcastReceiverFor(INTENT_ACTION)
+                .onReceive(RuntimeEnvironment.application, intent);
+    }
+
     private void verifyBondedDevices(Set bondedDevices) {
         // Verify Bonded Devices for BluetoothAdapter
         assertThat(BluetoothAdapter.getDefaultAdapter().getBondedDevices().containsAll(
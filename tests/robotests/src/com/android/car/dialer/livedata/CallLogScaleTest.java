@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.car.dialer.livedata;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.testutils.ScaleBudget;
+import com.android.car.dialer.testutils.ScaleTestData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CallLogScaleTest {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void testCallHistoryLiveData_convertToEntity() {
+        CallHistoryLiveData callHistoryLiveData = CallHistoryLiveData.newInstance(mContext);
+
+        new ScaleBudget("CallHistoryLiveData.convertToEntity")
+                .setTimeBudgetMillis(3000)
+                .setAllocationBudgetBytes(64L * 1024 * 1024)
+                .assertWithinBudget(ScaleTestData.CALL_LOG_COUNT, size -> {
+                    Cursor cursor = queryCallLog(size);
+                    return () -> {
+                        cursor.moveToPosition(-1);
+                        assertThat(callHistoryLiveData.convertToEntity(cursor)).isNotEmpty();
+                    };
+                });
+    }
+
+    @Test
+    public void testUnreadMissedCallLiveData_convertToEntity() {
+        UnreadMissedCallLiveData unreadMissedCallLiveData =
+                UnreadMissedCallLiveData.newInstance(mContext);
+
+        new ScaleBudget("UnreadMissedCallLiveData.convertToEntity")
+                .setTimeBudgetMillis(3000)
+                .setAllocationBudgetBytes(64L * 1024 * 1024)
+                .assertWithinBudget(ScaleTestData.CALL_LOG_COUNT, size -> {
+                    Cursor cursor = queryCallLog(size);
+                    return () -> {
+                        cursor.moveToPosition(-1);
+                        assertThat(unreadMissedCallLiveData.convertToEntity(cursor)).isNotEmpty();
+                    };
+                });
+    }
+
+    /** Seeds the call log with the given number of rows and queries it outside the timed run. */
+    private Cursor queryCallLog(int callLogCount) {
+        ScaleTestData.seedProviders(ScaleTestData.CONTACT_COUNT, callLogCount);
+        return ScaleTestData.queryCallLog(mContext);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.provider.ContactsContract;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class ContactDetailsCacheTest {
+    private static final String LOOKUP_KEY = "lookup_key";
+    private static final String OTHER_LOOKUP_KEY = "other_lookup_key";
+    private static final long TIMESTAMP = 1500000000000L;
+
+    @Mock
+    private Contact mMockContact;
+    @Mock
+    private Contact mMockOtherContact;
+    private ContactDetailsCache mContactDetailsCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mMockContact.getLookupKey()).thenReturn(LOOKUP_KEY);
+        when(mMockOtherContact.getLookupKey()).thenReturn(OTHER_LOOKUP_KEY);
+        mContactDetailsCache = new ContactDetailsCache();
+    }
+
+    @Test
+    public void testPut_get() {
+        mContactDetailsCache.put(mMockContact, TIMESTAMP);
+
+        ContactDetailsCache.Entry entry = mContactDetailsCache.get(LOOKUP_KEY);
+        assertThat(entry.getContact()).isSameAs(mMockContact);
+        assertThat(entry.getLastUpdatedTimestamp()).isEqualTo(TIMESTAMP);
+        assertThat(mContactDetailsCache.get(OTHER_LOOKUP_KEY)).isNull();
+        assertThat(mContactDetailsCache.get(null)).isNull();
+    }
+
+    @Test
+    public void testPutAll_readsTimestampsOfRows() {
+        MatrixCursor cursor = new MatrixCursor(QueryProjections.PHONE_CONTACT);
+        cursor.newRow()
+                .add(ContactsContract.Data.LOOKUP_KEY, LOOKUP_KEY)
+                .add(ContactsContract.Data.CONTACT_LAST_UPDATED_TIMESTAMP, TIMESTAMP);
+        cursor.moveToLast();
+
+        mContactDetailsCache.putAll(Arrays.asList(mMockContact, mMockOtherContact), cursor);
+
+        assertThat(mContactDetailsCache.get(LOOKUP_KEY).getLastUpdatedTimestamp())
+                .isEqualTo(TIMESTAMP);
+        // Not in the rows, so not known to be complete.
+        assertThat(mContactDetailsCache.get(OTHER_LOOKUP_KEY)).isNull();
+    }
+
+    @Test
+    public void testRemove() {
+        mContactDetailsCache.put(mMockContact, TIMESTAMP);
+
+        mContactDetailsCache.remove(LOOKUP_KEY);
+
+        assertThat(mContactDetailsCache.get(LOOKUP_KEY)).isNull();
+    }
+
+    @Test
+    public void testGetLookupKey() {
+        Uri lookupUri = ContactsContract.Contacts.getLookupUri(12L, LOOKUP_KEY);
+
+        assertThat(ContactDetailsLiveData.getLookupKey(lookupUri)).isEqualTo(LOOKUP_KEY);
+        assertThat(ContactDetailsLiveData.getLookupKey(
+                ContactsContract.Contacts.CONTENT_URI.buildUpon().appendPath("12").build()))
+                .isNull();
+    }
+}
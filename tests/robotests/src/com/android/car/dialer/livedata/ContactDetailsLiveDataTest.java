@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.net.Uri;
+import android.provider.ContactsContract;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class ContactDetailsLiveDataTest {
+    private static final String LOOKUP_KEY = "lookup_key";
+    private static final long TIMESTAMP = 1500000000000L;
+
+    @Mock
+    private Contact mMockContact;
+    @Mock
+    private Contact mMockCachedContact;
+    private Context mContext;
+    private Uri mContactLookupUri;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mMockContact.getLookupKey()).thenReturn(LOOKUP_KEY);
+        when(mMockCachedContact.getLookupKey()).thenReturn(LOOKUP_KEY);
+        mContext = RuntimeEnvironment.application;
+        mContactLookupUri = ContactsContract.Contacts.getLookupUri(12L, LOOKUP_KEY);
+    }
+
+    @After
+    public void tearDown() {
+        ContactDetailsCache.get().remove(LOOKUP_KEY);
+    }
+
+    @Test
+    public void testCacheMiss_inMemoryContactShownRightAway() {
+        ContactDetailsLiveData liveData =
+                new ContactDetailsLiveData(mContext, mContactLookupUri, mMockContact);
+
+        assertThat(liveData.getValue()).isSameAs(mMockContact);
+    }
+
+    @Test
+    public void testCacheHit_cachedContactShown() {
+        ContactDetailsCache.get().put(mMockCachedContact, TIMESTAMP);
+
+        ContactDetailsLiveData liveData =
+                new ContactDetailsLiveData(mContext, mContactLookupUri, mMockContact);
+
+        assertThat(liveData.getValue()).isSameAs(mMockCachedContact);
+    }
+
+    @Test
+    public void testCacheMiss_noContact_noValue() {
+        ContactDetailsLiveData liveData =
+                new ContactDetailsLiveData(mContext, mContactLookupUri, null);
+
+        assertThat(liveData.getValue()).isNull();
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Email;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+
+import androidx.lifecycle.Observer;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.widget.WorkerExecutor;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowContentResolver;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class FavoriteContactLiveDataTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    private Context mContext;
+    private FakeContactsProvider mFakeContactsProvider;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mFakeContactsProvider = new FakeContactsProvider();
+        ShadowContentResolver.registerProviderInternal(ContactsContract.AUTHORITY,
+                mFakeContactsProvider);
+    }
+
+    @After
+    public void tearDown() {
+        WorkerExecutor.getInstance().tearDown();
+        mFakeContactsProvider.close();
+    }
+
+    @Test
+    public void testQuerySelection_noStarredContact_matchesNothing() {
+        mFakeContactsProvider.addContact(1, /* starred= */false, "Alex", "6505550101");
+
+        String selection = FavoriteContactLiveData.querySelection(mContext);
+
+        assertThat(selection).isEqualTo(Phone.CONTACT_ID + " IN ()");
+        assertThat(queryPhoneIds(selection)).isEmpty();
+    }
+
+    @Test
+    public void testQuerySelection_starredIdsInlined() {
+        mFakeContactsProvider.addContact(3, /* starred= */true, "Bao", "6505550103");
+        mFakeContactsProvider.addContact(5, /* starred= */false, "Chloe", "6505550105");
+        mFakeContactsProvider.addContact(7, /* starred= */true, "Dmitri", "6505550107");
+
+        assertThat(FavoriteContactLiveData.querySelection(mContext))
+                .isEqualTo(Phone.CONTACT_ID + " IN (3,7)");
+    }
+
+    @Test
+    public void testQuerySelection_nullCursor() {
+        mFakeContactsProvider.setReturnNullCursor(true);
+
+        assertThat(FavoriteContactLiveData.querySelection(mContext)).isNull();
+        assertThat(FavoriteContactLiveData.queryPhoneRows(mContext)).isNull();
+    }
+
+    @Test
+    public void testQueryPhoneRows_sameRowsAsSingleDataQuery() {
+        mFakeContactsProvider.addContact(1, /* starred= */true, "Farah", "6505550111");
+        mFakeContactsProvider.addContact(2, /* starred= */false, "Emma", "6505550121");
+        mFakeContactsProvider.addContact(3, /* starred= */true, "Giulia");
+        mFakeContactsProvider.addContact(4, /* starred= */true, "Alex", "6505550141");
+        mFakeContactsProvider.addEmail(4, "alex@example.com");
+        mFakeContactsProvider.addEmail(3, "giulia@example.com");
+        mFakeContactsProvider.addContact(5, /* starred= */true, "Bao", "6505550151");
+
+        List<Long> phoneIds = new ArrayList<>();
+        try (Cursor cursor = FavoriteContactLiveData.queryPhoneRows(mContext)) {
+            while (cursor.moveToNext()) {
+                phoneIds.add(cursor.getLong(0));
+            }
+        }
+
+        // The query the favorites were loaded with before.
+        List<Long> singleQueryIds = new ArrayList<>();
+        try (Cursor cursor = mContext.getContentResolver().query(
+                ContactsContract.Data.CONTENT_URI,
+                QueryProjections.PHONE_CONTACT,
+                ContactsContract.Data.MIMETYPE + " = ? and " + ContactsContract.Data.STARRED
+                        + " = ?",
+                new String[]{Phone.CONTENT_ITEM_TYPE, "1"},
+                ContactsContract.Contacts.DISPLAY_NAME + " ASC ")) {
+            while (cursor.moveToNext()) {
+                singleQueryIds.add(cursor.getLong(0));
+            }
+        }
+        assertThat(phoneIds).hasSize(3);
+        assertThat(phoneIds).containsExactlyElementsIn(singleQueryIds).inOrder();
+    }
+
+    @Test
+    public void testLoad_inBackgroundWhenActive() throws InterruptedException {
+        mFakeContactsProvider.addContact(1, /* starred= */true, "Farah", "6505550111");
+        mFakeContactsProvider.addContact(2, /* starred= */false, "Emma", "6505550121");
+        FavoriteContactLiveData liveData = FavoriteContactLiveData.newInstance(mContext);
+
+        assertThat(liveData.getValue()).isNull();
+        Observer<List<Contact>> observer = contacts -> { };
+        liveData.observeForever(observer);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (liveData.getValue() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            ShadowLooper.runUiThreadTasks();
+        }
+        liveData.removeObserver(observer);
+
+        assertThat(liveData.getValue()).hasSize(1);
+        assertThat(liveData.getValue().get(0).getDisplayName()).isEqualTo("Farah");
+    }
+
+    private List<Long> queryPhoneIds(String selection) {
+        List<Long> ids = new ArrayList<>();
+        try (Cursor cursor = mContext.getContentResolver().query(Phone.CONTENT_URI,
+                QueryProjections.PHONE_CONTACT, selection, null,
+                ContactsContract.Contacts.DISPLAY_NAME + " ASC ")) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * A contacts provider backed by an in-memory database, so that the selections are evaluated
+     * the way the real provider does. The data table only has the columns the dialer reads.
+     */
+    private static class FakeContactsProvider extends ContentProvider {
+        private static final String CONTACTS_TABLE = "contacts";
+        private static final String DATA_TABLE = "data";
+
+        private final SQLiteDatabase mDatabase = SQLiteDatabase.create(null);
+        private boolean mReturnNullCursor;
+        private long mNextDataId = 100;
+
+        FakeContactsProvider() {
+            mDatabase.execSQL("CREATE TABLE " + CONTACTS_TABLE + " ("
+                    + ContactsContract.Contacts._ID + ", "
+                    + ContactsContract.Contacts.STARRED + ", "
+                    + ContactsContract.Contacts.HAS_PHONE_NUMBER + ")");
+            StringBuilder dataColumns = new StringBuilder(ContactsContract.Data.MIMETYPE);
+            for (String column : QueryProjections.PHONE_CONTACT) {
+                dataColumns.append(", ").append(column);
+            }
+            mDatabase.execSQL("CREATE TABLE " + DATA_TABLE + " (" + dataColumns + ")");
+        }
+
+        void addContact(long contactId, boolean starred, String displayName,
+                String... phoneNumbers) {
+            ContentValues contact = new ContentValues();
+            contact.put(ContactsContract.Contacts._ID, contactId);
+            contact.put(ContactsContract.Contacts.STARRED, starred ? 1 : 0);
+            contact.put(ContactsContract.Contacts.HAS_PHONE_NUMBER,
+                    phoneNumbers.length > 0 ? 1 : 0);
+            mDatabase.insert(CONTACTS_TABLE, null, contact);
+
+            for (String phoneNumber : phoneNumbers) {
+                ContentValues data = newDataRow(contactId, starred, Phone.CONTENT_ITEM_TYPE);
+                data.put(ContactsContract.Data.DISPLAY_NAME, displayName);
+                data.put(Phone.NUMBER, phoneNumber);
+                data.put(Phone.TYPE, Phone.TYPE_MOBILE);
+                mDatabase.insert(DATA_TABLE, null, data);
+            }
+        }
+
+        void addEmail(long contactId, String address) {
+            try (Cursor cursor = mDatabase.query(CONTACTS_TABLE,
+                    new String[]{ContactsContract.Contacts.STARRED},
+                    ContactsContract.Contacts._ID + " = ?",
+                    new String[]{String.valueOf(contactId)}, null, null, null)) {
+                cursor.moveToFirst();
+                ContentValues data = newDataRow(contactId, cursor.getInt(0) == 1,
+                        Email.CONTENT_ITEM_TYPE);
+                data.put(Email.ADDRESS, address);
+                mDatabase.insert(DATA_TABLE, null, data);
+            }
+        }
+
+        void setReturnNullCursor(boolean returnNullCursor) {
+            mReturnNullCursor = returnNullCursor;
+        }
+
+        void close() {
+            mDatabase.close();
+        }
+
+        private ContentValues newDataRow(long contactId, boolean starred, String mimeType) {
+            ContentValues data = new ContentValues();
+            data.put(ContactsContract.Data._ID, mNextDataId++);
+            data.put(ContactsContract.Data.CONTACT_ID, contactId);
+            data.put(ContactsContract.Data.LOOKUP_KEY, "lookup" + contactId);
+            data.put(ContactsContract.Data.STARRED, starred ? 1 : 0);
+            data.put(ContactsContract.Data.MIMETYPE, mimeType);
+            return data;
+        }
+
+        @Override
+        public boolean onCreate() {
+            return true;
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection,
+                String[] selectionArgs, String sortOrder) {
+            if (mReturnNullCursor) {
+                return null;
+            }
+            if (uri.equals(ContactsContract.Contacts.CONTENT_URI)) {
+                return mDatabase.query(CONTACTS_TABLE, projection, selection, selectionArgs,
+                        null, null, sortOrder);
+            }
+            if (uri.equals(Phone.CONTENT_URI)) {
+                // The phones uri only returns phone rows.
+                String phoneSelection = ContactsContract.Data.MIMETYPE + " = '"
+                        + Phone.CONTENT_ITEM_TYPE + "'";
+                if (selection != null) {
+                    phoneSelection += " AND (" + selection + ")";
+                }
+                return mDatabase.query(DATA_TABLE, projection, phoneSelection, selectionArgs,
+                        null, null, sortOrder);
+            }
+            if (uri.equals(ContactsContract.Data.CONTENT_URI)) {
+                return mDatabase.query(DATA_TABLE, projection, selection, selectionArgs, null,
+                        null, sortOrder);
+            }
+            throw new UnsupportedOperationException("Unexpected uri " + uri);
+        }
+
+        @Override
+        public String getType(Uri uri) {
+            return null;
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int delete(Uri uri, String selection, String[] selectionArgs) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int update(Uri uri, ContentValues values, String selection,
+                String[] selectionArgs) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import android.content.Context;
+import android.database.CursorWrapper;
+import android.database.MatrixCursor;
+import android.provider.CallLog;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneCallLog;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/** Checks that the entities only read the columns of the {@link QueryProjections}. */
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class QueryProjectionsTest {
+    private static final Map<String, Object> CALL_LOG_VALUES = ImmutableMap.of(
+            CallLog.Calls._ID, 1L,
+            CallLog.Calls.NUMBER, "+16505550100",
+            CallLog.Calls.DATE, 1500000000000L,
+            CallLog.Calls.TYPE, (long) CallLog.Calls.MISSED_TYPE);
+    private static final Map<String, Object> PHONE_CONTACT_VALUES =
+            ImmutableMap.<String, Object>builder()
+                    .put(ContactsContract.Data._ID, 1L)
+                    .put(ContactsContract.Data.CONTACT_ID, 2L)
+                    .put(ContactsContract.Data.LOOKUP_KEY, "lookup")
+                    .put(ContactsContract.Data.DISPLAY_NAME, "Alice Smith")
+                    .put(ContactsContract.Data.DISPLAY_NAME_ALTERNATIVE, "Smith, Alice")
+                    .put(ContactsContract.Data.PHONEBOOK_LABEL, "A")
+                    .put(ContactsContract.Data.PHONEBOOK_LABEL_ALTERNATIVE, "S")
+                    .put(ContactsContract.Data.STARRED, 1L)
+                    .put(ContactsContract.Data.PHOTO_URI, "content://photo/1")
+                    .put(ContactsContract.Data.PHOTO_THUMBNAIL_URI, "content://photo/1/thumb")
+                    .put(ContactsContract.Data.DATA_VERSION, 3L)
+                    .put(ContactsContract.Data.IS_PRIMARY, 1L)
+                    .put(ContactsContract.Data.IS_SUPER_PRIMARY, 1L)
+                    .put(ContactsContract.Data.CONTACT_LAST_UPDATED_TIMESTAMP, 1500000000000L)
+                    .put(Phone.NUMBER, "+16505550100")
+                    .put(Phone.TYPE, (long) Phone.TYPE_MOBILE)
+                    .put(Phone.LABEL, "")
+                    .build();
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void testCallLog_coversPhoneCallLog() {
+        ProjectedCursor cursor = new ProjectedCursor(QueryProjections.CALL_LOG, CALL_LOG_VALUES);
+        cursor.moveToFirst();
+
+        PhoneCallLog.fromCursor(mContext, cursor);
+
+        assertWithMessage("Columns read by PhoneCallLog but missing in the projection")
+                .that(cursor.getMissingColumns()).isEmpty();
+    }
+
+    @Test
+    public void testPhoneContact_coversContact() {
+        ProjectedCursor cursor = new ProjectedCursor(QueryProjections.PHONE_CONTACT,
+                PHONE_CONTACT_VALUES);
+        cursor.moveToFirst();
+
+        Contact.fromCursor(mContext, cursor);
+
+        assertWithMessage("Columns read by Contact but missing in the projection")
+                .that(cursor.getMissingColumns()).isEmpty();
+    }
+
+    /** A cursor with only the projected columns which records lookups of any other column. */
+    private static class ProjectedCursor extends CursorWrapper {
+        private final Set<String> mMissingColumns = new TreeSet<>();
+
+        ProjectedCursor(String[] projection, Map<String, Object> values) {
+            super(createCursor(projection, values));
+        }
+
+        private static MatrixCursor createCursor(String[] projection, Map<String, Object> values) {
+            MatrixCursor cursor = new MatrixCursor(projection);
+            Object[] row = new Object[projection.length];
+            for (int i = 0; i < projection.length; i++) {
+                row[i] = values.get(projection[i]);
+            }
+            cursor.addRow(row);
+            return cursor;
+        }
+
+        @Override
+        public int getColumnIndex(String columnName) {
+            int index = super.getColumnIndex(columnName);
+            if (index < 0) {
+                mMissingColumns.add(columnName);
+            }
+            return index;
+        }
+
+        @Override
+        public int getColumnIndexOrThrow(String columnName) {
+            if (super.getColumnIndex(columnName) < 0) {
+                mMissingColumns.add(columnName);
+            }
+            return super.getColumnIndexOrThrow(columnName);
+        }
+
+        Set<String> getMissingColumns() {
+            return mMissingColumns;
+        }
+    }
+}
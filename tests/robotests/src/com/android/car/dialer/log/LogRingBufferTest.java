@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.log;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.util.Log;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class LogRingBufferTest {
+    private static final String TAG = "CD.LogRingBufferTest";
+    private static final int CAPACITY = 3;
+
+    private LogRingBuffer mLogRingBuffer;
+
+    @Before
+    public void setUp() {
+        mLogRingBuffer = new LogRingBuffer(CAPACITY, Log.VERBOSE);
+        L.setRingBuffer(mLogRingBuffer);
+    }
+
+    @After
+    public void tearDown() {
+        L.setRingBuffer(null);
+    }
+
+    @Test
+    public void testRecord_formattedOnDump() {
+        L.d(TAG, "no args");
+        L.d(TAG, "one %s", "arg");
+        L.i(TAG, "two %s %d", "args", 2);
+
+        String dump = dump();
+        assertThat(mLogRingBuffer.size()).isEqualTo(3);
+        assertThat(dump).contains("D " + TAG + ": no args");
+        assertThat(dump).contains("D " + TAG + ": one arg");
+        assertThat(dump).contains("I " + TAG + ": two args 2");
+    }
+
+    @Test
+    public void testRecord_overwritesOldestRecord() {
+        for (int i = 0; i < CAPACITY + 2; i++) {
+            L.w(TAG, "record %d", i);
+        }
+
+        String dump = dump();
+        assertThat(mLogRingBuffer.size()).isEqualTo(CAPACITY);
+        assertThat(dump).doesNotContain("record 1");
+        assertThat(dump.indexOf("record 2")).isLessThan(dump.indexOf("record 4"));
+    }
+
+    @Test
+    public void testRecord_mutableArgsNotConverted() {
+        ToStringCounter mutableArg = new ToStringCounter();
+        L.d(TAG, "one %s", mutableArg);
+        L.e(TAG, new IllegalStateException(), "var %s %s %s %s", mutableArg, 1, 2, 3);
+
+        String dump = dump();
+        assertThat(mutableArg.mToStringCount).isEqualTo(0);
+        assertThat(dump).contains("D " + TAG + ": one <ToStringCounter>");
+        assertThat(dump).contains("E " + TAG + ": var <ToStringCounter> 1 2 3");
+    }
+
+    @Test
+    public void testRecord_belowMinLevelNotRecorded() {
+        mLogRingBuffer.setMinLevel(Log.INFO);
+        ToStringCounter mutableArg = new ToStringCounter();
+        L.d(TAG, "debug %s", mutableArg);
+        L.v(TAG, "verbose %s %s %s %s", mutableArg, 1, 2, 3);
+        L.i(TAG, "info");
+
+        assertThat(mLogRingBuffer.size()).isEqualTo(1);
+        assertThat(mutableArg.mToStringCount).isEqualTo(0);
+        assertThat(dump()).contains("I " + TAG + ": info");
+    }
+
+    @Test
+    public void testDefaultMinLevel() {
+        assertThat(new LogRingBuffer(CAPACITY).getMinLevel()).isEqualTo(Log.INFO);
+    }
+
+    @Test
+    public void testLazyMessage_builtWhenRecorded() {
+        L.v(TAG, () -> "lazy message");
+
+        assertThat(dump()).contains("V " + TAG + ": lazy message");
+    }
+
+    @Test
+    public void testLazyMessage_notBuiltBelowMinLevel() {
+        mLogRingBuffer.setMinLevel(Log.INFO);
+        String tag = "CD.NotLoggable";
+
+        L.d(tag, () -> {
+            throw new AssertionError("Supplier called for a message nobody takes");
+        });
+
+        assertThat(mLogRingBuffer.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testClear() {
+        L.d(TAG, "message");
+        mLogRingBuffer.clear();
+
+        assertThat(mLogRingBuffer.size()).isEqualTo(0);
+    }
+
+    private static class ToStringCounter {
+        private int mToStringCount;
+
+        @Override
+        public String toString() {
+            mToStringCount++;
+            return "converted";
+        }
+    }
+
+    private String dump() {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        L.dump(printWriter);
+        printWriter.flush();
+        return stringWriter.toString();
+    }
+}
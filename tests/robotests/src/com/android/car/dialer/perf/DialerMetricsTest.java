@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.perf;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class DialerMetricsTest {
+
+    @Test
+    public void testLookup_returnsSameInstance() {
+        assertThat(DialerMetrics.counter("DialerMetricsTest.counter"))
+                .isSameAs(DialerMetrics.counter("DialerMetricsTest.counter"));
+        assertThat(DialerMetrics.gauge("DialerMetricsTest.gauge"))
+                .isSameAs(DialerMetrics.gauge("DialerMetricsTest.gauge"));
+        assertThat(DialerMetrics.histogram("DialerMetricsTest.histogram"))
+                .isSameAs(DialerMetrics.histogram("DialerMetricsTest.histogram"));
+    }
+
+    @Test
+    public void testDump() {
+        DialerMetrics.counter("DialerMetricsTest.dumpCounter").increment();
+        DialerMetrics.counter("DialerMetricsTest.dumpCounter").increment();
+        DialerMetrics.gauge("DialerMetricsTest.dumpGauge").set(42);
+        DialerMetrics.histogram("DialerMetricsTest.dumpHistogram").record(3000000);
+
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        DialerMetrics.dump(printWriter);
+        printWriter.flush();
+
+        String dump = stringWriter.toString();
+        assertThat(dump).contains("DialerMetricsTest.dumpCounter: 2");
+        assertThat(dump).contains("DialerMetricsTest.dumpGauge: 42");
+        assertThat(dump).contains("DialerMetricsTest.dumpHistogram: count=1");
+    }
+}
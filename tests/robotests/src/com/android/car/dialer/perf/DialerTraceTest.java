@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.perf;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.os.SystemClock;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class DialerTraceTest {
+    private static final int COOKIE_1 = 1;
+    private static final int COOKIE_2 = 2;
+
+    private final DialerTrace.Stage mStage = DialerTrace.RING_TO_IN_CALL_UI;
+
+    @After
+    public void tearDown() {
+        mStage.cancelAsync(COOKIE_1);
+        mStage.cancelAsync(COOKIE_2);
+        mStage.getHistogram().reset();
+    }
+
+    @Test
+    public void testAsyncSection_recordsLatencyPerCookie() {
+        mStage.beginAsync(COOKIE_1);
+        SystemClock.sleep(30);
+        mStage.beginAsync(COOKIE_2);
+        mStage.endAsync(COOKIE_1);
+        mStage.endAsync(COOKIE_2);
+
+        assertThat(mStage.getHistogram().getCount()).isEqualTo(2);
+        assertThat(mStage.getHistogram().getPercentileMs(100)).isEqualTo(50);
+    }
+
+    @Test
+    public void testEndAsync_notStarted_ignored() {
+        mStage.endAsync(COOKIE_1);
+
+        assertThat(mStage.getHistogram().getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCancelAsync_notRecorded() {
+        mStage.beginAsync(COOKIE_1);
+        mStage.cancelAsync(COOKIE_1);
+        mStage.endAsync(COOKIE_1);
+
+        assertThat(mStage.getHistogram().getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDump_containsAllStages() {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        DialerTrace.dump(printWriter);
+        printWriter.flush();
+
+        String dump = stringWriter.toString();
+        assertThat(dump).contains(DialerTrace.RING_TO_IN_CALL_UI.getName());
+        assertThat(dump).contains(DialerTrace.TAP_TO_PLACE_CALL.getName());
+        assertThat(dump).contains(DialerTrace.LAUNCH_TO_FIRST_LIST.getName());
+    }
+}
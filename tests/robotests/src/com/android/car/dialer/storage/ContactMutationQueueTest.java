@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentUris;
+import android.content.Context;
+import android.provider.ContactsContract;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.widget.CancellationToken;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneNumber;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.List;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class ContactMutationQueueTest {
+    private static final long DATA_ID = 11;
+    private static final long OTHER_DATA_ID = 12;
+
+    @Mock
+    private Contact mMockContact;
+    @Mock
+    private Contact mMockOtherContact;
+    @Mock
+    private PhoneNumber mMockPhoneNumber;
+    @Mock
+    private PhoneNumber mMockOtherPhoneNumber;
+    private Context mContext;
+    private ContactMutationQueue mContactMutationQueue;
+    private int mScheduleFlushCount;
+    private boolean mRejectFlush;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mMockContact.getLookupKey()).thenReturn("lookup_key");
+        when(mMockOtherContact.getLookupKey()).thenReturn("other_lookup_key");
+        when(mMockPhoneNumber.getRawNumber()).thenReturn("6505550100");
+        when(mMockPhoneNumber.getId()).thenReturn(DATA_ID);
+        when(mMockOtherPhoneNumber.getRawNumber()).thenReturn("6505550101");
+        when(mMockOtherPhoneNumber.getId()).thenReturn(OTHER_DATA_ID);
+        mContext = RuntimeEnvironment.application;
+        // Flushed by the tests instead.
+        mContactMutationQueue = new ContactMutationQueue(mContext) {
+            @Override
+            CancellationToken scheduleFlush() {
+                mScheduleFlushCount++;
+                CancellationToken cancellationToken = new CancellationToken();
+                if (mRejectFlush) {
+                    cancellationToken.cancel();
+                }
+                return cancellationToken;
+            }
+        };
+    }
+
+    @Test
+    public void testSetAsPrimaryPhoneNumber_pendingUntilApplied() {
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockPhoneNumber);
+
+        assertThat(mContactMutationQueue.getPendingPrimaryPhoneNumber(mMockContact))
+                .isSameAs(mMockPhoneNumber);
+        assertThat(mContactMutationQueue.isApplying()).isTrue();
+
+        mContactMutationQueue.flush();
+
+        assertThat(mContactMutationQueue.getPendingPrimaryPhoneNumber(mMockContact)).isNull();
+        assertThat(mContactMutationQueue.isApplying()).isFalse();
+    }
+
+    @Test
+    public void testSetAsPrimaryPhoneNumber_coalescedPerContact() {
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockPhoneNumber);
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockOtherContact, mMockPhoneNumber);
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockOtherPhoneNumber);
+        assertThat(mContactMutationQueue.getPendingPrimaryPhoneNumber(mMockContact))
+                .isSameAs(mMockOtherPhoneNumber);
+
+        mContactMutationQueue.flush();
+
+        List<ContentProviderOperation> operations = shadowOf(mContext.getContentResolver())
+                .getContentProviderOperations(ContactsContract.AUTHORITY);
+        assertThat(operations).hasSize(2);
+    }
+
+    @Test
+    public void testSetAsPrimaryPhoneNumber_updatesDataRowOfTheNumber() {
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockPhoneNumber);
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockOtherPhoneNumber);
+
+        mContactMutationQueue.flush();
+
+        List<ContentProviderOperation> operations = shadowOf(mContext.getContentResolver())
+                .getContentProviderOperations(ContactsContract.AUTHORITY);
+        assertThat(operations).hasSize(1);
+        assertThat(operations.get(0).getUri()).isEqualTo(
+                ContentUris.withAppendedId(ContactsContract.Data.CONTENT_URI, OTHER_DATA_ID));
+    }
+
+    @Test
+    public void testFlush_notifiesListeners() {
+        boolean[] applied = new boolean[1];
+        mContactMutationQueue.addOnBatchAppliedListener(() -> applied[0] = true);
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockPhoneNumber);
+
+        mContactMutationQueue.flush();
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(applied[0]).isTrue();
+    }
+
+    @Test
+    public void testSetAsPrimaryPhoneNumber_flushScheduledOnce() {
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockPhoneNumber);
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockOtherContact, mMockPhoneNumber);
+
+        assertThat(mScheduleFlushCount).isEqualTo(1);
+
+        mContactMutationQueue.flush();
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockOtherPhoneNumber);
+
+        assertThat(mScheduleFlushCount).isEqualTo(2);
+    }
+
+    @Test
+    public void testSetAsPrimaryPhoneNumber_rejectedFlushRetried() {
+        mRejectFlush = true;
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockPhoneNumber);
+        assertThat(mScheduleFlushCount).isEqualTo(1);
+
+        mRejectFlush = false;
+        ShadowLooper.idleMainLooper(ContactMutationQueue.FLUSH_RETRY_DELAY_MS);
+
+        assertThat(mScheduleFlushCount).isEqualTo(2);
+        assertThat(mContactMutationQueue.isApplying()).isTrue();
+    }
+
+    @Test
+    public void testSetAsPrimaryPhoneNumber_rejectedFlushScheduledAgain() {
+        mRejectFlush = true;
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockContact, mMockPhoneNumber);
+
+        assertThat(mScheduleFlushCount).isEqualTo(1);
+        assertThat(mContactMutationQueue.isApplying()).isFalse();
+        // Still pending, the change is applied by the next flush.
+        assertThat(mContactMutationQueue.getPendingPrimaryPhoneNumber(mMockContact))
+                .isSameAs(mMockPhoneNumber);
+
+        mRejectFlush = false;
+        mContactMutationQueue.setAsPrimaryPhoneNumber(mMockOtherContact, mMockPhoneNumber);
+
+        assertThat(mScheduleFlushCount).isEqualTo(2);
+        assertThat(mContactMutationQueue.isApplying()).isTrue();
+
+        mContactMutationQueue.flush();
+
+        List<ContentProviderOperation> operations = shadowOf(mContext.getContentResolver())
+                .getContentProviderOperations(ContactsContract.AUTHORITY);
+        assertThat(operations).hasSize(2);
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.provider.CallLog;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.dialer.ui.common.entity.UiCallLog;
+import com.android.car.dialer.widget.WorkerExecutor;
+import com.android.car.telephony.common.PhoneCallLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class WarmStartSnapshotTest {
+    private static final String DEVICE_ADDRESS = "00:11:22:33:44:55";
+    private static final String OTHER_DEVICE_ADDRESS = "AA:BB:CC:DD:EE:FF";
+    private static final String TITLE = "Title";
+    private static final String TEXT = "Text";
+    private static final String NUMBER = "+16505550100";
+    private static final Uri AVATAR_URI = Uri.parse("content://avatar/1");
+    private static final long TIMESTAMP = 1500000000000L;
+
+    @Mock
+    private UiCallManager mMockUiCallManager;
+    @Mock
+    private BluetoothDevice mMockBluetoothDevice;
+    @Mock
+    private BluetoothDevice mMockOtherBluetoothDevice;
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mMockBluetoothDevice.getAddress()).thenReturn(DEVICE_ADDRESS);
+        when(mMockUiCallManager.getHfpDevice()).thenReturn(mMockBluetoothDevice);
+        UiCallManager.set(mMockUiCallManager);
+        setPaired(true);
+
+        mFile = new File(RuntimeEnvironment.application.getFilesDir(), "test.snapshot");
+        mFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        WorkerExecutor.getInstance().tearDown();
+        UiCallManager.set(null);
+    }
+
+    @Test
+    public void testCallLogs_roundTrip() {
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveCallLogs(Arrays.asList(createCallLog(TITLE),
+                new UiCallLog(null, null, null, null, Collections.emptyList())));
+        warmStartSnapshot.write();
+
+        List<UiCallLog> callLogs = loadSnapshot().getCallLogs();
+
+        assertThat(callLogs).hasSize(2);
+        UiCallLog callLog = callLogs.get(0);
+        assertThat(callLog.getTitle()).isEqualTo(TITLE);
+        assertThat(callLog.getText()).isEqualTo(TEXT);
+        assertThat(callLog.getNumber()).isEqualTo(NUMBER);
+        assertThat(callLog.getAvatarUri()).isEqualTo(AVATAR_URI);
+        assertThat(callLog.getMostRecentCallEndTimestamp()).isEqualTo(TIMESTAMP);
+        assertThat(callLog.getMostRecentCallType()).isEqualTo(CallLog.Calls.MISSED_TYPE);
+        assertThat(callLogs.get(1).getTitle()).isNull();
+        assertThat(callLogs.get(1).getCallRecords()).isEmpty();
+    }
+
+    @Test
+    public void testCallLogs_noConnectedPhone_notSaved() {
+        when(mMockUiCallManager.getHfpDevice()).thenReturn(null);
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveCallLogs(Arrays.asList(createCallLog(TITLE)));
+
+        assertThat(warmStartSnapshot.getCallLogs()).isNull();
+    }
+
+    @Test
+    public void testCallLogs_phoneUnpaired_dropped() {
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveCallLogs(Arrays.asList(createCallLog(TITLE)));
+        warmStartSnapshot.write();
+        setPaired(false);
+
+        assertThat(loadSnapshot().getCallLogs()).isNull();
+    }
+
+    @Test
+    public void testFavoriteRows_roundTrip() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "name", "weight", "photo"});
+        cursor.addRow(new Object[]{1L, "Alice", 0.5, new byte[]{1, 2}});
+        cursor.addRow(new Object[]{2L, null, 1.0, null});
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveFavoriteRows(cursor);
+        warmStartSnapshot.write();
+
+        assertThat(cursor.getPosition()).isEqualTo(-1);
+        Cursor rows = loadSnapshot().getFavoriteRows();
+        assertThat(rows.getColumnNames()).asList()
+                .containsExactly("_id", "name", "weight", "photo").inOrder();
+        assertThat(rows.getCount()).isEqualTo(2);
+        rows.moveToFirst();
+        assertThat(rows.getLong(0)).isEqualTo(1L);
+        assertThat(rows.getString(1)).isEqualTo("Alice");
+        assertThat(rows.getDouble(2)).isEqualTo(0.5);
+        assertThat(rows.getBlob(3)).isEqualTo(new byte[]{1, 2});
+        rows.moveToNext();
+        assertThat(rows.isNull(1)).isTrue();
+        assertThat(rows.isNull(3)).isTrue();
+    }
+
+    @Test
+    public void testCorruptFile_dropped() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(mFile)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        WarmStartSnapshot warmStartSnapshot = loadSnapshot();
+
+        assertThat(warmStartSnapshot.getCallLogs()).isNull();
+        assertThat(warmStartSnapshot.getFavoriteRows()).isNull();
+    }
+
+    @Test
+    public void testCallLogs_otherPhoneConnected_dropped() {
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveCallLogs(Arrays.asList(createCallLog(TITLE)));
+        warmStartSnapshot.write();
+        // Both phones stay paired, only the connected one changes.
+        when(mMockOtherBluetoothDevice.getAddress()).thenReturn(OTHER_DEVICE_ADDRESS);
+        when(mMockUiCallManager.getHfpDevice()).thenReturn(mMockOtherBluetoothDevice);
+
+        assertThat(loadSnapshot().getCallLogs()).isNull();
+    }
+
+    @Test
+    public void testFavoriteRows_noConnectedPhone_notReturned() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id"});
+        cursor.addRow(new Object[]{1L});
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveFavoriteRows(cursor);
+        when(mMockUiCallManager.getHfpDevice()).thenReturn(null);
+
+        assertThat(warmStartSnapshot.getFavoriteRows()).isNull();
+    }
+
+    @Test
+    public void testInvalidate_dropsListsOfThePhone() {
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveCallLogs(Arrays.asList(createCallLog(TITLE)));
+        warmStartSnapshot.write();
+
+        warmStartSnapshot.invalidate(OTHER_DEVICE_ADDRESS);
+        assertThat(warmStartSnapshot.getCallLogs()).hasSize(1);
+
+        warmStartSnapshot.invalidate(DEVICE_ADDRESS);
+        warmStartSnapshot.write();
+
+        assertThat(warmStartSnapshot.getCallLogs()).isNull();
+        assertThat(loadSnapshot().getCallLogs()).isNull();
+    }
+
+    @Test
+    public void testCallLogs_notReadYet_notReturned() {
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveCallLogs(Arrays.asList(createCallLog(TITLE)));
+        warmStartSnapshot.write();
+
+        assertThat(new WarmStartSnapshot(mFile).getCallLogs()).isNull();
+    }
+
+    @Test
+    public void testCallLogs_hfpDeviceUnknown_returnedWhilePhoneConnected() {
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveCallLogs(Arrays.asList(createCallLog(TITLE)));
+        warmStartSnapshot.write();
+        when(mMockUiCallManager.getHfpDevice()).thenReturn(null);
+        when(mMockBluetoothDevice.isConnected()).thenReturn(true);
+
+        assertThat(loadSnapshot().getCallLogs()).hasSize(1);
+
+        when(mMockBluetoothDevice.isConnected()).thenReturn(false);
+
+        assertThat(loadSnapshot().getCallLogs()).isNull();
+    }
+
+    @Test
+    public void testCallLogs_callManagerNotInitialized_returnedWhilePhoneConnected() {
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveCallLogs(Arrays.asList(createCallLog(TITLE)));
+        warmStartSnapshot.write();
+        UiCallManager.set(null);
+        when(mMockBluetoothDevice.isConnected()).thenReturn(true);
+
+        assertThat(loadSnapshot().getCallLogs()).hasSize(1);
+    }
+
+    @Test
+    public void testCallLogs_otherPhoneConnectsAfterRead_dropped() {
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.saveCallLogs(Arrays.asList(createCallLog(TITLE)));
+        warmStartSnapshot.write();
+        when(mMockUiCallManager.getHfpDevice()).thenReturn(null);
+        when(mMockBluetoothDevice.isConnected()).thenReturn(true);
+        WarmStartSnapshot loaded = loadSnapshot();
+
+        when(mMockOtherBluetoothDevice.getAddress()).thenReturn(OTHER_DEVICE_ADDRESS);
+        when(mMockUiCallManager.getHfpDevice()).thenReturn(mMockOtherBluetoothDevice);
+
+        assertThat(loaded.getCallLogs()).isNull();
+    }
+
+    private WarmStartSnapshot loadSnapshot() {
+        WarmStartSnapshot warmStartSnapshot = new WarmStartSnapshot(mFile);
+        warmStartSnapshot.load();
+        return warmStartSnapshot;
+    }
+
+    private void setPaired(boolean paired) {
+        shadowOf(BluetoothAdapter.getDefaultAdapter()).setBondedDevices(paired
+                ? new HashSet<>(Arrays.asList(mMockBluetoothDevice)) : new HashSet<>());
+    }
+
+    private static UiCallLog createCallLog(String title) {
+        return new UiCallLog(title, TEXT, NUMBER, AVATAR_URI, Arrays.asList(
+                new PhoneCallLog.Record(TIMESTAMP, CallLog.Calls.MISSED_TYPE)));
+    }
+}
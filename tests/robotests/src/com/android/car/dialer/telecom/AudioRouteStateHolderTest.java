@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.bluetooth.BluetoothHeadsetClient;
+import android.content.Context;
+import android.content.Intent;
+import android.telecom.TelecomManager;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class AudioRouteStateHolderTest {
+    @Mock
+    private TelecomManager mMockTelecomManager;
+    private Context mContext;
+    private AudioRouteStateHolder mAudioRouteStateHolder;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        mAudioRouteStateHolder = new AudioRouteStateHolder(mContext, mMockTelecomManager);
+        mAudioRouteStateHolder.start();
+    }
+
+    @Test
+    public void testCallChanged_keepsOutgoingPhoneAccount() {
+        mAudioRouteStateHolder.getAudioRouteState();
+
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CALL_CHANGED);
+        sendBroadcast(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED);
+        mAudioRouteStateHolder.getAudioRouteState();
+
+        assertThat(mAudioRouteStateHolder.getSnapshotBuildCount()).isEqualTo(2);
+        verify(mMockTelecomManager, times(1)).getUserSelectedOutgoingPhoneAccount();
+    }
+
+    @Test
+    public void testConnectionStateChanged_reloadsOutgoingPhoneAccount() {
+        mAudioRouteStateHolder.getAudioRouteState();
+
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED);
+        mAudioRouteStateHolder.getAudioRouteState();
+
+        verify(mMockTelecomManager, times(2)).getUserSelectedOutgoingPhoneAccount();
+    }
+
+    @Test
+    public void testPhoneAccountRegistered_reloadsOutgoingPhoneAccount() {
+        mAudioRouteStateHolder.getAudioRouteState();
+
+        sendBroadcast(TelecomManager.ACTION_PHONE_ACCOUNT_REGISTERED);
+        mAudioRouteStateHolder.getAudioRouteState();
+
+        verify(mMockTelecomManager, times(2)).getUserSelectedOutgoingPhoneAccount();
+    }
+
+    @After
+    public void tearDown() {
+        mAudioRouteStateHolder.stop();
+    }
+
+    private void sendBroadcast(String action) {
+        mContext.sendBroadcast(new Intent(action));
+        ShadowLooper.runUiThreadTasks();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHeadsetClient;
+import android.bluetooth.BluetoothHeadsetClientCall;
+import android.bluetooth.BluetoothProfile;
+import android.content.Intent;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class HfpDeviceTrackerTest {
+    private static final int CALL_ID = 1;
+
+    private BluetoothDevice mDevice;
+    private BluetoothDevice mOtherDevice;
+    private HfpDeviceTracker mHfpDeviceTracker;
+
+    @Before
+    public void setUp() {
+        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        mDevice = bluetoothAdapter.getRemoteDevice("00:11:22:33:44:55");
+        mOtherDevice = bluetoothAdapter.getRemoteDevice("AA:BB:CC:DD:EE:FF");
+        mHfpDeviceTracker = new HfpDeviceTracker();
+    }
+
+    @Test
+    public void testStaleUntilReloaded() {
+        assertThat(mHfpDeviceTracker.isStale()).isTrue();
+        mHfpDeviceTracker.onConnectionStateChanged(mDevice, BluetoothProfile.STATE_CONNECTED);
+        assertThat(mHfpDeviceTracker.getActiveDevice()).isNull();
+
+        mHfpDeviceTracker.beginReload();
+        mHfpDeviceTracker.addDevice(mDevice, BluetoothHeadsetClient.STATE_AUDIO_DISCONNECTED,
+                Collections.emptyList());
+
+        assertThat(mHfpDeviceTracker.isStale()).isFalse();
+        assertThat(mHfpDeviceTracker.getActiveDevice()).isEqualTo(mDevice);
+    }
+
+    @Test
+    public void testConnectionStateChanged() {
+        mHfpDeviceTracker.beginReload();
+
+        mHfpDeviceTracker.onConnectionStateChanged(mDevice, BluetoothProfile.STATE_CONNECTED);
+        mHfpDeviceTracker.onConnectionStateChanged(mOtherDevice, BluetoothProfile.STATE_CONNECTED);
+        assertThat(mHfpDeviceTracker.getActiveDevice()).isEqualTo(mDevice);
+
+        mHfpDeviceTracker.onConnectionStateChanged(mDevice, BluetoothProfile.STATE_DISCONNECTED);
+        assertThat(mHfpDeviceTracker.getActiveDevice()).isEqualTo(mOtherDevice);
+        assertThat(mHfpDeviceTracker.isStale()).isFalse();
+    }
+
+    @Test
+    public void testAudioStateChanged() {
+        mHfpDeviceTracker.beginReload();
+        mHfpDeviceTracker.onConnectionStateChanged(mDevice, BluetoothProfile.STATE_CONNECTED);
+
+        mHfpDeviceTracker.onAudioStateChanged(mDevice,
+                BluetoothHeadsetClient.STATE_AUDIO_CONNECTED);
+
+        assertThat(mHfpDeviceTracker.isAudioConnected(mDevice)).isTrue();
+        assertThat(mHfpDeviceTracker.isAudioConnected(mOtherDevice)).isFalse();
+    }
+
+    @Test
+    public void testAudioStateChanged_unknownDevice_marksStale() {
+        mHfpDeviceTracker.beginReload();
+        mHfpDeviceTracker.onConnectionStateChanged(mDevice, BluetoothProfile.STATE_CONNECTED);
+
+        mHfpDeviceTracker.onAudioStateChanged(mOtherDevice,
+                BluetoothHeadsetClient.STATE_AUDIO_CONNECTED);
+
+        assertThat(mHfpDeviceTracker.isStale()).isTrue();
+        assertThat(mHfpDeviceTracker.getActiveDevice()).isNull();
+    }
+
+    @Test
+    public void testCallChanged() {
+        mHfpDeviceTracker.beginReload();
+        mHfpDeviceTracker.onConnectionStateChanged(mDevice, BluetoothProfile.STATE_CONNECTED);
+
+        mHfpDeviceTracker.onCallChanged(mDevice, CALL_ID,
+                BluetoothHeadsetClientCall.CALL_STATE_ACTIVE);
+        assertThat(mHfpDeviceTracker.hasCall(mDevice)).isTrue();
+
+        mHfpDeviceTracker.onCallChanged(mDevice, CALL_ID,
+                BluetoothHeadsetClientCall.CALL_STATE_TERMINATED);
+        assertThat(mHfpDeviceTracker.hasCall(mDevice)).isFalse();
+    }
+
+    @Test
+    public void testCallChanged_unknownDevice_marksStale() {
+        mHfpDeviceTracker.beginReload();
+
+        mHfpDeviceTracker.onCallChanged(null, CALL_ID,
+                BluetoothHeadsetClientCall.CALL_STATE_ACTIVE);
+
+        assertThat(mHfpDeviceTracker.isStale()).isTrue();
+    }
+
+    @Test
+    public void testOnBroadcast_missingExtras_marksStale() {
+        mHfpDeviceTracker.beginReload();
+
+        mHfpDeviceTracker.onBroadcast(
+                new Intent(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED));
+
+        assertThat(mHfpDeviceTracker.isStale()).isTrue();
+    }
+
+    @Test
+    public void testOnBroadcast_connectionStateChanged() {
+        mHfpDeviceTracker.beginReload();
+        Intent intent = new Intent(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED);
+        intent.putExtra(BluetoothDevice.EXTRA_DEVICE, mDevice);
+        intent.putExtra(BluetoothProfile.EXTRA_STATE, BluetoothProfile.STATE_CONNECTED);
+
+        mHfpDeviceTracker.onBroadcast(intent);
+
+        assertThat(mHfpDeviceTracker.getActiveDevice()).isEqualTo(mDevice);
+    }
+
+    @Test
+    public void testGetActiveDevice_prefersCallWithAudio() {
+        mHfpDeviceTracker.beginReload();
+        mHfpDeviceTracker.addDevice(mDevice, BluetoothHeadsetClient.STATE_AUDIO_DISCONNECTED,
+                Collections.emptyList());
+        mHfpDeviceTracker.addDevice(mOtherDevice, BluetoothHeadsetClient.STATE_AUDIO_DISCONNECTED,
+                Collections.singletonList(CALL_ID));
+        // The device with a call wins over the first connected one.
+        assertThat(mHfpDeviceTracker.getActiveDevice()).isEqualTo(mOtherDevice);
+
+        mHfpDeviceTracker.onCallChanged(mDevice, CALL_ID + 1,
+                BluetoothHeadsetClientCall.CALL_STATE_ACTIVE);
+        mHfpDeviceTracker.onAudioStateChanged(mDevice,
+                BluetoothHeadsetClient.STATE_AUDIO_CONNECTED);
+        // Both have a call, the one with connected audio wins.
+        assertThat(mHfpDeviceTracker.getActiveDevice()).isEqualTo(mDevice);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.telecom.Call;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.notification.InCallNotificationController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for {@link InCallRouter}.
+ */
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class InCallRouterTest {
+    private static final int CHURN_THREAD_COUNT = 4;
+    private static final int CHURN_ITERATIONS = 2000;
+    private static final int CALL_COUNT = 2000;
+
+    private Context mContext;
+    private InCallRouter mInCallRouter;
+
+    @Mock
+    private InCallNotificationController mInCallNotificationController;
+    @Mock
+    private ProjectionCallHandler mProjectionCallHandler;
+    @Mock
+    private InCallServiceImpl.ActiveCallListChangedCallback mCallback;
+    @Mock
+    private Call mMockTelecomCall;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+
+        // The call is handled by the projection handler so the router doesn't launch any UI.
+        when(mProjectionCallHandler.onTelecomCallAdded(any())).thenReturn(true);
+        when(mMockTelecomCall.getState()).thenReturn(Call.STATE_ACTIVE);
+
+        mInCallRouter = new InCallRouter(
+                mContext, mInCallNotificationController, mProjectionCallHandler);
+    }
+
+    @Test
+    public void registerCallback_takesEffectImmediately() {
+        mInCallRouter.registerActiveCallListChangedCallback(mCallback);
+
+        mInCallRouter.onCallAdded(mMockTelecomCall);
+
+        verify(mCallback).onTelecomCallAdded(mMockTelecomCall);
+    }
+
+    @Test
+    public void registerCallbackTwice_dispatchedOnce() {
+        mInCallRouter.registerActiveCallListChangedCallback(mCallback);
+        mInCallRouter.registerActiveCallListChangedCallback(mCallback);
+
+        assertThat(mInCallRouter.getActiveCallListChangedCallbacks()).hasLength(1);
+    }
+
+    @Test
+    public void unregisterCallback_noLongerDispatched() {
+        mInCallRouter.registerActiveCallListChangedCallback(mCallback);
+        mInCallRouter.unregisterActiveCallHandler(mCallback);
+
+        mInCallRouter.onCallAdded(mMockTelecomCall);
+        mInCallRouter.onCallRemoved(mMockTelecomCall);
+
+        verify(mCallback, never()).onTelecomCallAdded(any());
+        verify(mCallback, never()).onTelecomCallRemoved(any());
+    }
+
+    @Test
+    public void projectionCallHandler_isDispatchedFirst() {
+        mInCallRouter.registerActiveCallListChangedCallback(mCallback);
+        mInCallRouter.start();
+
+        mInCallRouter.onCallAdded(mMockTelecomCall);
+
+        InOrder inOrder = inOrder(mProjectionCallHandler, mCallback);
+        inOrder.verify(mProjectionCallHandler).onTelecomCallAdded(mMockTelecomCall);
+        inOrder.verify(mCallback).onTelecomCallAdded(mMockTelecomCall);
+    }
+
+    @Test
+    public void stop_removesProjectionCallHandler() {
+        mInCallRouter.start();
+        mInCallRouter.registerActiveCallListChangedCallback(mCallback);
+        mInCallRouter.stop();
+
+        assertThat(mInCallRouter.getActiveCallListChangedCallbacks())
+                .asList().containsExactly(mCallback);
+        verify(mProjectionCallHandler).stop();
+    }
+
+    @Test
+    public void registerAndUnregister_underConcurrentCallChurn() throws Exception {
+        mInCallRouter.start();
+        CountingCallback stableCallback = new CountingCallback();
+        mInCallRouter.registerActiveCallListChangedCallback(stableCallback);
+
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(CHURN_THREAD_COUNT);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < CHURN_THREAD_COUNT; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    startLatch.await();
+                    for (int j = 0; j < CHURN_ITERATIONS; j++) {
+                        CountingCallback churnCallback = new CountingCallback();
+                        mInCallRouter.registerActiveCallListChangedCallback(churnCallback);
+                        mInCallRouter.unregisterActiveCallHandler(churnCallback);
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+            thread.start();
+        }
+
+        startLatch.countDown();
+        for (int i = 0; i < CALL_COUNT; i++) {
+            mInCallRouter.onCallAdded(mMockTelecomCall);
+            mInCallRouter.onCallRemoved(mMockTelecomCall);
+        }
+        assertThat(doneLatch.await(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(failure.get()).isNull();
+        assertThat(stableCallback.mAddedCount.get()).isEqualTo(CALL_COUNT);
+        assertThat(stableCallback.mRemovedCount.get()).isEqualTo(CALL_COUNT);
+        // All churning callbacks are gone and the projection handler keeps its priority.
+        assertThat(mInCallRouter.getActiveCallListChangedCallbacks())
+                .asList().containsExactly(mProjectionCallHandler, stableCallback).inOrder();
+    }
+
+    private static class CountingCallback implements
+            InCallServiceImpl.ActiveCallListChangedCallback {
+        private final AtomicInteger mAddedCount = new AtomicInteger();
+        private final AtomicInteger mRemovedCount = new AtomicInteger();
+
+        @Override
+        public boolean onTelecomCallAdded(Call telecomCall) {
+            mAddedCount.incrementAndGet();
+            return false;
+        }
+
+        @Override
+        public boolean onTelecomCallRemoved(Call telecomCall) {
+            mRemovedCount.incrementAndGet();
+            return false;
+        }
+    }
+}
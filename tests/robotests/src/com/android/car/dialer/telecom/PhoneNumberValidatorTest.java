@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import android.content.Context;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.TelecomUtils;
+
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class PhoneNumberValidatorTest {
+    private static final String[] NUMBERS = {
+            "6505551234",
+            "+16505551234",
+            "16505551234",
+            "511",
+            "911",
+            "#77",
+            "1",
+            "12345678901234567",
+            "123456789012345678901",
+            "+442079460000",
+            "+390612345678",
+            "+8613800138000",
+            "xxxxx",
+            "51f",
+    };
+
+    private Context mContext;
+    private PhoneNumberValidator mPhoneNumberValidator;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mPhoneNumberValidator = new PhoneNumberValidator(mContext);
+    }
+
+    @Test
+    public void testIsValidNumber_matchesCheckingEveryType() {
+        mPhoneNumberValidator.preload();
+
+        for (String number : NUMBERS) {
+            Phonenumber.PhoneNumber phoneNumber = TelecomUtils.createI18nPhoneNumber(mContext,
+                    number);
+            boolean expected = phoneNumber != null
+                    && PhoneNumberValidator.isPossibleForAnyType(phoneNumber);
+            assertWithMessage("Verdict of %s", number)
+                    .that(mPhoneNumberValidator.isValidNumber(number)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testIsValidNumber_recentVerdictReused() {
+        boolean first = mPhoneNumberValidator.isValidNumber("6505551234");
+
+        assertThat(mPhoneNumberValidator.isValidNumber("6505551234")).isEqualTo(first);
+        assertThat(mPhoneNumberValidator.isValidNumber("")).isFalse();
+    }
+}
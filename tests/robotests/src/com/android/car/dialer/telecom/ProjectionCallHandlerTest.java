@@ -21,8 +21,11 @@ import static com.android.car.dialer.telecom.ProjectionCallHandler.PROJECTION_ST
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,6 +36,7 @@ import android.car.CarProjectionManager;
 import android.car.projection.ProjectionStatus;
 import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Parcelable;
@@ -46,6 +50,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
 
 import java.util.Collections;
 
@@ -90,7 +95,8 @@ public class ProjectionCallHandlerTest {
         mTelecomManager.registerPhoneAccount(mNonHfpAccount);
         mTelecomManager.registerPhoneAccount(mAccountWithNoAddress);
 
-        mProjectionCallHandler = new ProjectionCallHandler(mTelecomManager, mCarProjectionManager);
+        mProjectionCallHandler = new ProjectionCallHandler(mContext, mTelecomManager,
+                mCarProjectionManager);
     }
 
     @Test
@@ -266,6 +272,49 @@ public class ProjectionCallHandlerTest {
         assertThat(mProjectionCallHandler.onTelecomCallAdded(call)).isFalse();
     }
 
+    @Test
+    public void repeatedCalls_fromSameAccount_resolvePhoneAccountOnce() {
+        sendProjectionStatus(suppressableStatus());
+
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+
+        verify(mTelecomManager, times(1)).getPhoneAccount(mHfpAccount.getAccountHandle());
+    }
+
+    @Test
+    public void phoneAccountRegistered_resolvesPhoneAccountAgain() {
+        mProjectionCallHandler.start();
+        sendProjectionStatus(suppressableStatus());
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+
+        mContext.sendBroadcast(new Intent(TelecomManager.ACTION_PHONE_ACCOUNT_REGISTERED));
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+        verify(mTelecomManager, times(2)).getPhoneAccount(mHfpAccount.getAccountHandle());
+        mProjectionCallHandler.stop();
+    }
+
+    @Test
+    public void noProjectingDevices_doesNotResolvePhoneAccount() {
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isFalse();
+
+        verify(mTelecomManager, never()).getPhoneAccount(any());
+    }
+
+    @Test
+    public void projectionStatusChanged_toInactive_stopsSuppressing() {
+        sendProjectionStatus(suppressableStatus());
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+
+        sendProjectionStatus(
+                projectionStatusBuilder(ProjectionStatus.PROJECTION_STATE_INACTIVE)
+                        .build());
+
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isFalse();
+    }
+
     private Call createCall(PhoneAccount account) {
         Call.Details details = mock(Call.Details.class);
         when(details.getAccountHandle()).thenReturn(account.getAccountHandle());
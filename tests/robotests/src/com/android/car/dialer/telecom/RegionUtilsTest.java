@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.telephony.TelephonyManager;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Locale;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class RegionUtilsTest {
+    private Context mContext;
+    private Locale mDefaultLocale;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mDefaultLocale = Locale.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(mDefaultLocale);
+    }
+
+    @Test
+    public void testGetRegionCode_network() {
+        shadowOf(mContext.getSystemService(TelephonyManager.class)).setNetworkCountryIso("gb");
+
+        assertThat(RegionUtils.getRegionCode(mContext)).isEqualTo("GB");
+    }
+
+    @Test
+    public void testGetRegionCode_noNetwork_locale() {
+        shadowOf(mContext.getSystemService(TelephonyManager.class)).setNetworkCountryIso("");
+        Locale.setDefault(Locale.FRANCE);
+
+        assertThat(RegionUtils.getRegionCode(mContext)).isEqualTo("FR");
+    }
+}
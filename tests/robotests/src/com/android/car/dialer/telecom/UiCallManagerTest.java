@@ -30,6 +30,7 @@ import static org.mockito.Mockito.when;
 import android.app.Application;
 import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 import android.telecom.CallAudioState;
@@ -50,6 +51,7 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.shadow.api.Shadow;
 import org.robolectric.shadows.ShadowContextImpl;
+import org.robolectric.shadows.ShadowLooper;
 import org.robolectric.shadows.ShadowToast;
 
 import java.util.List;
@@ -268,6 +270,67 @@ public class UiCallManagerTest {
                 .isEqualTo(CallAudioState.ROUTE_SPEAKER);
     }
 
+    @Test
+    public void testIsBluetoothCall_cachedUntilAudioRouteChanges() {
+        initUiCallManager();
+        AudioRouteStateHolder audioRouteStateHolder = mUiCallManager.getAudioRouteStateHolder();
+
+        assertThat(mUiCallManager.isBluetoothCall()).isFalse();
+        assertThat(mUiCallManager.getAudioRoute()).isEqualTo(0);
+        assertThat(mUiCallManager.getSupportedAudioRoute()).isEmpty();
+        // The state is built once and served from the cache for the following reads.
+        verify(mMockTelecomManager).getUserSelectedOutgoingPhoneAccount();
+        assertThat(audioRouteStateHolder.getSnapshotBuildCount()).isEqualTo(1);
+        assertThat(audioRouteStateHolder.getBinderCallCount()).isEqualTo(1);
+
+        PhoneAccountHandle mockPhoneAccountHandle = mock(PhoneAccountHandle.class);
+        ComponentName mockComponentName = mock(ComponentName.class);
+        when(mockComponentName.getClassName()).thenReturn(
+                UiCallManager.HFP_CLIENT_CONNECTION_SERVICE_CLASS_NAME);
+        when(mockPhoneAccountHandle.getComponentName()).thenReturn(mockComponentName);
+        when(mMockTelecomManager.getUserSelectedOutgoingPhoneAccount())
+                .thenReturn(mockPhoneAccountHandle);
+        UiCallManager.OnAudioRouteChangedListener listener =
+                mock(UiCallManager.OnAudioRouteChangedListener.class);
+        mUiCallManager.addOnAudioRouteChangedListener(listener);
+
+        audioRouteStateHolder.invalidate();
+
+        verify(listener).onAudioRouteChanged();
+        assertThat(mUiCallManager.isBluetoothCall()).isTrue();
+        assertThat(mUiCallManager.isBluetoothCall()).isTrue();
+        assertThat(audioRouteStateHolder.getSnapshotBuildCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testIsBluetoothCall_reloadedWhenPhoneAccountRegistered() {
+        initUiCallManager();
+        assertThat(mUiCallManager.isBluetoothCall()).isFalse();
+
+        PhoneAccountHandle mockPhoneAccountHandle = mock(PhoneAccountHandle.class);
+        ComponentName mockComponentName = mock(ComponentName.class);
+        when(mockComponentName.getClassName()).thenReturn(
+                UiCallManager.HFP_CLIENT_CONNECTION_SERVICE_CLASS_NAME);
+        when(mockPhoneAccountHandle.getComponentName()).thenReturn(mockComponentName);
+        when(mMockTelecomManager.getUserSelectedOutgoingPhoneAccount())
+                .thenReturn(mockPhoneAccountHandle);
+        mContext.sendBroadcast(new Intent(TelecomManager.ACTION_PHONE_ACCOUNT_REGISTERED));
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(mUiCallManager.isBluetoothCall()).isTrue();
+    }
+
+    @Test
+    public void testTearDown_lateCallersGetEmptyState() {
+        initUiCallManager();
+
+        mUiCallManager.tearDown();
+
+        assertThat(mUiCallManager.isBluetoothCall()).isFalse();
+        assertThat(mUiCallManager.getHfpDevice()).isNull();
+        assertThat(mUiCallManager.getAudioRoute()).isEqualTo(0);
+    }
+
     @After
     public void tearDown() {
         mUiCallManager.tearDown();
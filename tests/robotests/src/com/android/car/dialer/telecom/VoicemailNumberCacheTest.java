@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.telecom.PhoneAccountHandle;
+import android.telecom.TelecomManager;
+import android.telephony.TelephonyManager;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class VoicemailNumberCacheTest {
+    private static final String SIM_VOICEMAIL_NUMBER = "+1 650-555-0199";
+    private static final String HFP_VOICEMAIL_NUMBER = "(408) 555-0123";
+
+    @Mock
+    private Context mMockContext;
+    @Mock
+    private TelephonyManager mMockTelephonyManager;
+    @Mock
+    private TelecomManager mMockTelecomManager;
+    private VoicemailNumberCache mVoicemailNumberCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mMockContext.getSystemServiceName(TelephonyManager.class))
+                .thenReturn(Context.TELEPHONY_SERVICE);
+        when(mMockContext.getSystemService(Context.TELEPHONY_SERVICE))
+                .thenReturn(mMockTelephonyManager);
+        when(mMockContext.getSystemServiceName(TelecomManager.class))
+                .thenReturn(Context.TELECOM_SERVICE);
+        when(mMockContext.getSystemService(Context.TELECOM_SERVICE))
+                .thenReturn(mMockTelecomManager);
+
+        when(mMockTelephonyManager.getVoiceMailNumber()).thenReturn(SIM_VOICEMAIL_NUMBER);
+        PhoneAccountHandle hfpAccount = new PhoneAccountHandle(
+                new ComponentName("com.android.bluetooth", "HfpClientConnectionService"), "hfp");
+        when(mMockTelecomManager.getCallCapablePhoneAccounts())
+                .thenReturn(Arrays.asList(hfpAccount));
+        when(mMockTelecomManager.getVoiceMailNumber(hfpAccount)).thenReturn(HFP_VOICEMAIL_NUMBER);
+
+        mVoicemailNumberCache = new VoicemailNumberCache(mMockContext);
+    }
+
+    @Test
+    public void testIsVoicemailNumber_normalizedMatch() {
+        assertThat(mVoicemailNumberCache.isVoicemailNumber("+16505550199")).isTrue();
+        assertThat(mVoicemailNumberCache.isVoicemailNumber("408-555-0123")).isTrue();
+        assertThat(mVoicemailNumberCache.isVoicemailNumber("+16505550100")).isFalse();
+        assertThat(mVoicemailNumberCache.isVoicemailNumber("")).isFalse();
+        assertThat(mVoicemailNumberCache.isVoicemailNumber(null)).isFalse();
+    }
+
+    @Test
+    public void testIsVoicemailNumber_loadsOnce() {
+        for (int i = 0; i < 100; i++) {
+            mVoicemailNumberCache.isVoicemailNumber("+16505550100");
+        }
+
+        verify(mMockTelephonyManager, times(1)).getVoiceMailNumber();
+    }
+
+    @Test
+    public void testRefresh_picksUpNewNumber() {
+        assertThat(mVoicemailNumberCache.isVoicemailNumber("+16505550100")).isFalse();
+        when(mMockTelephonyManager.getVoiceMailNumber()).thenReturn("+16505550100");
+
+        mVoicemailNumberCache.refresh();
+
+        assertThat(mVoicemailNumberCache.isVoicemailNumber("+16505550100")).isTrue();
+        assertThat(mVoicemailNumberCache.isVoicemailNumber("+16505550199")).isFalse();
+    }
+
+    @Test
+    public void testRefresh_securityException_noVoicemailNumbers() {
+        when(mMockTelephonyManager.getVoiceMailNumber()).thenThrow(new SecurityException());
+
+        assertThat(mVoicemailNumberCache.isVoicemailNumber("+16505550199")).isFalse();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.testutils;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.IntFunction;
+
+/**
+ * Asserts the time and allocation budgets of an operation at scale, and that its cost grows
+ * linearly with the input size.
+ *
+ * <p>Absolute budgets vary between machines, so they are generous and mostly catch gross
+ * regressions. The growth check compares the operation at a quarter of the size and at the full
+ * size on the same machine, which is what catches O(n²) behavior: linear work grows about 4x,
+ * quadratic work 16x.
+ */
+public class ScaleBudget {
+    private static final int SIZE_STEP = 4;
+    /** Max growth of the time when the size grows by {@link #SIZE_STEP}. */
+    private static final double MAX_TIME_GROWTH = 8;
+    /** Max growth of the allocated bytes when the size grows by {@link #SIZE_STEP}. */
+    private static final double MAX_ALLOCATION_GROWTH = 6;
+    /**
+     * Costs below these are noise and are raised to them before computing the growth, so that
+     * operations which don't depend on the size at all don't fail the check.
+     */
+    private static final long MIN_NANOS = 5L * 1000 * 1000;
+    private static final long MIN_BYTES = 256 * 1024;
+    private static final int RUNS = 3;
+
+    private final String mName;
+    private long mTimeBudgetMillis = Long.MAX_VALUE;
+    private long mAllocationBudgetBytes = Long.MAX_VALUE;
+
+    public ScaleBudget(String name) {
+        mName = name;
+    }
+
+    /** Sets the max time of the operation at full size. */
+    public ScaleBudget setTimeBudgetMillis(long timeBudgetMillis) {
+        mTimeBudgetMillis = timeBudgetMillis;
+        return this;
+    }
+
+    /** Sets the max bytes allocated by the operation at full size. */
+    public ScaleBudget setAllocationBudgetBytes(long allocationBudgetBytes) {
+        mAllocationBudgetBytes = allocationBudgetBytes;
+        return this;
+    }
+
+    /**
+     * Prepares the operation for each size and checks its cost. Only the returned runnable is
+     * measured, so the input has to be built by the function. The runnable is run several times
+     * and the cheapest run counts.
+     */
+    public void assertWithinBudget(int size, IntFunction<Runnable> operationForSize) {
+        Runnable smallOperation = operationForSize.apply(size / SIZE_STEP);
+        Runnable operation = operationForSize.apply(size);
+        // Warm up class loading and the JIT with the small size.
+        smallOperation.run();
+
+        long[] smallCost = measure(smallOperation);
+        long[] cost = measure(operation);
+
+        assertWithMessage("%s time at %s items in ms", mName, size)
+                .that(cost[0] / 1000000).isAtMost(mTimeBudgetMillis);
+        if (cost[1] >= 0) {
+            assertWithMessage("%s allocated bytes at %s items", mName, size)
+                    .that(cost[1]).isAtMost(mAllocationBudgetBytes);
+        }
+        assertWithMessage("%s time growth from %s to %s items", mName, size / SIZE_STEP, size)
+                .that((double) cost[0] / Math.max(smallCost[0], MIN_NANOS))
+                .isAtMost(MAX_TIME_GROWTH);
+        if (cost[1] >= 0) {
+            assertWithMessage("%s allocation growth from %s to %s items", mName,
+                    size / SIZE_STEP, size)
+                    .that((double) cost[1] / Math.max(smallCost[1], MIN_BYTES))
+                    .isAtMost(MAX_ALLOCATION_GROWTH);
+        }
+    }
+
+    /** Returns the min time in nanos and min allocated bytes over the runs. */
+    private static long[] measure(Runnable operation) {
+        long minNanos = Long.MAX_VALUE;
+        long minBytes = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long startBytes = getAllocatedBytes();
+            long startNanos = System.nanoTime();
+            operation.run();
+            minNanos = Math.min(minNanos, System.nanoTime() - startNanos);
+            minBytes = Math.min(minBytes,
+                    startBytes < 0 ? -1 : getAllocatedBytes() - startBytes);
+        }
+        return new long[]{minNanos, minBytes};
+    }
+
+    /** Returns the bytes allocated by the current thread so far, or -1 if not supported. */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.testutils;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.provider.CallLog;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneCallLog;
+
+import org.robolectric.shadows.ShadowContentResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Seeds the call log and contacts providers with a large number of synthetic rows for scale
+ * tests. Queries ignore the selection and return every seeded row.
+ */
+public final class ScaleTestData {
+    /** The number of contacts a scale test runs with. */
+    public static final int CONTACT_COUNT = 5000;
+    /** The number of call log rows a scale test runs with. */
+    public static final int CALL_LOG_COUNT = 10000;
+
+    private static final long NOW_MILLIS = 1546300800000L;
+    private static final long MINUTE_MILLIS = 60 * 1000;
+
+    private static final String[] CALL_LOG_COLUMNS = {
+            CallLog.Calls._ID,
+            CallLog.Calls.NUMBER,
+            CallLog.Calls.DATE,
+            CallLog.Calls.DURATION,
+            CallLog.Calls.TYPE,
+            CallLog.Calls.CACHED_NAME,
+            CallLog.Calls.NEW,
+            CallLog.Calls.IS_READ,
+    };
+
+    private static final String[] DATA_COLUMNS = {
+            ContactsContract.Data._ID,
+            ContactsContract.Data.CONTACT_ID,
+            ContactsContract.Data.RAW_CONTACT_ID,
+            ContactsContract.Data.MIMETYPE,
+            ContactsContract.Data.LOOKUP_KEY,
+            ContactsContract.Data.DISPLAY_NAME,
+            ContactsContract.Data.DISPLAY_NAME_ALTERNATIVE,
+            ContactsContract.Data.STARRED,
+            ContactsContract.Data.PHOTO_URI,
+            ContactsContract.Data.PHOTO_THUMBNAIL_URI,
+            ContactsContract.Data.IS_PRIMARY,
+            ContactsContract.Data.IS_SUPER_PRIMARY,
+            Phone.NUMBER,
+            Phone.NORMALIZED_NUMBER,
+            Phone.TYPE,
+            Phone.LABEL,
+    };
+
+    private static final String[] CONTACT_COLUMNS = {
+            ContactsContract.Contacts._ID,
+            ContactsContract.Contacts.LOOKUP_KEY,
+            ContactsContract.Contacts.DISPLAY_NAME,
+            ContactsContract.Contacts.PHOTO_URI,
+    };
+
+    private static final int[] CALL_TYPES = {
+            CallLog.Calls.INCOMING_TYPE,
+            CallLog.Calls.OUTGOING_TYPE,
+            CallLog.Calls.MISSED_TYPE,
+    };
+
+    /**
+     * Registers call log and contacts providers with the given number of rows, replacing the ones
+     * registered before.
+     */
+    public static void seedProviders(int contactCount, int callLogCount) {
+        ShadowContentResolver.registerProviderInternal(CallLog.AUTHORITY,
+                new SeededProvider(uri -> newCallLogCursor(contactCount, callLogCount)));
+        ShadowContentResolver.registerProviderInternal(ContactsContract.AUTHORITY,
+                new SeededProvider(uri -> uri.getPathSegments().contains("data")
+                        ? newDataCursor(contactCount)
+                        : newContactCursor(contactCount)));
+    }
+
+    /** Queries the seeded call log the way {@code CallHistoryLiveData} does. */
+    public static Cursor queryCallLog(Context context) {
+        return context.getContentResolver().query(CallLog.Calls.CONTENT_URI, null, null, null,
+                CallLog.Calls.DEFAULT_SORT_ORDER);
+    }
+
+    /** Queries the seeded phone numbers the way {@code InMemoryPhoneBook} does. */
+    public static Cursor queryPhones(Context context) {
+        return context.getContentResolver().query(ContactsContract.Data.CONTENT_URI, null, null,
+                null, null);
+    }
+
+    /** Queries the seeded contacts the way {@code ContactResultsViewModel} does. */
+    public static Cursor queryContacts(Context context) {
+        return context.getContentResolver().query(
+                Uri.withAppendedPath(ContactsContract.Contacts.CONTENT_FILTER_URI, "a"), null,
+                null, null, null);
+    }
+
+    /** Loads the seeded call log without merging. */
+    public static List<PhoneCallLog> loadPhoneCallLogs(Context context) {
+        List<PhoneCallLog> phoneCallLogs = new ArrayList<>();
+        try (Cursor cursor = queryCallLog(context)) {
+            while (cursor.moveToNext()) {
+                phoneCallLogs.add(PhoneCallLog.fromCursor(context, cursor));
+            }
+        }
+        return phoneCallLogs;
+    }
+
+    /** Loads the seeded contacts, one per phone number row. */
+    public static List<Contact> loadContacts(Context context) {
+        List<Contact> contacts = new ArrayList<>();
+        try (Cursor cursor = queryPhones(context)) {
+            while (cursor.moveToNext()) {
+                contacts.add(Contact.fromCursor(context, cursor));
+            }
+        }
+        return contacts;
+    }
+
+    /** Returns the phone number of a contact. */
+    public static String getPhoneNumber(int contactId) {
+        return String.format("+1650%07d", contactId);
+    }
+
+    /** Returns the display name of a contact. Names share prefixes so sorting compares deep. */
+    public static String getDisplayName(int contactId) {
+        return "Contact " + Integer.toString(contactId, 26);
+    }
+
+    /**
+     * Returns call log rows sorted by date descending. Consecutive rows share a number so they
+     * get merged, and a quarter of the numbers don't belong to any contact.
+     */
+    private static Cursor newCallLogCursor(int contactCount, int callLogCount) {
+        MatrixCursor cursor = new MatrixCursor(CALL_LOG_COLUMNS, callLogCount);
+        for (int row = 0; row < callLogCount; row++) {
+            int numberIndex = row / 2;
+            String number = numberIndex % 4 == 3
+                    ? String.format("+1408%07d", numberIndex)
+                    : getPhoneNumber(numberIndex % contactCount);
+            cursor.addRow(new Object[]{
+                    (long) row,
+                    number,
+                    NOW_MILLIS - row * MINUTE_MILLIS,
+                    (long) (row * 7 % 600),
+                    CALL_TYPES[row % CALL_TYPES.length],
+                    null,
+                    1,
+                    0});
+        }
+        return cursor;
+    }
+
+    private static Cursor newDataCursor(int contactCount) {
+        MatrixCursor cursor = new MatrixCursor(DATA_COLUMNS, contactCount);
+        for (int contactId = 0; contactId < contactCount; contactId++) {
+            String displayName = getDisplayName(contactId);
+            cursor.addRow(new Object[]{
+                    (long) contactId,
+                    (long) contactId,
+                    (long) contactId,
+                    Phone.CONTENT_ITEM_TYPE,
+                    "lookup" + contactId,
+                    displayName,
+                    displayName,
+                    contactId % 50 == 0 ? 1 : 0,
+                    null,
+                    null,
+                    1,
+                    1,
+                    getPhoneNumber(contactId),
+                    getPhoneNumber(contactId),
+                    Phone.TYPE_MOBILE,
+                    null});
+        }
+        return cursor;
+    }
+
+    private static Cursor newContactCursor(int contactCount) {
+        MatrixCursor cursor = new MatrixCursor(CONTACT_COLUMNS, contactCount);
+        for (int contactId = 0; contactId < contactCount; contactId++) {
+            cursor.addRow(new Object[]{
+                    (long) contactId,
+                    "lookup" + contactId,
+                    getDisplayName(contactId),
+                    null});
+        }
+        return cursor;
+    }
+
+    /** A provider answering every query with a freshly generated cursor. */
+    private static class SeededProvider extends ContentProvider {
+        private final Function<Uri, Cursor> mQuery;
+
+        SeededProvider(Function<Uri, Cursor> query) {
+            mQuery = query;
+        }
+
+        @Override
+        public boolean onCreate() {
+            return true;
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection,
+                String[] selectionArgs, String sortOrder) {
+            return mQuery.apply(uri);
+        }
+
+        @Override
+        public String getType(Uri uri) {
+            return null;
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int delete(Uri uri, String selection, String[] selectionArgs) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int update(Uri uri, ContentValues values, String selection,
+                String[] selectionArgs) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private ScaleTestData() {
+    }
+}
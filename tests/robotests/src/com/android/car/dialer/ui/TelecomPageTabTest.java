@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.widget.FrameLayout;
+
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.R;
+import com.android.car.dialer.ui.calllog.CallHistoryFragment;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class TelecomPageTabTest {
+    @Mock
+    private FragmentManager mMockFragmentManager;
+    private Context mContext;
+    private TelecomPageTab.Factory mFactory;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        mFactory = new TelecomPageTab.Factory(mContext, mMockFragmentManager);
+    }
+
+    @Test
+    public void testCreateTab_fragmentCreatedOnFirstGet() {
+        int tabIndex = mFactory.getTabIndex(TelecomPageTab.Page.CALL_HISTORY);
+
+        TelecomPageTab telecomPageTab = mFactory.createTab(mContext, tabIndex);
+
+        assertThat(telecomPageTab.wasFragmentRestored()).isFalse();
+        assertThat(telecomPageTab.hasFragment()).isFalse();
+        Fragment fragment = telecomPageTab.getFragment();
+        assertThat(fragment).isInstanceOf(CallHistoryFragment.class);
+        assertThat(telecomPageTab.hasFragment()).isTrue();
+        assertThat(telecomPageTab.getFragment()).isSameAs(fragment);
+    }
+
+    @Test
+    public void testCreateTab_restoredFragment() {
+        int tabIndex = mFactory.getTabIndex(TelecomPageTab.Page.CONTACTS);
+        Fragment restoredFragment = new Fragment();
+        when(mMockFragmentManager.findFragmentByTag(
+                "TelecomPageTab:" + TelecomPageTab.Page.CONTACTS)).thenReturn(restoredFragment);
+
+        TelecomPageTab telecomPageTab = mFactory.createTab(mContext, tabIndex);
+
+        assertThat(telecomPageTab.wasFragmentRestored()).isTrue();
+        assertThat(telecomPageTab.getFragment()).isSameAs(restoredFragment);
+    }
+
+    @Test
+    public void testGetPreloadOrder_mostSelectedFirst() {
+        int callHistory = mFactory.getTabIndex(TelecomPageTab.Page.CALL_HISTORY);
+        int contacts = mFactory.getTabIndex(TelecomPageTab.Page.CONTACTS);
+        int dialpad = mFactory.getTabIndex(TelecomPageTab.Page.DIAL_PAD);
+
+        assertThat(mFactory.getPreloadOrder(callHistory)).containsExactly(contacts, dialpad)
+                .inOrder();
+
+        mFactory.recordTabSelected(dialpad);
+
+        assertThat(mFactory.getPreloadOrder(callHistory)).containsExactly(dialpad, contacts)
+                .inOrder();
+    }
+
+    @Test
+    public void testGetPreloadLayouts_inflatedWithoutFragments() {
+        LayoutInflater inflater = LayoutInflater.from(mContext);
+        FrameLayout container = new FrameLayout(mContext);
+
+        for (String page : mContext.getResources().getStringArray(R.array.tabs_config)) {
+            int[] layouts = mFactory.getPreloadLayouts(page);
+            assertThat(layouts).isNotEmpty();
+            for (int layoutResId : layouts) {
+                assertThat(inflater.inflate(layoutResId, container, false)).isNotNull();
+            }
+        }
+        assertThat(mFactory.getPreloadLayouts(TelecomPageTab.Page.DIAL_PAD))
+                .asList().doesNotContain(R.layout.dialpad_fragment);
+    }
+}
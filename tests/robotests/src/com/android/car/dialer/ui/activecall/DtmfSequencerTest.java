@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.activecall;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyChar;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.telecom.Call;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class DtmfSequencerTest {
+    private static final long DIGIT_MS = DtmfSequencer.TONE_MS + DtmfSequencer.TONE_GAP_MS;
+
+    @Mock
+    private Call mMockCall;
+    @Mock
+    private Call mMockOtherCall;
+    private DtmfSequencer mDtmfSequencer;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mDtmfSequencer = new DtmfSequencer();
+    }
+
+    @Test
+    public void testSend_pacesDigitsInOrder() {
+        mDtmfSequencer.send(mMockCall, "12-3#");
+        ShadowLooper.idleMainLooper(4 * DIGIT_MS);
+
+        InOrder inOrder = inOrder(mMockCall);
+        for (char digit : new char[]{'1', '2', '3', '#'}) {
+            inOrder.verify(mMockCall).playDtmfTone(digit);
+            inOrder.verify(mMockCall).stopDtmfTone();
+        }
+        verifyProgress(5, DtmfSequencer.State.DONE);
+    }
+
+    @Test
+    public void testSend_pause() {
+        mDtmfSequencer.send(mMockCall, "1,2");
+        ShadowLooper.idleMainLooper(DIGIT_MS);
+
+        verifyProgress(2, DtmfSequencer.State.PAUSED);
+        verify(mMockCall, never()).playDtmfTone('2');
+
+        ShadowLooper.idleMainLooper(DtmfSequencer.PAUSE_MS);
+        verify(mMockCall).playDtmfTone('2');
+    }
+
+    @Test
+    public void testSend_waitUntilContinued() {
+        mDtmfSequencer.send(mMockCall, "1;2");
+        ShadowLooper.idleMainLooper(DIGIT_MS + DtmfSequencer.PAUSE_MS);
+
+        verifyProgress(2, DtmfSequencer.State.WAITING);
+        assertThat(mDtmfSequencer.isWaiting()).isTrue();
+        verify(mMockCall, never()).playDtmfTone('2');
+
+        mDtmfSequencer.continueSequence();
+        assertThat(mDtmfSequencer.isWaiting()).isFalse();
+        verify(mMockCall).playDtmfTone('2');
+    }
+
+    @Test
+    public void testCallDisconnected_cancelsSequence() {
+        mDtmfSequencer.send(mMockCall, "123");
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        verify(mMockCall).registerCallback(callbackCaptor.capture());
+
+        callbackCaptor.getValue().onStateChanged(mMockCall, Call.STATE_DISCONNECTED);
+        ShadowLooper.idleMainLooper(3 * DIGIT_MS);
+
+        verify(mMockCall).stopDtmfTone();
+        verify(mMockCall, never()).playDtmfTone('2');
+        verify(mMockCall).unregisterCallback(any());
+        verifyProgress(1, DtmfSequencer.State.CANCELLED);
+    }
+
+    @Test
+    public void testCallHeld_cancelsSequence() {
+        mDtmfSequencer.send(mMockCall, "123");
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        verify(mMockCall).registerCallback(callbackCaptor.capture());
+
+        callbackCaptor.getValue().onStateChanged(mMockCall, Call.STATE_HOLDING);
+        ShadowLooper.idleMainLooper(3 * DIGIT_MS);
+
+        verify(mMockCall, never()).playDtmfTone('2');
+        verifyProgress(1, DtmfSequencer.State.CANCELLED);
+    }
+
+    @Test
+    public void testCancelUnlessSentOver_otherCall() {
+        mDtmfSequencer.send(mMockCall, "123");
+
+        mDtmfSequencer.cancelUnlessSentOver(mMockCall);
+        verifyProgress(1, DtmfSequencer.State.SENDING);
+
+        mDtmfSequencer.cancelUnlessSentOver(mMockOtherCall);
+        ShadowLooper.idleMainLooper(3 * DIGIT_MS);
+
+        verify(mMockCall, never()).playDtmfTone('2');
+        verifyProgress(1, DtmfSequencer.State.CANCELLED);
+    }
+
+    @Test
+    public void testCancel_noSequence() {
+        mDtmfSequencer.cancel();
+
+        verify(mMockCall, never()).playDtmfTone(anyChar());
+        assertThat(mDtmfSequencer.getProgress().getValue()).isNull();
+    }
+
+    private void verifyProgress(int sentCount, @DtmfSequencer.State int state) {
+        DtmfSequencer.Progress progress = mDtmfSequencer.getProgress().getValue();
+        assertThat(progress.getSentCount()).isEqualTo(sentCount);
+        assertThat(progress.getState()).isEqualTo(state);
+    }
+}
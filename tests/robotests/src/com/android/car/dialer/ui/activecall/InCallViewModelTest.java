@@ -19,7 +19,9 @@ package com.android.car.dialer.ui.activecall;
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.Application;
@@ -42,6 +44,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RuntimeEnvironment;
@@ -197,4 +200,33 @@ public class InCallViewModelTest {
 
         assertThat(mInCallViewModel.getPrimaryCall().getValue()).isEqualTo(mMockActiveCall);
     }
+
+    @Test
+    public void testPostDialWait_sentBySequencer() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        verify(mMockDialingCall).registerCallback(callbackCaptor.capture());
+
+        callbackCaptor.getValue().onPostDialWait(mMockDialingCall, "1234");
+
+        verify(mMockDialingCall).postDialContinue(false);
+        DtmfSequencer.Progress progress =
+                mInCallViewModel.getDtmfSequencer().getProgress().getValue();
+        assertThat(progress.getSequence()).isEqualTo(";1234");
+        assertThat(progress.getState()).isEqualTo(DtmfSequencer.State.WAITING);
+    }
+
+    @Test
+    public void testPrimaryCallChanged_cancelsSequence() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        verify(mMockDialingCall).registerCallback(callbackCaptor.capture());
+        mInCallViewModel.sendDtmfSequence("1;2");
+        mListForMockCalls.remove(mMockDialingCall);
+
+        mInCallViewModel.onTelecomCallRemoved(mMockDialingCall);
+
+        verify(mMockDialingCall).unregisterCallback(callbackCaptor.getValue());
+        verify(mMockActiveCall).registerCallback(any(Call.Callback.class));
+        assertThat(mInCallViewModel.getDtmfSequencer().getProgress().getValue().getState())
+                .isEqualTo(DtmfSequencer.State.CANCELLED);
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.car.dialer.ui.calllog;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.apps.common.widget.PagedRecyclerView;
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.FragmentTestActivity;
+import com.android.car.dialer.R;
+import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.dialer.testutils.ScaleBudget;
+import com.android.car.dialer.testutils.ScaleTestData;
+import com.android.car.dialer.testutils.ShadowAndroidViewModelFactory;
+import com.android.car.dialer.ui.common.entity.UiCallLog;
+import com.android.car.telephony.common.InMemoryPhoneBook;
+import com.android.car.telephony.common.PhoneCallLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Updates the call history list with the seeded call log. Only the visible rows should be bound,
+ * so the cost of an update should barely depend on the size of the call log.
+ */
+@Config(shadows = {ShadowAndroidViewModelFactory.class})
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CallHistoryFragmentScaleTest {
+    private static final int MAX_VISIBLE_ROWS = 100;
+
+    private Context mContext;
+    private MutableLiveData<List<UiCallLog>> mCallHistoryLiveData;
+    private PagedRecyclerView mListView;
+    @Mock
+    private UiCallManager mMockUiCallManager;
+    @Mock
+    private CallHistoryViewModel mMockCallHistoryViewModel;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+
+        InMemoryPhoneBook.init(mContext);
+        UiCallManager.set(mMockUiCallManager);
+
+        mCallHistoryLiveData = new MutableLiveData<>();
+        ShadowAndroidViewModelFactory.add(CallHistoryViewModel.class, mMockCallHistoryViewModel);
+        when(mMockCallHistoryViewModel.getCallHistory()).thenReturn(mCallHistoryLiveData);
+
+        CallHistoryFragment callHistoryFragment = CallHistoryFragment.newInstance();
+        FragmentTestActivity fragmentTestActivity = Robolectric.buildActivity(
+                FragmentTestActivity.class).create().resume().get();
+        fragmentTestActivity.setFragment(callHistoryFragment);
+
+        mListView = callHistoryFragment.getView().findViewById(R.id.list_view);
+    }
+
+    @After
+    public void tearDown() {
+        InMemoryPhoneBook.tearDown();
+    }
+
+    @Test
+    public void testUpdateCallHistory() {
+        new ScaleBudget("CallHistoryFragment.update")
+                .setTimeBudgetMillis(2000)
+                .setAllocationBudgetBytes(32L * 1024 * 1024)
+                .assertWithinBudget(ScaleTestData.CALL_LOG_COUNT, size -> {
+                    ScaleTestData.seedProviders(ScaleTestData.CONTACT_COUNT, size);
+                    List<UiCallLog> uiCallLogs = loadUiCallLogs();
+                    return () -> {
+                        mCallHistoryLiveData.setValue(uiCallLogs);
+                        mListView.layoutBothForTesting(0, 0, 100, 1000);
+                    };
+                });
+
+        assertThat(mListView.getAdapter().getItemCount()).isEqualTo(ScaleTestData.CALL_LOG_COUNT);
+        assertThat(mListView.getChildCount()).isLessThan(MAX_VISIBLE_ROWS);
+    }
+
+    private List<UiCallLog> loadUiCallLogs() {
+        List<UiCallLog> uiCallLogs = new ArrayList<>();
+        for (PhoneCallLog phoneCallLog : ScaleTestData.loadPhoneCallLogs(mContext)) {
+            String number = phoneCallLog.getPhoneNumberString();
+            uiCallLogs.add(new UiCallLog(number, "", number, null,
+                    phoneCallLog.getAllCallRecords()));
+        }
+        return uiCallLogs;
+    }
+}
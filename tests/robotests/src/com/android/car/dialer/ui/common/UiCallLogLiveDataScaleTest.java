@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.car.dialer.ui.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.text.format.DateUtils;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.livedata.CallHistoryLiveData;
+import com.android.car.dialer.livedata.HeartBeatLiveData;
+import com.android.car.dialer.testutils.ScaleBudget;
+import com.android.car.dialer.testutils.ScaleTestData;
+import com.android.car.dialer.testutils.ShadowInMemoryPhoneBook;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.InMemoryPhoneBook;
+import com.android.car.telephony.common.PhoneCallLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadow.api.Shadow;
+
+import java.util.List;
+
+@Config(shadows = {ShadowInMemoryPhoneBook.class})
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class UiCallLogLiveDataScaleTest {
+
+    private Context mContext;
+    private UiCallLogLiveData mUiCallLogLiveData;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        InMemoryPhoneBook.init(mContext);
+        mUiCallLogLiveData = new UiCallLogLiveData(mContext,
+                new HeartBeatLiveData(DateUtils.MINUTE_IN_MILLIS),
+                CallHistoryLiveData.newInstance(mContext),
+                new MutableLiveData<>());
+    }
+
+    @After
+    public void tearDown() {
+        InMemoryPhoneBook.tearDown();
+    }
+
+    @Test
+    public void testConvert() {
+        new ScaleBudget("UiCallLogLiveData.convert")
+                .setTimeBudgetMillis(10000)
+                .setAllocationBudgetBytes(256L * 1024 * 1024)
+                .assertWithinBudget(ScaleTestData.CALL_LOG_COUNT, size -> {
+                    ScaleTestData.seedProviders(ScaleTestData.CONTACT_COUNT, size);
+                    seedPhoneBook();
+                    List<PhoneCallLog> phoneCallLogs = ScaleTestData.loadPhoneCallLogs(mContext);
+                    return () -> assertThat(mUiCallLogLiveData.convert(phoneCallLogs))
+                            .hasSize(size);
+                });
+    }
+
+    private void seedPhoneBook() {
+        ShadowInMemoryPhoneBook phoneBook = Shadow.extract(InMemoryPhoneBook.get());
+        int contactId = 0;
+        for (Contact contact : ScaleTestData.loadContacts(mContext)) {
+            phoneBook.add(ScaleTestData.getPhoneNumber(contactId++), contact);
+        }
+    }
+}
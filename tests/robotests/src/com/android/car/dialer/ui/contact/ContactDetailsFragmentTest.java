@@ -86,8 +86,8 @@ public class ContactDetailsFragmentTest {
         contactDetails.setValue(mMockContact);
         ShadowAndroidViewModelFactory.add(ContactDetailsViewModel.class,
                 mMockContactDetailsViewModel);
-        when(mMockContactDetailsViewModel.getContactDetails(mMockContactLookupUri)).thenReturn(
-                contactDetails);
+        when(mMockContactDetailsViewModel.getContactDetails(mMockContactLookupUri, mMockContact))
+                .thenReturn(contactDetails);
     }
 
     @Test
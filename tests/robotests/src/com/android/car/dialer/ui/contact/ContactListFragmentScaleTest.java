@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.car.dialer.ui.contact;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.apps.common.widget.PagedRecyclerView;
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.FragmentTestActivity;
+import com.android.car.dialer.R;
+import com.android.car.dialer.testutils.ScaleBudget;
+import com.android.car.dialer.testutils.ScaleTestData;
+import com.android.car.dialer.testutils.ShadowAndroidViewModelFactory;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+/**
+ * Updates the contact list with the seeded contacts. Only the visible rows should be bound, so
+ * the cost of an update should barely depend on the number of contacts.
+ */
+@Config(shadows = {ShadowAndroidViewModelFactory.class})
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class ContactListFragmentScaleTest {
+    private static final int MAX_VISIBLE_ROWS = 100;
+
+    private Context mContext;
+    private MutableLiveData<List<Contact>> mContactListLiveData;
+    private PagedRecyclerView mListView;
+    @Mock
+    private ContactListViewModel mMockContactListViewModel;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+
+        mContactListLiveData = new MutableLiveData<>();
+        ShadowAndroidViewModelFactory.add(ContactListViewModel.class, mMockContactListViewModel);
+        when(mMockContactListViewModel.getAllContacts()).thenReturn(mContactListLiveData);
+
+        ContactListFragment contactListFragment = ContactListFragment.newInstance();
+        FragmentTestActivity fragmentTestActivity = Robolectric.buildActivity(
+                FragmentTestActivity.class).create().resume().get();
+        fragmentTestActivity.setFragment(contactListFragment);
+
+        mListView = contactListFragment.getView().findViewById(R.id.list_view);
+    }
+
+    @Test
+    public void testUpdateContactList() {
+        new ScaleBudget("ContactListFragment.update")
+                .setTimeBudgetMillis(2000)
+                .setAllocationBudgetBytes(32L * 1024 * 1024)
+                .assertWithinBudget(ScaleTestData.CONTACT_COUNT, size -> {
+                    ScaleTestData.seedProviders(size, ScaleTestData.CALL_LOG_COUNT);
+                    List<Contact> contacts = ScaleTestData.loadContacts(mContext);
+                    return () -> {
+                        mContactListLiveData.setValue(contacts);
+                        mListView.layoutBothForTesting(0, 0, 100, 1000);
+                    };
+                });
+
+        assertThat(mListView.getAdapter().getItemCount()).isEqualTo(ScaleTestData.CONTACT_COUNT);
+        assertThat(mListView.getChildCount()).isLessThan(MAX_VISIBLE_ROWS);
+    }
+}
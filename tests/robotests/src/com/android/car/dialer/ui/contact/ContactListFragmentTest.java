@@ -88,7 +88,8 @@ public class ContactListFragmentTest {
         contactDetail.setValue(mMockContact1);
         ShadowAndroidViewModelFactory.add(ContactDetailsViewModel.class,
                 mMockContactDetailsViewModel);
-        when(mMockContactDetailsViewModel.getContactDetails(any())).thenReturn(contactDetail);
+        when(mMockContactDetailsViewModel.getContactDetails(any(), any()))
+                .thenReturn(contactDetail);
     }
 
     @Test
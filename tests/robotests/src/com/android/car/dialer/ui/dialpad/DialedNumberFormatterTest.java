@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.dialpad;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import com.google.i18n.phonenumbers.AsYouTypeFormatter;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class DialedNumberFormatterTest {
+    private static final String REGION_CODE = "US";
+
+    private DialedNumberFormatter mDialedNumberFormatter;
+
+    @Before
+    public void setUp() {
+        mDialedNumberFormatter = new DialedNumberFormatter(REGION_CODE);
+    }
+
+    @Test
+    public void testFormat_typingDigits() {
+        String number = "16505551234";
+        for (int length = 1; length <= number.length(); length++) {
+            verifyFormat(number.substring(0, length));
+        }
+    }
+
+    @Test
+    public void testFormat_removingDigits() {
+        String number = "+442079460000";
+        verifyFormat(number);
+        for (int length = number.length() - 1; length >= 0; length--) {
+            verifyFormat(number.substring(0, length));
+        }
+    }
+
+    @Test
+    public void testFormat_typingAfterRemoving() {
+        verifyFormat("6505551234");
+        verifyFormat("65055512");
+        verifyFormat("650555129");
+        verifyFormat("6505551298");
+    }
+
+    @Test
+    public void testFormat_replacedNumber() {
+        verifyFormat("6505551234");
+        verifyFormat("4085550123");
+        verifyFormat("");
+        verifyFormat("*#06#");
+        verifyFormat("650,1234;5");
+    }
+
+    @Test
+    public void testFormat_empty() {
+        assertThat(mDialedNumberFormatter.format("")).isEmpty();
+    }
+
+    private void verifyFormat(String number) {
+        assertWithMessage("Formatted %s", number)
+                .that(mDialedNumberFormatter.format(new StringBuffer(number)))
+                .isEqualTo(formatFromScratch(number));
+    }
+
+    private static String formatFromScratch(String number) {
+        AsYouTypeFormatter asYouTypeFormatter =
+                PhoneNumberUtil.getInstance().getAsYouTypeFormatter(REGION_CODE);
+        String formatted = "";
+        for (int i = 0; i < number.length(); i++) {
+            formatted = asYouTypeFormatter.inputDigit(number.charAt(i));
+        }
+        return formatted;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.dialpad;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.verify;
+
+import android.telecom.Call;
+import android.view.KeyEvent;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class DtmfToneEngineTest {
+    @Mock
+    private Call mMockCall;
+    private DtmfToneEngine mDtmfToneEngine;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mDtmfToneEngine = DtmfToneEngine.get();
+    }
+
+    @After
+    public void tearDown() {
+        DtmfToneEngine.tearDown();
+    }
+
+    @Test
+    public void testAcquire_loadsToneGenerator() {
+        assertThat(mDtmfToneEngine.hasToneGenerator()).isFalse();
+
+        mDtmfToneEngine.acquire();
+
+        assertThat(mDtmfToneEngine.hasToneGenerator()).isTrue();
+    }
+
+    @Test
+    public void testRelease_releasesToneGeneratorAfterDelay() {
+        mDtmfToneEngine.acquire();
+        mDtmfToneEngine.release();
+        assertThat(mDtmfToneEngine.hasToneGenerator()).isTrue();
+
+        ShadowLooper.idleMainLooper(DtmfToneEngine.RELEASE_DELAY_MS);
+
+        assertThat(mDtmfToneEngine.hasToneGenerator()).isFalse();
+    }
+
+    @Test
+    public void testAcquire_afterRelease_keepsToneGenerator() {
+        mDtmfToneEngine.acquire();
+        mDtmfToneEngine.acquire();
+        mDtmfToneEngine.release();
+        mDtmfToneEngine.release();
+        mDtmfToneEngine.acquire();
+
+        ShadowLooper.idleMainLooper(DtmfToneEngine.RELEASE_DELAY_MS);
+
+        assertThat(mDtmfToneEngine.hasToneGenerator()).isTrue();
+    }
+
+    @Test
+    public void testStartTone_sendsDigitOverCall() {
+        mDtmfToneEngine.startTone(KeyEvent.KEYCODE_POUND, mMockCall);
+        verify(mMockCall).playDtmfTone('#');
+
+        mDtmfToneEngine.stopTone();
+        verify(mMockCall).stopDtmfTone();
+    }
+}
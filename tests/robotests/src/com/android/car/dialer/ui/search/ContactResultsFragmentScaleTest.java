@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.car.dialer.ui.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.provider.ContactsContract;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.apps.common.widget.PagedRecyclerView;
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.FragmentTestActivity;
+import com.android.car.dialer.R;
+import com.android.car.dialer.testutils.ScaleBudget;
+import com.android.car.dialer.testutils.ScaleTestData;
+import com.android.car.dialer.testutils.ShadowAndroidViewModelFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Updates the search results with every seeded contact. Only the visible rows should be bound, so
+ * the cost of an update should barely depend on the number of results.
+ */
+@Config(shadows = {ShadowAndroidViewModelFactory.class})
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class ContactResultsFragmentScaleTest {
+    private static final String INITIAL_SEARCH_QUERY = "";
+    private static final int MAX_VISIBLE_ROWS = 100;
+
+    private Context mContext;
+    private MutableLiveData<List<ContactDetails>> mContactSearchResultsLiveData;
+    private PagedRecyclerView mListView;
+    @Mock
+    private ContactResultsViewModel mMockContactResultsViewModel;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+
+        mContactSearchResultsLiveData = new MutableLiveData<>();
+        when(mMockContactResultsViewModel.getContactSearchResults())
+                .thenReturn(mContactSearchResultsLiveData);
+        ShadowAndroidViewModelFactory.add(
+                ContactResultsViewModel.class, mMockContactResultsViewModel);
+
+        ContactResultsFragment contactResultsFragment =
+                ContactResultsFragment.newInstance(INITIAL_SEARCH_QUERY);
+        FragmentTestActivity fragmentTestActivity = Robolectric.buildActivity(
+                FragmentTestActivity.class).create().resume().get();
+        fragmentTestActivity.setFragment(contactResultsFragment);
+
+        mListView = contactResultsFragment.getView().findViewById(R.id.list_view);
+    }
+
+    @Test
+    public void testUpdateSearchResults() {
+        new ScaleBudget("ContactResultsFragment.update")
+                .setTimeBudgetMillis(2000)
+                .setAllocationBudgetBytes(32L * 1024 * 1024)
+                .assertWithinBudget(ScaleTestData.CONTACT_COUNT, size -> {
+                    ScaleTestData.seedProviders(size, ScaleTestData.CALL_LOG_COUNT);
+                    List<ContactDetails> contactDetails = loadContactDetails();
+                    return () -> {
+                        mContactSearchResultsLiveData.setValue(contactDetails);
+                        mListView.layoutBothForTesting(0, 0, 100, 1000);
+                    };
+                });
+
+        assertThat(mListView.getAdapter().getItemCount()).isEqualTo(ScaleTestData.CONTACT_COUNT);
+        assertThat(mListView.getChildCount()).isLessThan(MAX_VISIBLE_ROWS);
+    }
+
+    /** Converts the seeded contacts the same way {@link ContactResultsViewModel} does. */
+    private List<ContactDetails> loadContactDetails() {
+        List<ContactDetails> contactDetails = new ArrayList<>();
+        try (Cursor cursor = ScaleTestData.queryContacts(mContext)) {
+            int idColIdx = cursor.getColumnIndex(ContactsContract.Contacts._ID);
+            int lookupColIdx = cursor.getColumnIndex(ContactsContract.Contacts.LOOKUP_KEY);
+            int nameColIdx = cursor.getColumnIndex(ContactsContract.Contacts.DISPLAY_NAME);
+            int photoUriColIdx = cursor.getColumnIndex(ContactsContract.Contacts.PHOTO_URI);
+            while (cursor.moveToNext()) {
+                contactDetails.add(new ContactDetails(
+                        cursor.getString(nameColIdx),
+                        cursor.getString(photoUriColIdx),
+                        ContactsContract.Contacts.getLookupUri(
+                                cursor.getLong(idColIdx), cursor.getString(lookupColIdx))));
+            }
+        }
+        return contactDetails;
+    }
+}
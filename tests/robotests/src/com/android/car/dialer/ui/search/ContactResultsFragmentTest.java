@@ -115,7 +115,7 @@ public class ContactResultsFragmentTest {
         contactDetailLiveData.setValue(mMockContact);
         ShadowAndroidViewModelFactory
                 .add(ContactDetailsViewModel.class, mMockContactDetailsViewModel);
-        when(mMockContactDetailsViewModel.getContactDetails(any()))
+        when(mMockContactDetailsViewModel.getContactDetails(any(), any()))
                 .thenReturn(contactDetailLiveData);
 
         mContactResultsFragment = ContactResultsFragment.newInstance(INITIAL_SEARCH_QUERY);
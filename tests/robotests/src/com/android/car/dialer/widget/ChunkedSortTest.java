@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.car.dialer.widget;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class ChunkedSortTest {
+    private static final int SIZE = ChunkedSort.CHUNK_SIZE * 5 + 7;
+
+    @Test
+    public void testSort_matchesStableSort() {
+        Random random = new Random(SIZE);
+        List<int[]> list = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            // Few distinct keys so that stability matters; the second value is the input index.
+            list.add(new int[]{random.nextInt(50), i});
+        }
+        List<int[]> input = new ArrayList<>(list);
+        Comparator<int[]> comparator = Comparator.comparingInt(pair -> pair[0]);
+
+        List<int[]> sorted = ChunkedSort.sort(list, comparator, new CancellationToken());
+
+        List<int[]> expected = new ArrayList<>(list);
+        expected.sort(comparator);
+        assertThat(sorted).containsExactlyElementsIn(expected).inOrder();
+        assertThat(list).containsExactlyElementsIn(input).inOrder();
+    }
+
+    @Test
+    public void testSort_cancelled_returnsNull() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            list.add(SIZE - i);
+        }
+        CancellationToken cancellationToken = new CancellationToken();
+        int[] comparisons = new int[1];
+        Comparator<Integer> comparator = (first, second) -> {
+            // Cancel while sorting the first chunk.
+            if (++comparisons[0] == 1) {
+                cancellationToken.cancel();
+            }
+            return Integer.compare(first, second);
+        };
+
+        assertThat(ChunkedSort.sort(list, comparator, cancellationToken)).isNull();
+        assertThat(comparisons[0]).isLessThan(SIZE);
+    }
+}
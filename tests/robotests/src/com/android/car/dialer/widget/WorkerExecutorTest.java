@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.car.dialer.widget;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class WorkerExecutorTest {
+    private static final long TIMEOUT_MS = 5000;
+    private static final int RING_CRITICAL_QUEUE_CAPACITY = 16;
+
+    private WorkerExecutor mWorkerExecutor;
+    private CountDownLatch mBlockingTaskRelease;
+
+    @Before
+    public void setUp() {
+        mWorkerExecutor = WorkerExecutor.getInstance();
+        mBlockingTaskRelease = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        mBlockingTaskRelease.countDown();
+        mWorkerExecutor.tearDown();
+    }
+
+    @Test
+    public void testSubmit_runsTask() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+
+        mWorkerExecutor.submit(WorkerExecutor.Lane.INTERACTIVE, token -> ran.countDown());
+
+        assertThat(ran.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    public void testBlockedLane_doesNotDelayOtherLanes() throws InterruptedException {
+        blockLane(WorkerExecutor.Lane.BACKGROUND);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        mWorkerExecutor.submit(WorkerExecutor.Lane.RING_CRITICAL, token -> ran.countDown());
+
+        assertThat(ran.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    public void testCancel_pendingTaskNotRun() throws InterruptedException {
+        blockLane(WorkerExecutor.Lane.INTERACTIVE);
+        AtomicBoolean cancelledTaskRan = new AtomicBoolean();
+        CountDownLatch ran = new CountDownLatch(1);
+
+        CancellationToken token = mWorkerExecutor.submit(WorkerExecutor.Lane.INTERACTIVE,
+                cancellationToken -> cancelledTaskRan.set(true));
+        mWorkerExecutor.submit(WorkerExecutor.Lane.INTERACTIVE,
+                cancellationToken -> ran.countDown());
+        token.cancel();
+        mBlockingTaskRelease.countDown();
+
+        assertThat(ran.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(token.isCancelled()).isTrue();
+        assertThat(cancelledTaskRan.get()).isFalse();
+    }
+
+    @Test
+    public void testCancel_freesQueueSlot() throws InterruptedException {
+        blockLane(WorkerExecutor.Lane.RING_CRITICAL);
+        CancellationToken superseded = null;
+        for (int i = 0; i < RING_CRITICAL_QUEUE_CAPACITY; i++) {
+            if (superseded != null) {
+                superseded.cancel();
+            }
+            superseded = mWorkerExecutor.submit(WorkerExecutor.Lane.RING_CRITICAL, token -> { });
+        }
+        assertThat(mWorkerExecutor.getQueueDepth(WorkerExecutor.Lane.RING_CRITICAL))
+                .isEqualTo(1);
+
+        for (int i = 1; i < RING_CRITICAL_QUEUE_CAPACITY; i++) {
+            mWorkerExecutor.submit(WorkerExecutor.Lane.RING_CRITICAL, token -> { });
+        }
+        superseded.cancel();
+        CancellationToken resubmitted = mWorkerExecutor.submit(WorkerExecutor.Lane.RING_CRITICAL,
+                token -> { });
+
+        assertThat(resubmitted.isCancelled()).isFalse();
+    }
+
+    @Test
+    public void testQueueFull_rejectsNewestTask() throws InterruptedException {
+        blockLane(WorkerExecutor.Lane.RING_CRITICAL);
+
+        CancellationToken oldest = mWorkerExecutor.submit(WorkerExecutor.Lane.RING_CRITICAL,
+                token -> { });
+        for (int i = 1; i < RING_CRITICAL_QUEUE_CAPACITY; i++) {
+            mWorkerExecutor.submit(WorkerExecutor.Lane.RING_CRITICAL, token -> { });
+        }
+        CancellationToken newest = mWorkerExecutor.submit(WorkerExecutor.Lane.RING_CRITICAL,
+                token -> { });
+
+        assertThat(oldest.isCancelled()).isFalse();
+        assertThat(newest.isCancelled()).isTrue();
+        assertThat(mWorkerExecutor.getQueueDepth(WorkerExecutor.Lane.RING_CRITICAL))
+                .isEqualTo(RING_CRITICAL_QUEUE_CAPACITY);
+    }
+
+    @Test
+    public void testTearDown_cancelsTasksAndReinitializes() throws InterruptedException {
+        CancellationToken running = blockLane(WorkerExecutor.Lane.BACKGROUND);
+        CancellationToken pending = mWorkerExecutor.submit(WorkerExecutor.Lane.BACKGROUND,
+                token -> { });
+
+        // Cancels the token of the blocking task, which stops waiting.
+        mWorkerExecutor.tearDown();
+
+        assertThat(running.isCancelled()).isTrue();
+        assertThat(pending.isCancelled()).isTrue();
+        assertThat(mWorkerExecutor.submit(WorkerExecutor.Lane.BACKGROUND, token -> { })
+                .isCancelled()).isTrue();
+
+        mWorkerExecutor = WorkerExecutor.getInstance();
+        CountDownLatch ran = new CountDownLatch(1);
+        mWorkerExecutor.submit(WorkerExecutor.Lane.BACKGROUND, token -> ran.countDown());
+        assertThat(ran.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    public void testTearDown_doesNotWaitForRunningTask() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        mWorkerExecutor.submit(WorkerExecutor.Lane.BACKGROUND, token -> {
+            started.countDown();
+            try {
+                // Ignores the cancellation.
+                mBlockingTaskRelease.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        });
+        assertThat(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+
+        mWorkerExecutor.tearDown();
+
+        assertThat(finished.getCount()).isEqualTo(1);
+        mBlockingTaskRelease.countDown();
+        assertThat(finished.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    /**
+     * Occupies the thread of the lane until {@link #mBlockingTaskRelease} is released or the
+     * returned token is cancelled.
+     */
+    private CancellationToken blockLane(WorkerExecutor.Lane lane) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CancellationToken cancellationToken = mWorkerExecutor.submit(lane, token -> {
+            started.countDown();
+            try {
+                long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+                while (!token.isCancelled() && System.currentTimeMillis() < deadline
+                        && !mBlockingTaskRelease.await(10, TimeUnit.MILLISECONDS)) {
+                    // Keep blocking.
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        return cancellationToken;
+    }
+}